@@ -57,6 +57,7 @@ package org.cdmckay.coffeedom;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
 /**
@@ -181,6 +182,11 @@ public class Attribute
      */
     protected Element parent;
 
+    /**
+     * Whether this attribute is read-only because its element was frozen.
+     */
+    transient volatile boolean frozen;
+
     /**
      * Default, no-args constructor for implementations to use if needed.
      */
@@ -285,6 +291,27 @@ public class Attribute
         return null;
     }
 
+    /**
+     * Returns whether this attribute belongs to a frozen element.  A frozen attribute cannot be modified.
+     *
+     * @return true if this attribute is frozen
+     * @see Element#freeze()
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Throws if this attribute is frozen; called first by every method that modifies it.
+     *
+     * @throws UnsupportedOperationException if this attribute is frozen
+     */
+    final void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Frozen attribute cannot be modified");
+        }
+    }
+
     /**
      * This will set the parent of this <code>Attribute</code>.
      *
@@ -292,6 +319,14 @@ public class Attribute
      * @return this <code>Attribute</code> modified.
      */
     protected Attribute setParent(final Element parent) {
+        if (namespace != Namespace.NO_NAMESPACE) {
+            if (this.parent != null) {
+                this.parent.namespacesChanged();
+            }
+            if (parent != null) {
+                parent.namespacesChanged();
+            }
+        }
         this.parent = parent;
         return this;
     }
@@ -333,6 +368,7 @@ public class Attribute
      * @throws IllegalNameException if the given name is illegal as an attribute name.
      */
     public Attribute setName(final String name) {
+        checkNotFrozen();
         final String reason = Verifier.checkAttributeName(name);
         if (reason != null) {
             throw new IllegalNameException(name, "attribute", reason);
@@ -407,6 +443,7 @@ public class Attribute
      *                              namespace.
      */
     public Attribute setNamespace(Namespace namespace) {
+        checkNotFrozen();
         if (namespace == null) {
             namespace = Namespace.NO_NAMESPACE;
         }
@@ -418,6 +455,9 @@ public class Attribute
                     "An attribute namespace without a prefix can only be the " + "NO_NAMESPACE namespace");
         }
         this.namespace = namespace;
+        if (parent != null) {
+            parent.namespacesChanged();
+        }
         return this;
     }
 
@@ -440,11 +480,17 @@ public class Attribute
      *                              org.cdmckay.coffeedom.Verifier#checkCharacterData(String)}).
      */
     public Attribute setValue(final String value) {
+        checkNotFrozen();
         final String reason = Verifier.checkCharacterData(value);
         if (reason != null) {
             throw new IllegalDataException(value, "attribute", reason);
         }
+        final String oldValue = this.value;
         this.value = value;
+        if (type == Type.ID && parent != null) {
+            IdIndex.idRemoved(parent, oldValue);
+            IdIndex.idAdded(parent, value);
+        }
         return this;
     }
 
@@ -465,10 +511,19 @@ public class Attribute
      * @throws IllegalDataException if the given attribute type is not one of the supported types.
      */
     public Attribute setAttributeType(final Type type) {
+        checkNotFrozen();
         if (type == null) {
             throw new IllegalArgumentException("Attribute type cannot be null");
         }
+        final Type oldType = this.type;
         this.type = type;
+        if (parent != null && (oldType == Type.ID) != (type == Type.ID)) {
+            if (type == Type.ID) {
+                IdIndex.idAdded(parent, value);
+            } else {
+                IdIndex.idRemoved(parent, value);
+            }
+        }
         return this;
     }
 
@@ -524,6 +579,7 @@ public class Attribute
 
         // super.clone() copies reference to set parent to null
         attribute.parent = null;
+        attribute.frozen = false;
         return attribute;
     }
 
@@ -623,6 +679,17 @@ public class Attribute
         }
     }
 
+    /**
+     * Serializes an attached attribute as part of the whole tree it belongs to, written without recursion; see {@link
+     * SerialTree}.  A detached attribute keeps the default form.
+     *
+     * @return the object to serialize in place of this attribute
+     * @throws ObjectStreamException never
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        return SerialTree.replace(this);
+    }
+
     // Support a custom Namespace serialization so no two namespace
     // object instances may exist for the same prefix/uri pair
     private void writeObject(final ObjectOutputStream out) throws IOException {
@@ -91,6 +91,11 @@ class AttributeList
      */
     private Element parent;
 
+    /**
+     * Whether the parent is frozen, making this list read-only
+     */
+    transient boolean frozen;
+
     /**
      * Create a new instance of the AttributeList representing Element content
      *
@@ -106,10 +111,15 @@ class AttributeList
      * @param a attribute to add without any checks
      */
     final void uncheckedAddAttribute(Attribute a) {
+        checkNotFrozen();
         a.parent = parent;
+        if (a.namespace != Namespace.NO_NAMESPACE) {
+            parent.namespacesChanged();
+        }
         ensureCapacity(size + 1);
         elementData[size++] = a;
         modCount++;
+        IdIndex.attributeAdded(parent, a);
     }
 
     /**
@@ -167,6 +177,7 @@ class AttributeList
      * @param attribute <code>Attribute</code> to add
      */
     private void addAttribute(int index, Attribute attribute) {
+        checkNotFrozen();
         if (attribute.getParent() != null) {
             throw new IllegalAddException(
                     "The attribute already has an existing parent \"" + attribute.getParent().getQualifiedName() +
@@ -193,6 +204,7 @@ class AttributeList
             size++;
         }
         modCount++;
+        IdIndex.attributeAdded(parent, attribute);
     }
 
     /**
@@ -248,10 +260,12 @@ class AttributeList
      */
     @Override
     public void clear() {
+        checkNotFrozen();
         if (elementData != null) {
             for (int i = 0; i < size; i++) {
                 Attribute attribute = elementData[i];
                 attribute.setParent(null);
+                IdIndex.attributeRemoved(parent, attribute);
             }
             elementData = null;
             size = 0;
@@ -265,8 +279,12 @@ class AttributeList
      * @param collection The collection to use.
      */
     void clearAndSet(Collection<? extends Attribute> collection) {
+        checkNotFrozen();
         Attribute[] old = elementData;
         int oldSize = size;
+        for (int i = 0; i < oldSize; i++) {
+            IdIndex.attributeRemoved(parent, old[i]);
+        }
 
         elementData = null;
         size = 0;
@@ -278,6 +296,9 @@ class AttributeList
             } catch (RuntimeException exception) {
                 elementData = old;
                 size = oldSize;
+                for (int i = 0; i < oldSize; i++) {
+                    IdIndex.attributeAdded(parent, old[i]);
+                }
                 throw exception;
             }
         }
@@ -291,13 +312,53 @@ class AttributeList
         modCount++;
     }
 
+    /**
+     * Appends clones of the attributes of another list, as a clone of a frozen element copies the attributes it
+     * shares.  Like {@link ContentList#addClones(ContentList)} this skips the ID index.
+     *
+     * @param source the list whose attributes to clone
+     */
+    void addClones(AttributeList source) {
+        ensureCapacity(size + source.size);
+        for (int i = 0; i < source.size; i++) {
+            Attribute a = source.elementData[i].clone();
+            a.parent = parent;
+            elementData[size++] = a;
+        }
+        modCount++;
+    }
+
+    /**
+     * Makes this list and its attributes read-only for freezing its parent, trimming the backing array to the number
+     * of attributes.
+     */
+    void freeze() {
+        if (elementData != null && elementData.length > size) {
+            Attribute[] trimmed = new Attribute[size];
+            System.arraycopy(elementData, 0, trimmed, 0, size);
+            elementData = trimmed;
+        }
+        frozen = true;
+    }
+
+    /**
+     * Throws if the parent of this list is frozen.
+     *
+     * @throws UnsupportedOperationException if the parent is frozen
+     */
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The attributes of a frozen element cannot be modified");
+        }
+    }
+
     /**
      * Increases the capacity of this <code>AttributeList</code> instance, if necessary, to ensure that it can hold at
      * least the number of items specified by the minimum capacity argument.
      *
      * @param minCapacity the desired minimum capacity.
      */
-    private void ensureCapacity(int minCapacity) {
+    void ensureCapacity(int minCapacity) {
         if (elementData == null) {
             elementData = new Attribute[Math.max(minCapacity, INITIAL_ARRAY_SIZE)];
         } else {
@@ -378,6 +439,7 @@ class AttributeList
             throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size());
         }
 
+        checkNotFrozen();
         Attribute old = elementData[index];
         old.setParent(null);
         int numMoved = size - index - 1;
@@ -386,6 +448,7 @@ class AttributeList
         }
         elementData[--size] = null; // Let gc do its work
         modCount++;
+        IdIndex.attributeRemoved(parent, old);
         return old;
     }
 
@@ -433,6 +496,7 @@ class AttributeList
      * @return The object which was replaced. throws IndexOutOfBoundsException if index < 0 || index >= size()
      */
     private Attribute setAttribute(int index, Attribute attribute) {
+        checkNotFrozen();
         if (index < 0 || index >= size) {
             throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size());
         }
@@ -450,9 +514,11 @@ class AttributeList
 
         Attribute oldAttribute = elementData[index];
         oldAttribute.setParent(null);
+        IdIndex.attributeRemoved(parent, oldAttribute);
 
         elementData[index] = attribute;
         attribute.setParent(parent);
+        IdIndex.attributeAdded(parent, attribute);
         return oldAttribute;
     }
 
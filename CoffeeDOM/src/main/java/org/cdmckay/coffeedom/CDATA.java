@@ -104,9 +104,10 @@ public class CDATA
         // Overrides Text.setText() because this needs to check that CDATA rules
         // are enforced. We could have a separate Verifier check for CDATA
         // beyond Text and call that alone before super.setText().
+        checkNotFrozen();
 
         if (str == null || "".equals(str)) {
-            value = EMPTY_STRING;
+            setValue(EMPTY_STRING);
             return this;
         }
 
@@ -115,7 +116,7 @@ public class CDATA
             throw new IllegalDataException(str, "CDATA section", reason);
         }
 
-        value = str;
+        setValue(str);
 
         return this;
     }
@@ -133,32 +134,28 @@ public class CDATA
         // Overrides Text.append(String) because this needs to check that CDATA
         // rules are enforced. We could have a separate Verifier check for CDATA
         // beyond Text and call that alone before super.setText().
+        checkNotFrozen();
 
         if (str == null || "".equals(str)) {
             return;
         }
 
-        // We need a temp value to ensure that the value is changed _after_
-        // validation.
-        final String tmpValue;
-        if (value.equals(EMPTY_STRING)) {
-            tmpValue = str;
-        } else {
-            tmpValue = value + str;
-        }
+        String reason = Verifier.checkCDATASection(str);
 
-        // we have to do late checking since the end of a CDATA section could 
-        // have been created by concating both strings:
-        // "]" + "]>" 
-        // or 
-        // "]]" + ">"
-        // TODO Maybe this could be optimized for these two cases.
-        final String reason = Verifier.checkCDATASection(tmpValue);
+        // The end of a CDATA section could also be created by concatenating
+        // "]" + "]>" or "]]" + ">", so the join has to be checked as well.
+        final int length = length();
+        if (reason == null && length > 0 && charAt(length - 1) == ']') {
+            final boolean twoBrackets = length > 1 && charAt(length - 2) == ']';
+            if ((twoBrackets && str.startsWith(">")) || str.startsWith("]>")) {
+                reason = "CDATA cannot internally contain a CDATA ending delimiter (]]>)";
+            }
+        }
         if (reason != null) {
             throw new IllegalDataException(str, "CDATA section", reason);
         }
 
-        value = tmpValue;
+        appendValue(str);
     }
 
     /**
@@ -171,6 +168,7 @@ public class CDATA
         // Overrides Text.append(Text) because this needs to check that CDATA
         // rules are enforced. We could have a separate Verifier check for CDATA
         // beyond Text and call that alone before super.setText().
+        checkNotFrozen();
 
         if (text == null) {
             return;
@@ -112,6 +112,7 @@ public class Comment
      * @throws IllegalDataException if the given text is illegal for a Comment.
      */
     public Comment setText(String text) {
+        checkNotFrozen();
         String reason;
         if ((reason = Verifier.checkCommentData(text)) != null) {
             throw new IllegalDataException(text, "comment", reason);
@@ -54,6 +54,7 @@
 
 package org.cdmckay.coffeedom;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
 /**
@@ -75,6 +76,28 @@ public abstract class Content
 
     protected Parent parent = null;
 
+    /**
+     * The position of this child in its parent's content when it was last known.  It is only a hint: the parent's
+     * <code>ContentList</code> checks it before relying on it.
+     */
+    transient int index = -1;
+
+    /**
+     * This child's document-order key, only meaningful while its document keeps keys up to date.
+     *
+     * @see Document#setDocumentOrderKeysEnabled(boolean)
+     */
+    transient long order;
+
+    /**
+     * Whether this child is read-only.  It is written last when a tree is frozen, so a thread that reads it as true
+     * sees everything the freeze did.
+     *
+     * @see Element#freeze()
+     * @see Document#freeze()
+     */
+    transient volatile boolean frozen;
+
     protected Content() {
     }
 
@@ -90,6 +113,52 @@ public abstract class Content
         return this;
     }
 
+    /**
+     * Returns whether this child has been frozen by {@link Element#freeze()} or {@link Document#freeze()}.  Frozen
+     * content cannot be modified, attached or detached, and can be read by any number of threads without locking.
+     *
+     * @return true if this child is frozen
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Throws if this child is frozen; called first by every method that modifies it.
+     *
+     * @throws UnsupportedOperationException if this child is frozen
+     */
+    final void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Frozen content cannot be modified");
+        }
+    }
+
+    /**
+     * Serializes this child as part of the whole tree it belongs to, written without recursion; see {@link SerialTree}.
+     * A detached child other than an element keeps the default form.
+     *
+     * @return the object to serialize in place of this child
+     * @throws ObjectStreamException never
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        return SerialTree.replace(this);
+    }
+
+    /**
+     * Compacts this child and computes anything that would otherwise be computed lazily on a read, as the first step
+     * of freezing it.  The child is still mutable when this is called.
+     */
+    void prepareFreeze() {
+    }
+
+    /**
+     * Makes this child read-only, as the last step of freezing it.
+     */
+    void markFrozen() {
+        frozen = true;
+    }
+
     /**
      * Return this child's parent, or null if this child is currently not attached. The parent can be either an {@link
      * Element} or a {@link Document}.
@@ -112,6 +181,34 @@ public abstract class Content
         return (Element) ((parent instanceof Element) ? parent : null);
     }
 
+    /**
+     * Returns the child that follows this one in its parent's content, or null if this child is the last one or is not
+     * attached.
+     *
+     * @return the next sibling or null if none
+     */
+    public Content getNextSibling() {
+        if (parent == null) {
+            return null;
+        }
+        int next = parent.indexOf(this) + 1;
+        return next < parent.getContentsSize() ? parent.getContent(next) : null;
+    }
+
+    /**
+     * Returns the child that precedes this one in its parent's content, or null if this child is the first one or is
+     * not attached.
+     *
+     * @return the previous sibling or null if none
+     */
+    public Content getPreviousSibling() {
+        if (parent == null) {
+            return null;
+        }
+        int previous = parent.indexOf(this) - 1;
+        return previous >= 0 ? parent.getContent(previous) : null;
+    }
+
     /**
      * Sets the parent of this Content. The caller is responsible for removing any pre-existing parentage.
      *
@@ -136,6 +233,26 @@ public abstract class Content
         return parent.getDocument();
     }
 
+    /**
+     * Compares the position of this child with that of another child of the same tree, in document order.  If both
+     * belong to a document that keeps document-order keys, their keys are compared; otherwise their paths from the
+     * root are.
+     *
+     * @param other the child to compare with
+     * @return a negative number, zero or a positive number as this child comes before, is, or comes after
+     *         <code>other</code>
+     * @throws IllegalArgumentException if the children are not in the same tree
+     * @see Document#compareDocumentOrder(Content, Content)
+     */
+    public int compareDocumentOrder(Content other) {
+        // A tracked list knows its document, so keys are found without walking up
+        Document document = ContentList.trackerOf(parent);
+        if (document != null && document.documentOrder != null && ContentList.trackerOf(other.parent) == document) {
+            return document.documentOrder.compare(this, other);
+        }
+        return DocumentOrder.compareByPath(this, other);
+    }
+
 
     /**
      * Returns the XPath 1.0 string value of this child.
@@ -154,6 +271,7 @@ public abstract class Content
         try {
             Content c = (Content) super.clone();
             c.parent = null;
+            c.frozen = false;
             return c;
         } catch (CloneNotSupportedException e) {
             // Can not happen.
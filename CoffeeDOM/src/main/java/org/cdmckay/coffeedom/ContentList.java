@@ -54,6 +54,7 @@
 
 package org.cdmckay.coffeedom;
 
+import org.cdmckay.coffeedom.filter.ElementFilter;
 import org.cdmckay.coffeedom.filter.Filter;
 
 import java.io.Serializable;
@@ -93,6 +94,39 @@ final class ContentList
      */
     private Parent parent;
 
+    /**
+     * Positions of the child elements keyed by local name and then by namespace URI, built lazily by the first named
+     * lookup.  It is volatile so that threads reading a frozen list each see a fully built index.
+     */
+    private transient volatile Map<String, NameIndexEntry> nameIndex;
+
+    /**
+     * The modCount the name index was last synchronized with
+     */
+    private transient int nameIndexModCount;
+
+    /**
+     * Number of times a child element changed its name or namespace
+     */
+    private transient int renameCount;
+
+    /**
+     * The children below this position have an exact <code>Content.index</code> hint
+     */
+    private transient int hintedSize;
+
+    /**
+     * Whether the parent is frozen, making this list read-only
+     */
+    transient boolean frozen;
+
+    /**
+     * The document whose element index, ID index or document-order keys follow the changes to this list, or null.
+     * Every list of a document points at it while the document keeps any of them, so changes anywhere else never walk
+     * up to their document, and the document of a child of a tracked list is known without walking up either.
+     */
+    transient Document tracker;
+
     /**
      * Force either a Document or Element parent
      *
@@ -100,6 +134,80 @@ final class ContentList
      */
     ContentList(Parent parent) {
         this.parent = parent;
+        if (parent instanceof Element) {
+            tracker = trackerOf(((Element) parent).parent);
+        }
+    }
+
+    /**
+     * Returns the document following the changes to the content of a parent, see {@link #tracker}.
+     *
+     * @param parent the parent, or null
+     * @return the tracking document, or null if there is none
+     */
+    static Document trackerOf(Parent parent) {
+        ContentList list = null;
+        if (parent instanceof Element) {
+            list = ((Element) parent).contents;
+        } else if (parent instanceof Document) {
+            list = ((Document) parent).contents;
+        }
+        return list == null ? null : list.tracker;
+    }
+
+    /**
+     * Points the content lists of an element and of all its descendants at a tracking document, or at none.
+     *
+     * @param element the top of the subtree
+     * @param tracker the tracking document, or null
+     */
+    static void setTracker(Element element, Document tracker) {
+        List<ContentList> pending = null;
+        ContentList list = element.contents;
+        while (list != null) {
+            list.tracker = tracker;
+            for (int i = 0; i < list.size; i++) {
+                Content child = list.elementData[i];
+                if (child instanceof Element && ((Element) child).contents != null) {
+                    if (pending == null) {
+                        pending = new ArrayList<ContentList>();
+                    }
+                    pending.add(((Element) child).contents);
+                }
+            }
+            list = pending == null || pending.isEmpty() ? null : pending.remove(pending.size() - 1);
+        }
+    }
+
+    /**
+     * Reports a child that was just added to this list to the indexes of the document.
+     *
+     * @param child the added child
+     */
+    private void attached(Content child) {
+        if (tracker != null) {
+            if (child instanceof Element) {
+                setTracker((Element) child, tracker);
+            }
+            ElementIndex.attached(tracker, child);
+            DocumentOrder.attached(tracker, parent, child);
+        }
+        IdIndex.attached(tracker, parent, child);
+    }
+
+    /**
+     * Reports a child that was just removed from this list to the indexes of the document.
+     *
+     * @param child the removed child
+     */
+    private void detached(Content child) {
+        if (tracker != null) {
+            ElementIndex.detached(tracker, child);
+            IdIndex.detached(tracker, child);
+            if (child instanceof Element) {
+                setTracker((Element) child, null);
+            }
+        }
     }
 
     /**
@@ -108,10 +216,17 @@ final class ContentList
      * @param c content to add without any checks
      */
     final void uncheckedAddContent(Content c) {
+        checkNotFrozen();
         c.parent = parent;
+        if (c instanceof Element) {
+            ((Element) c).namespacesChanged();
+        }
         ensureCapacity(size + 1);
+        indexAppended(c);
+        hintAppended(c);
         elementData[size++] = c;
         modCount++;
+        attached(c);
     }
 
     /**
@@ -186,6 +301,8 @@ final class ContentList
         if (child == null) {
             throw new IllegalAddException("Cannot add null object");
         }
+        checkNotFrozen();
+        child.checkNotFrozen();
 
         if (parent instanceof Document) {
             documentCanContain(index, child);
@@ -220,13 +337,18 @@ final class ContentList
 
         ensureCapacity(size + 1);
         if (index == size) {
+            indexAppended(child);
+            hintAppended(child);
             elementData[size++] = child;
         } else {
             System.arraycopy(elementData, index, elementData, index + 1, size - index);
             elementData[index] = child;
+            child.index = index;
+            hintedSize = Math.min(hintedSize, index);
             size++;
         }
         modCount++;
+        attached(child);
     }
 
     /**
@@ -281,13 +403,19 @@ final class ContentList
      */
     @Override
     public void clear() {
+        checkNotFrozen();
         if (elementData != null) {
+            for (int i = 0; i < size; i++) {
+                elementData[i].checkNotFrozen();
+            }
             for (int i = 0; i < size; i++) {
                 Content obj = elementData[i];
                 removeParent(obj);
+                detached(obj);
             }
             elementData = null;
             size = 0;
+            hintedSize = 0;
         }
         modCount++;
     }
@@ -298,11 +426,19 @@ final class ContentList
      * @param collection The collection to use.
      */
     void clearAndSet(Collection<? extends Content> collection) {
+        checkNotFrozen();
         Content[] old = elementData;
         int oldSize = size;
+        for (int i = 0; i < oldSize; i++) {
+            old[i].checkNotFrozen();
+        }
+        for (int i = 0; i < oldSize; i++) {
+            detached(old[i]);
+        }
 
         elementData = null;
         size = 0;
+        hintedSize = 0;
 
         if ((collection != null) && (collection.size() != 0)) {
             ensureCapacity(collection.size());
@@ -311,6 +447,10 @@ final class ContentList
             } catch (RuntimeException exception) {
                 elementData = old;
                 size = oldSize;
+                hintedSize = 0;
+                for (int i = 0; i < oldSize; i++) {
+                    attached(old[i]);
+                }
                 throw exception;
             }
         }
@@ -323,6 +463,71 @@ final class ContentList
         modCount++;
     }
 
+    /**
+     * Appends clones of the children of another list, as a clone of a frozen element copies the content it shares.
+     * The clones are only reported to the document-order keys: a document with an element index never holds shared
+     * content, since building or updating it walks, and so copies, everything it covers, and the ID index finds the
+     * elements of shared content by their position, which copying does not change.
+     *
+     * @param source the list whose children to clone
+     */
+    void addClones(ContentList source) {
+        ensureCapacity(size + source.size);
+        for (int i = 0; i < source.size; i++) {
+            Content c = source.elementData[i].clone();
+            appendCopy(c);
+            if (tracker != null) {
+                if (c instanceof Element) {
+                    setTracker((Element) c, tracker);
+                }
+                DocumentOrder.attached(tracker, parent, c);
+            }
+        }
+    }
+
+    /**
+     * Appends a copy to the list of a parent that is itself a copy under construction, skipping the checks and the
+     * index hooks of the add methods.  Callers presize the list with {@link #ensureCapacity(int)}.
+     *
+     * @param c the copy to append
+     */
+    void appendCopy(Content c) {
+        ensureCapacity(size + 1);
+        c.parent = parent;
+        indexAppended(c);
+        hintAppended(c);
+        elementData[size++] = c;
+        modCount++;
+    }
+
+    /**
+     * Makes this list read-only for freezing its parent: trims the backing array to the number of children and brings
+     * every child's index hint up to date, so that reads never write to the list or its children.
+     */
+    void freeze() {
+        if (elementData != null && elementData.length > size) {
+            Content[] trimmed = new Content[size];
+            System.arraycopy(elementData, 0, trimmed, 0, size);
+            elementData = trimmed;
+        }
+        for (int i = 0; i < size; i++) {
+            elementData[i].index = i;
+        }
+        hintedSize = size;
+        frozen = true;
+    }
+
+    /**
+     * Throws if the parent of this list is frozen.
+     *
+     * @throws UnsupportedOperationException if the parent is frozen
+     */
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The content of a frozen parent cannot be modified");
+        }
+    }
+
     /**
      * Increases the capacity of this <code>ContentList</code> instance, if necessary, to ensure that it can hold at
      * least the number of items specified by the minimum capacity argument.
@@ -370,6 +575,114 @@ final class ContentList
         return new FilterList<C>(filter);
     }
 
+    /**
+     * Return a view of this list holding the child elements with the given local name and <code>Namespace</code>. The
+     * view finds its positions through the name index.
+     *
+     * @param name      local name of the elements to view
+     * @param namespace <code>Namespace</code> of the elements to view, or null for any namespace
+     * @return a list of the matching elements
+     */
+    List<Element> getNamedView(String name, Namespace namespace) {
+        return new FilterList<Element>(new ElementFilter(name, namespace), name, namespace);
+    }
+
+    /**
+     * Return the first child element with the given local name and <code>Namespace</code>, using the name index.
+     *
+     * @param name      local name of the element
+     * @param namespace <code>Namespace</code> of the element, or null for any namespace
+     * @return the first matching element, or null if there is none
+     */
+    Element getChild(String name, Namespace namespace) {
+        NameIndexEntry entry = getNameIndexEntry(name, namespace);
+        return entry == null ? null : (Element) elementData[entry.positions[0]];
+    }
+
+    /**
+     * Called when a child element changes its name or namespace.  This does not count as a modification of this list,
+     * but it discards the name index and makes filtered views recompute their positions.
+     */
+    void childRenamed() {
+        nameIndex = null;
+        renameCount++;
+    }
+
+    /**
+     * Return the positions of the child elements with the given local name and namespace.
+     *
+     * @param name      local name of the elements
+     * @param namespace <code>Namespace</code> of the elements, or null for any namespace
+     * @return the positions, or null if no child element matches
+     */
+    private NameIndexEntry getNameIndexEntry(String name, Namespace namespace) {
+        NameIndexEntry entry = getNameIndex().get(name);
+        if (entry != null && namespace != null) {
+            entry = entry.inNamespace(namespace.getURI());
+        }
+        return entry;
+    }
+
+    /**
+     * Return the name index, rebuilding it if this list was modified since it was last used.
+     *
+     * @return the up to date name index
+     */
+    private Map<String, NameIndexEntry> getNameIndex() {
+        Map<String, NameIndexEntry> index = nameIndex;
+        if (index != null && nameIndexModCount == modCount) {
+            return index;
+        }
+
+        index = new HashMap<String, NameIndexEntry>();
+        for (int i = 0; i < size; i++) {
+            Content content = elementData[i];
+            if (content instanceof Element) {
+                addToNameIndex(index, (Element) content, i);
+            }
+        }
+        nameIndexModCount = modCount;
+        nameIndex = index;
+        return index;
+    }
+
+    private static void addToNameIndex(Map<String, NameIndexEntry> index, Element element, int position) {
+        String name = element.getName();
+        NameIndexEntry entry = index.get(name);
+        if (entry == null) {
+            entry = new NameIndexEntry();
+            index.put(name, entry);
+        }
+        entry.add(position, element.getNamespaceURI());
+    }
+
+    /**
+     * Record content about to be appended at the end of this list in the name index, so that a current index stays
+     * current across the append.  Must be called before modCount is incremented for the append.
+     *
+     * @param content the content being appended
+     */
+    private void indexAppended(Content content) {
+        if (nameIndex != null && nameIndexModCount == modCount) {
+            if (content instanceof Element) {
+                addToNameIndex(nameIndex, (Element) content, size);
+            }
+            nameIndexModCount = modCount + 1;
+        }
+    }
+
+    /**
+     * Records the position of a child about to be appended.
+     *
+     * @param content the child being appended at <code>size</code>
+     */
+    private void hintAppended(Content content) {
+        content.index = size;
+        if (hintedSize == size) {
+            hintedSize++;
+        }
+    }
+
     /**
      * Return the index of the first Element in the list.  If the parent is a <code>Document</code> then the element is
      * the root element. If the list contains no Elements, it returns -1.
@@ -415,17 +728,92 @@ final class ContentList
             throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size());
         }
 
+        checkNotFrozen();
         Content old = elementData[index];
+        old.checkNotFrozen();
         removeParent(old);
         int numMoved = size - index - 1;
         if (numMoved > 0) {
             System.arraycopy(elementData, index + 1, elementData, index, numMoved);
         }
         elementData[--size] = null; // Let gc do its work
+        hintedSize = Math.min(hintedSize, index);
         modCount++;
+        detached(old);
         return old;
     }
 
+    /**
+     * Removes the given child from this list.
+     *
+     * @param o the child to remove
+     * @return true if the child was in this list
+     */
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    /**
+     * Returns the position of the given child in this list.  The child's index hint is used when it is still correct,
+     * otherwise the hints are brought up to date from the first position that may have moved, so detaching children
+     * in order or walking siblings does not scan the whole list.
+     *
+     * @param o the child to look for
+     * @return the position of the child, or -1 if it is not in this list
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Content)) {
+            return -1;
+        }
+
+        Content child = (Content) o;
+        int hint = child.index;
+        if (hint >= 0 && hint < size && elementData[hint] == child) {
+            return hint;
+        }
+
+        // Hints below hintedSize are exact, so the child can only be further on
+        for (int i = hintedSize; i < size; i++) {
+            Content content = elementData[i];
+            content.index = i;
+            if (content == child) {
+                hintedSize = i + 1;
+                return i;
+            }
+        }
+        hintedSize = size;
+        return -1;
+    }
+
+    /**
+     * Returns the position of the given child in this list, which can hold it at most once.
+     *
+     * @param o the child to look for
+     * @return the position of the child, or -1 if it is not in this list
+     */
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    /**
+     * Returns whether the given child is in this list.
+     *
+     * @param o the child to look for
+     * @return true if the child is in this list
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
 
     /**
      * Remove the parent of a content type.
@@ -494,14 +882,76 @@ final class ContentList
     }
 
     /**
-     * Give access of ContentList.modCount to FilterList
+     * Give access of ContentList.modCount to FilterList and DescendantIterator
      *
-     * @return
+     * @return the number of structural modifications of this list
      */
-    private int getModCount() {
+    int getModCount() {
         return modCount;
     }
 
+    /**
+     * Positions of the child elements sharing a local name, in document order.  Names are nearly always used in a
+     * single namespace, so the positions in each namespace are only kept apart once a second one turns up.
+     */
+    private static final class NameIndexEntry {
+
+        int[] positions = new int[2];
+        int size;
+
+        /**
+         * The namespace URI of every element in this entry, while they all have the same one
+         */
+        String uri;
+
+        /**
+         * The positions in each namespace, once the elements are in more than one
+         */
+        Map<String, NameIndexEntry> byUri;
+
+        void add(int position, String elementUri) {
+            if (size == 0) {
+                uri = elementUri;
+            } else if (byUri == null && !uri.equals(elementUri)) {
+                NameIndexEntry same = new NameIndexEntry();
+                same.positions = new int[positions.length];
+                System.arraycopy(positions, 0, same.positions, 0, size);
+                same.size = size;
+                same.uri = uri;
+                byUri = new HashMap<String, NameIndexEntry>();
+                byUri.put(uri, same);
+                uri = null;
+            }
+            if (byUri != null) {
+                NameIndexEntry entry = byUri.get(elementUri);
+                if (entry == null) {
+                    entry = new NameIndexEntry();
+                    byUri.put(elementUri, entry);
+                }
+                entry.add(position, elementUri);
+            }
+            if (size == positions.length) {
+                int[] old = positions;
+                positions = new int[(size * 3) / 2 + 1];
+                System.arraycopy(old, 0, positions, 0, size);
+            }
+            positions[size++] = position;
+        }
+
+        /**
+         * Returns the positions of the elements of this entry in the given namespace.
+         *
+         * @param elementUri the namespace URI
+         * @return the positions, or null if no element of this entry is in that namespace
+         */
+        NameIndexEntry inNamespace(String elementUri) {
+            if (byUri == null) {
+                return elementUri.equals(uri) ? this : null;
+            }
+            return byUri.get(elementUri);
+        }
+    }
+
     /**
      * <code>FilterList</code> represents legal CoffeeDOM content, including content for <code>Document</code>s or
      * <code>Element</code>s.
@@ -516,6 +966,21 @@ final class ContentList
          */
         Filter filter;
 
+        /**
+         * Local name answered through the name index, or null if this view scans with its filter
+         */
+        private final String name;
+
+        /**
+         * Namespace answered through the name index, or null for any namespace
+         */
+        private final Namespace namespace;
+
+        /**
+         * Positions in the backing list of the items in this view
+         */
+        private transient int[] positions;
+
         /**
          * Current number of items in this view
          */
@@ -526,13 +991,18 @@ final class ContentList
          */
         int expected = -1;
 
+        /**
+         * Expected rename count in our backing list
+         */
+        private int expectedRenames = -1;
+
         // Implementation Note:
-        // Directly after size() is called, expected
-        // is sync'd with ContentList.modCount and count provides
-        // the true size of this view.  Before the first call to
-        // size() or if the backing list is modified outside this
-        // FilterList, both might contain bogus values and should
-        // not be used without first calling size();
+        // Directly after sync() is called, expected and
+        // expectedRenames are sync'd with the backing list, and
+        // positions and count describe the true contents of this
+        // view.  Changes made through this FilterList patch
+        // positions in place; changes made outside it leave the
+        // view stale until the next sync(), which rebuilds it.
 
         /**
          * Create a new instance of the FilterList with the specified Filter.
@@ -540,7 +1010,22 @@ final class ContentList
          * @param filter
          */
         FilterList(Filter filter) {
+            this(filter, null, null);
+        }
+
+        /**
+         * Create a new instance of the FilterList with the specified Filter, building its positions from the name
+         * index for the given local name and Namespace.  The filter must match exactly the elements with that name and
+         * Namespace.
+         *
+         * @param filter
+         * @param name
+         * @param namespace
+         */
+        FilterList(Filter filter, String name, Namespace namespace) {
             this.filter = filter;
+            this.name = name;
+            this.namespace = namespace;
         }
 
         /**
@@ -556,8 +1041,19 @@ final class ContentList
             if (filter.matches(content)) {
                 int adjusted = getAdjustedIndex(index);
                 ContentList.this.add(adjusted, content);
-                expected++;
-                count++;
+                if (isSynced(1)) {
+                    if (count == positions.length) {
+                        int[] old = positions;
+                        positions = new int[(count * 3) / 2 + 1];
+                        System.arraycopy(old, 0, positions, 0, count);
+                    }
+                    for (int i = count; i > index; i--) {
+                        positions[i] = positions[i - 1] + 1;
+                    }
+                    positions[index] = adjusted;
+                    count++;
+                    expected = ContentList.this.getModCount();
+                }
             } else {
                 throw new IllegalAddException(
                         "Filter won't allow the " + content.getClass().getName() + " '" + content +
@@ -580,17 +1076,17 @@ final class ContentList
 
         @Override
         public Iterator<C> iterator() {
-            return new FilterListIterator<C>(filter, 0);
+            return new FilterListIterator<C>(this, 0);
         }
 
         @Override
         public ListIterator<C> listIterator() {
-            return new FilterListIterator<C>(filter, 0);
+            return new FilterListIterator<C>(this, 0);
         }
 
         @Override
         public ListIterator<C> listIterator(int index) {
-            return new FilterListIterator<C>(filter, index);
+            return new FilterListIterator<C>(this, index);
         }
 
         /**
@@ -606,8 +1102,13 @@ final class ContentList
             Content oldContent = ContentList.this.get(adjusted);
             if (filter.matches(oldContent)) {
                 oldContent = ContentList.this.remove(adjusted);
-                expected++;
-                count--;
+                if (isSynced(1)) {
+                    for (int i = index; i < count - 1; i++) {
+                        positions[i] = positions[i + 1] - 1;
+                    }
+                    count--;
+                    expected = ContentList.this.getModCount();
+                }
             } else {
                 throw new IllegalAddException(
                         "Filter won't allow the " + (oldContent.getClass()).getName() + " '" + oldContent +
@@ -636,7 +1137,10 @@ final class ContentList
                                     "' (index " + index + ") to be removed");
                 }
                 oldContent = ContentList.this.set(adjusted, content);
-                expected += 2;
+                // ContentList.set() is a remove followed by an add at the same position
+                if (isSynced(2)) {
+                    expected = ContentList.this.getModCount();
+                }
             } else {
                 throw new IllegalAddException(
                         "Filter won't allow index " + index + " to be set to " + (content.getClass()).getName());
@@ -651,26 +1155,7 @@ final class ContentList
          */
         @Override
         public int size() {
-            // Implementation Note:
-            // Directly after size() is called, expected
-            // is sync'd with ContentList.modCount and count provides
-            // the true size of this view.  Before the first call to
-            // size() or if the backing list is modified outside this
-            // FilterList, both might contain bogus values and should
-            // not be used without first calling size();
-
-            if (expected == ContentList.this.getModCount()) {
-                return count;
-            }
-
-            count = 0;
-            for (int i = 0; i < ContentList.this.size(); i++) {
-                Object obj = ContentList.this.elementData[i];
-                if (filter.matches(obj)) {
-                    count++;
-                }
-            }
-            expected = ContentList.this.getModCount();
+            sync();
             return count;
         }
 
@@ -681,23 +1166,61 @@ final class ContentList
          * @return True index in backing list
          */
         private int getAdjustedIndex(int index) {
-            int adjusted = 0;
-            for (int i = 0; i < ContentList.this.size; i++) {
-                Object obj = ContentList.this.elementData[i];
-                if (filter.matches(obj)) {
-                    if (index == adjusted) {
-                        return i;
-                    }
-                    adjusted++;
-                }
+            sync();
+            if (index >= 0 && index < count) {
+                return positions[index];
             }
 
-            if (index == adjusted) {
+            if (index == count) {
                 return ContentList.this.size;
             }
 
             return ContentList.this.size + 1;
         }
+
+        /**
+         * Returns whether the positions were current just before the backing list was modified the given number of
+         * times by this view.
+         *
+         * @param modifications number of modifications made since the last sync
+         * @return true if the positions can be patched in place
+         */
+        private boolean isSynced(int modifications) {
+            return positions != null && expected == ContentList.this.getModCount() - modifications &&
+                    expectedRenames == ContentList.this.renameCount;
+        }
+
+        /**
+         * Rebuild the positions if the backing list was modified outside this view.
+         */
+        private void sync() {
+            int modCount = ContentList.this.getModCount();
+            if (positions != null && expected == modCount && expectedRenames == ContentList.this.renameCount) {
+                return;
+            }
+
+            count = 0;
+            if (name != null) {
+                NameIndexEntry entry = ContentList.this.getNameIndexEntry(name, namespace);
+                if (entry == null) {
+                    positions = new int[0];
+                } else {
+                    positions = new int[entry.size];
+                    System.arraycopy(entry.positions, 0, positions, 0, entry.size);
+                    count = entry.size;
+                }
+            } else {
+                positions = new int[ContentList.this.size];
+                for (int i = 0; i < ContentList.this.size; i++) {
+                    Object obj = ContentList.this.elementData[i];
+                    if (filter.matches(obj)) {
+                        positions[count++] = i;
+                    }
+                }
+            }
+            expected = modCount;
+            expectedRenames = ContentList.this.renameCount;
+        }
     }
 
     // TODO The C type parameter is kind of sketchy, but since it's a private API, we can leave it for now.
@@ -752,11 +1275,11 @@ final class ContentList
         /**
          * Default constructor
          *
-         * @param filter
+         * @param list
          * @param start
          */
-        FilterListIterator(Filter filter, int start) {
-            this.filter = filter;
+        FilterListIterator(FilterList<C> list, int start) {
+            this.filter = list.filter;
             expected = ContentList.this.getModCount();
             // Always start list iterators in backward mode.
             // It makes sense... really.
@@ -767,37 +1290,23 @@ final class ContentList
             }
 
             // The number of matching elements.
-            filterSize = 0;
-
-            // Go through the list, count the matching elements.
-            for (int i = 0; i < ContentList.this.size(); i++) {
-                if (filter.matches(ContentList.this.get(i))) {
-                    if (start == filterSize) {
-                        // set the back-end cursor to the matching element....
-                        cursor = i;
-                        // set the front-end cursor too.
-                        index = filterSize;
-                    }
-                    filterSize++;
-                }
-            }
+            filterSize = list.size();
 
             if (start > filterSize) {
                 throw new IndexOutOfBoundsException("Index: " + start + " Size: " + filterSize);
             }
-            if (cursor == -1) {
-                // Implies that start == filterSize (i.e. after the last element
-                // put the insertion point at the end of the Underlying
-                // content list ....
-                // i.e. an add() at this point may potentially end up with
-                // filtered content between previous() and next()
-                // the alternative is to put the cursor on the Content after
-                // the last Content that the filter passed
-                // The implications are ambiguous.
-                cursor = ContentList.this.size();
-                index = filterSize;
-            }
 
+            // Set the back-end cursor to the matching element, or if start == filterSize
+            // (i.e. after the last element) put the insertion point at the end of the
+            // underlying content list....
+            // i.e. an add() at this point may potentially end up with
+            // filtered content between previous() and next()
+            // the alternative is to put the cursor on the Content after
+            // the last Content that the filter passed
+            // The implications are ambiguous.
+            cursor = list.getAdjustedIndex(start);
+            // set the front-end cursor too.
+            index = start;
         }
 
         /**
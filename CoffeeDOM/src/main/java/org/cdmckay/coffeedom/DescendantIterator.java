@@ -54,13 +54,16 @@
 
 package org.cdmckay.coffeedom;
 
-import java.util.ArrayList;
+import org.cdmckay.coffeedom.filter.Filter;
+
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
- * Traverse all a parent's descendants (all children at any level below the parent).
+ * Traverse all a parent's descendants (all children at any level below the parent).  The traversal keeps a stack of
+ * positions in the <code>ContentList</code>s above the current child, so each step costs amortized constant time
+ * whatever the depth of the tree, and no iterator is allocated per element.
  *
  * @author Bradley S. Huffman
  * @author Jason Hunter
@@ -69,11 +72,40 @@ import java.util.NoSuchElementException;
 class DescendantIterator
         implements Iterator<Content> {
 
-    private Iterator<Content> iterator;
-    private Iterator<Content> nextIterator;
+    private static final int INITIAL_DEPTH = 16;
+
+    /**
+     * Elements whose children are visited, or null to visit the children of every element
+     */
+    private final Filter descend;
+
+    /**
+     * The list being walked, the position of the next child in it and its expected modCount.  The list is null once
+     * the iteration is over.
+     */
+    private ContentList list;
+    private int index;
+    private int expectedModCount;
 
-    // TODO Replace this with Java Stack type?
-    private List<Iterator<Content>> stack = new ArrayList<Iterator<Content>>();
+    /**
+     * The same state for the lists above the current one
+     */
+    private ContentList[] lists = new ContentList[INITIAL_DEPTH];
+    private int[] indexes = new int[INITIAL_DEPTH];
+    private int[] modCounts = new int[INITIAL_DEPTH];
+    private int depth;
+
+    /**
+     * Children of the last element returned, entered on the following step.  We do the shuffle then rather than in
+     * next() so remove() is easy to code up.
+     */
+    private ContentList children;
+
+    /**
+     * The list and position of the last content returned, for remove()
+     */
+    private ContentList lastList;
+    private int lastIndex = -1;
 
     /**
      * Iterator for the descendants of the supplied object.
@@ -81,10 +113,29 @@ class DescendantIterator
      * @param parent document or element whose descendants will be iterated
      */
     DescendantIterator(Parent parent) {
+        this(parent, null);
+    }
+
+    /**
+     * Iterator for the descendants of the supplied object, visiting only the children of elements that match the
+     * descend filter.
+     *
+     * @param parent  document or element whose descendants will be iterated
+     * @param descend filter selecting the elements whose children are visited, or null for all elements
+     */
+    DescendantIterator(Parent parent, Filter descend) {
         if (parent == null) {
             throw new IllegalArgumentException("parent parameter was null");
         }
-        this.iterator = parent.getContents().iterator();
+        this.descend = descend;
+        if (parent instanceof Element) {
+            list = ((Element) parent).peekContents();
+        } else {
+            list = ((Document) parent).contents;
+        }
+        if (list != null) {
+            expectedModCount = list.getModCount();
+        }
     }
 
     /**
@@ -93,16 +144,24 @@ class DescendantIterator
      * @return true is the iterator has more descendants
      */
     public boolean hasNext() {
-        if (iterator != null && iterator.hasNext()) {
-            return true;
-        }
-        if (nextIterator != null && nextIterator.hasNext()) {
-            return true;
+        if (children != null) {
+            if (children.size() > 0) {
+                push();
+                list = children;
+                index = 0;
+                expectedModCount = children.getModCount();
+            }
+            children = null;
         }
-        if (stackHasAnyNext()) {
-            return true;
+
+        // If this list is finished, move up the stack
+        while (list != null && index >= list.size()) {
+            if (list.getModCount() != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            pop();
         }
-        return false;
+        return list != null;
     }
 
     /**
@@ -114,28 +173,18 @@ class DescendantIterator
         if (!hasNext()) {
             throw new NoSuchElementException();
         }
-
-        // If we need to descend, go for it and record where we are.
-        // We do the shuffle here on the next next() call so remove() is easy
-        // to code up.
-        if (nextIterator != null) {
-            push(iterator);
-            iterator = nextIterator;
-            nextIterator = null;
+        if (list.getModCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
         }
 
-        // If this iterator is finished, try moving up the stack
-        while (!iterator.hasNext()) {
-            if (stack.size() > 0) {
-                iterator = pop();
-            } else {
-                throw new NoSuchElementException("Somehow we lost our iterator");
-            }
-        }
-
-        Content child = iterator.next();
+        Content child = list.get(index);
+        lastList = list;
+        lastIndex = index++;
         if (child instanceof Element) {
-            nextIterator = ((Element) child).getContents().iterator();
+            ContentList contents = ((Element) child).peekContents();
+            if (contents != null && (descend == null || descend.matches(child))) {
+                children = contents;
+            }
         }
         return child;
     }
@@ -146,27 +195,63 @@ class DescendantIterator
      * node (in document order) will be visited.
      */
     public void remove() {
-        iterator.remove();
+        if (lastList == null) {
+            throw new IllegalStateException();
+        }
+        if (lastList.getModCount() != modCountOf(lastList)) {
+            throw new ConcurrentModificationException();
+        }
+        lastList.remove(lastIndex);
+
+        // The list is either the current one or, if the removed element's children were entered, the one above it
+        if (list == lastList) {
+            index--;
+            expectedModCount = lastList.getModCount();
+        } else if (depth > 0 && lists[depth - 1] == lastList) {
+            indexes[depth - 1]--;
+            modCounts[depth - 1] = lastList.getModCount();
+        }
+        lastList = null;
     }
 
-    private Iterator<Content> pop() {
-        int stackSize = stack.size();
-        if (stackSize == 0) {
-            throw new NoSuchElementException("empty stack");
+    private int modCountOf(ContentList contents) {
+        if (list == contents) {
+            return expectedModCount;
+        }
+        if (depth > 0 && lists[depth - 1] == contents) {
+            return modCounts[depth - 1];
         }
-        return stack.remove(stackSize - 1);
+        // The list has been walked to its end, so removing from it cannot disturb the iteration
+        return contents.getModCount();
     }
 
-    private void push(Iterator<Content> it) {
-        stack.add(it);
+    private void push() {
+        if (depth == lists.length) {
+            ContentList[] newLists = new ContentList[depth * 2];
+            System.arraycopy(lists, 0, newLists, 0, depth);
+            lists = newLists;
+            int[] newIndexes = new int[depth * 2];
+            System.arraycopy(indexes, 0, newIndexes, 0, depth);
+            indexes = newIndexes;
+            int[] newModCounts = new int[depth * 2];
+            System.arraycopy(modCounts, 0, newModCounts, 0, depth);
+            modCounts = newModCounts;
+        }
+        lists[depth] = list;
+        indexes[depth] = index;
+        modCounts[depth] = expectedModCount;
+        depth++;
     }
 
-    private boolean stackHasAnyNext() {
-        for (Iterator<Content> it : stack) {
-            if (it.hasNext()) {
-                return true;
-            }
+    private void pop() {
+        if (depth == 0) {
+            list = null;
+            return;
         }
-        return false;
+        depth--;
+        list = lists[depth];
+        index = indexes[depth];
+        expectedModCount = modCounts[depth];
+        lists[depth] = null;
     }
 }
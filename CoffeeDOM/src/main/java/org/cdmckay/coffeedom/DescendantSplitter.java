@@ -0,0 +1,215 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Divides a parent's descendants into consecutive runs of whole subtrees, so that several threads can walk disjoint
+ * parts of a tree that is not being modified.  Each run is a range of siblings, preceded by the ancestors the split
+ * passed through, and is walked in document order.  The run with the largest estimated size is split first, halving
+ * its range of siblings or, when it holds a single element, moving down into that element's children.
+ *
+ * @author Cameron McKay
+ */
+final class DescendantSplitter {
+
+    /**
+     * Ensure instantiation cannot occur.
+     */
+    private DescendantSplitter() {
+    }
+
+    /**
+     * Splits the descendants of the parent into at most the given number of runs.
+     *
+     * @param parent document or element whose descendants will be split
+     * @param count  maximum number of runs
+     * @return the runs, in document order
+     */
+    static List<Iterable<Content>> split(Parent parent, int count) {
+        if (parent == null) {
+            throw new IllegalArgumentException("parent parameter was null");
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+
+        ContentList contents = contentsOf(parent);
+        if (contents == null || contents.size() == 0) {
+            return Collections.emptyList();
+        }
+        List<Run> runs = new ArrayList<Run>(count);
+        runs.add(new Run(Collections.<Content>emptyList(), contents, 0, contents.size()));
+
+        while (runs.size() < count) {
+            int largest = -1;
+            for (int i = 0; i < runs.size(); i++) {
+                Run run = runs.get(i);
+                if (run.isSplittable() && (largest < 0 || run.estimatedSize > runs.get(largest).estimatedSize)) {
+                    largest = i;
+                }
+            }
+            if (largest < 0) {
+                break;
+            }
+            Run run = runs.get(largest);
+            int middle = (run.from + run.to) >>> 1;
+            runs.set(largest, new Run(run.ancestors, run.list, run.from, middle));
+            runs.add(largest + 1, new Run(Collections.<Content>emptyList(), run.list, middle, run.to));
+        }
+        return new ArrayList<Iterable<Content>>(runs);
+    }
+
+    private static ContentList contentsOf(Parent parent) {
+        if (parent instanceof Element) {
+            return ((Element) parent).peekContents();
+        }
+        return ((Document) parent).contents;
+    }
+
+    /**
+     * Ancestors returned on their own, then a range of siblings each followed by its descendants.
+     */
+    private static final class Run
+            implements Iterable<Content> {
+
+        private final List<Content> ancestors;
+        private final ContentList list;
+        private final int from;
+        private final int to;
+        private final int estimatedSize;
+
+        Run(List<Content> ancestors, ContentList list, int from, int to) {
+            // A single element cannot be split, so move down into its children
+            while (to - from == 1 && list.get(from) instanceof Element) {
+                ContentList children = ((Element) list.get(from)).peekContents();
+                if (children == null || children.size() == 0) {
+                    break;
+                }
+                List<Content> path = new ArrayList<Content>(ancestors.size() + 1);
+                path.addAll(ancestors);
+                path.add(list.get(from));
+                ancestors = path;
+                list = children;
+                from = 0;
+                to = children.size();
+            }
+            this.ancestors = ancestors;
+            this.list = list;
+            this.from = from;
+            this.to = to;
+
+            // Count the siblings and their children, which is cheap and tracks the size of the subtrees well enough
+            int size = ancestors.size() + to - from;
+            for (int i = from; i < to; i++) {
+                Content child = list.get(i);
+                if (child instanceof Element) {
+                    size += ((Element) child).getContentsSize();
+                }
+            }
+            this.estimatedSize = size;
+        }
+
+        boolean isSplittable() {
+            return to - from > 1;
+        }
+
+        public Iterator<Content> iterator() {
+            return new RunIterator(this);
+        }
+    }
+
+    private static final class RunIterator
+            implements Iterator<Content> {
+
+        private final Run run;
+        private int ancestor;
+        private int sibling;
+        private DescendantIterator descendants;
+
+        RunIterator(Run run) {
+            this.run = run;
+            this.sibling = run.from;
+        }
+
+        public boolean hasNext() {
+            return ancestor < run.ancestors.size() || (descendants != null && descendants.hasNext()) ||
+                    sibling < run.to;
+        }
+
+        public Content next() {
+            if (ancestor < run.ancestors.size()) {
+                return run.ancestors.get(ancestor++);
+            }
+            if (descendants != null && descendants.hasNext()) {
+                return descendants.next();
+            }
+            if (sibling >= run.to) {
+                throw new NoSuchElementException();
+            }
+            Content child = run.list.get(sibling++);
+            descendants = child instanceof Element ? new DescendantIterator((Element) child) : null;
+            return child;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("runs of descendants are read-only");
+        }
+    }
+}
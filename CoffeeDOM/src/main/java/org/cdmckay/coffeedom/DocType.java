@@ -152,6 +152,7 @@ public class DocType
     public DocType setElementName(String elementName) {
         // This can contain a colon so we use checkXMLName()
         // instead of checkElementName()
+        checkNotFrozen();
         String reason = Verifier.checkXMLName(elementName);
         if (reason != null) {
             throw new IllegalNameException(elementName, "DocType", reason);
@@ -178,6 +179,7 @@ public class DocType
      * @throws IllegalDataException if the given public ID is not a legal public ID.
      */
     public DocType setPublicID(String publicID) {
+        checkNotFrozen();
         String reason = Verifier.checkPublicID(publicID);
         if (reason != null) {
             throw new IllegalDataException(publicID, "DocType", reason);
@@ -205,6 +207,7 @@ public class DocType
      * @throws IllegalDataException if the given system ID is not a legal system literal.
      */
     public DocType setSystemID(String systemID) {
+        checkNotFrozen();
         String reason = Verifier.checkSystemLiteral(systemID);
         if (reason != null) {
             throw new IllegalDataException(systemID, "DocType", reason);
@@ -229,6 +232,7 @@ public class DocType
      * @param newData data for the internal subset, as a <code>String</code>.
      */
     public void setInternalSubset(String newData) {
+        checkNotFrozen();
         internalSubset = newData;
     }
 
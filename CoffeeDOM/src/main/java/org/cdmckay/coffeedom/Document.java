@@ -54,6 +54,7 @@
 
 package org.cdmckay.coffeedom;
 
+import org.cdmckay.coffeedom.filter.ElementFilter;
 import org.cdmckay.coffeedom.filter.Filter;
 
 import java.util.*;
@@ -83,7 +84,27 @@ public class Document
     protected String baseURI;
 
     // Supports the setProperty/getProperty calls
-    private Map<String, Object> propertyMap;
+    Map<String, Object> propertyMap;
+
+    /**
+     * Index of this document's elements by name, or null if the index is off.
+     */
+    transient ElementIndex elementIndex;
+
+    /**
+     * Index of this document's elements by ID, or null until an ID is first attached or looked up.
+     */
+    transient volatile IdIndex idIndex;
+
+    /**
+     * This document's document-order keys, or null if they are off.
+     */
+    transient DocumentOrder documentOrder;
+
+    /**
+     * Whether this document is frozen; written last when freezing, so that seeing it set publishes the whole tree.
+     */
+    private transient volatile boolean frozen;
 
     /**
      * Creates a new empty document.  A document must have a root element, so this document will not be well-formed and
@@ -440,6 +461,7 @@ public class Document
      * @param uri the base URI of this document
      */
     public final void setBaseURI(String uri) {
+        checkNotFrozen();
         this.baseURI = uri;  // XXX We don't check the URI
     }
 
@@ -572,7 +594,9 @@ public class Document
     }
 
     /**
-     * This will return a deep clone of this <code>Document</code>.
+     * This will return a deep clone of this <code>Document</code>.  The elements of a {@link #freeze() frozen}
+     * document are cloned lazily, as described in {@link Element#clone()}, unless the element index is on, in which
+     * case indexing the clone copies it all.
      *
      * @return <code>Object</code> clone of this <code>Document</code>
      */
@@ -588,6 +612,10 @@ public class Document
         // The clone has a reference to this object's content list, so
         // overwrite with a empty list
         doc.contents = new ContentList(doc);
+        doc.elementIndex = null;
+        doc.idIndex = null;
+        doc.documentOrder = null;
+        doc.frozen = false;
 
         // Add the cloned content to clone
 
@@ -607,6 +635,8 @@ public class Document
                 doc.contents.add(dt);
             }
         }
+        doc.setElementIndexEnabled(isElementIndexEnabled());
+        doc.setDocumentOrderKeysEnabled(isDocumentOrderKeysEnabled());
 
         return doc;
     }
@@ -641,6 +671,292 @@ public class Document
         };
     }
 
+    /**
+     * Returns an iterator that walks over descendants in document order, only descending into the elements that match
+     * the <code>descend</code> filter and returning only the descendants that match the <code>emit</code> filter.  An
+     * element that does not match <code>descend</code> may still be returned, but none of its descendants are visited,
+     * so whole subtrees can be skipped without being walked.
+     *
+     * @param descend filter to select the elements whose children are visited
+     * @param emit    filter to select which descendants to see
+     * @return an iterator to walk the selected descendants
+     */
+    public Iterable<Content> getDescendants(final Filter descend, final Filter emit) {
+        if (descend == null) {
+            throw new IllegalArgumentException("descend filter cannot be null");
+        }
+        if (emit == null) {
+            throw new IllegalArgumentException("emit filter cannot be null");
+        }
+        return new Iterable<Content>() {
+            public Iterator<Content> iterator() {
+                Iterator<Content> iterator = new DescendantIterator(Document.this, descend);
+                return new FilterIterator(iterator, emit);
+            }
+        };
+    }
+
+    /**
+     * Splits the descendants into at most <code>count</code> runs of whole subtrees that together return every
+     * descendant once, so that separate threads can walk disjoint parts of the tree at the same time.  The runs are in
+     * document order and each is walked in document order; they are balanced using the sizes of the content lists
+     * near the top of the tree.  The tree must not be modified while the runs are walked.
+     *
+     * @param count maximum number of runs, usually a small multiple of the number of threads
+     * @return the runs of descendants, in document order
+     * @throws IllegalArgumentException if <code>count</code> is not positive
+     */
+    public List<Iterable<Content>> splitDescendants(int count) {
+        return DescendantSplitter.split(this, count);
+    }
+
+    /**
+     * Turns the document-wide element index on or off.  While it is on, every change to the document's content and
+     * every rename of its elements also updates the index, so that {@link #getElementsByName(String, Namespace)} does
+     * not have to walk the document.  Turning it on indexes the whole document once; turning it off releases the
+     * index.  The index is not serialized, and a clone has its index on if this document does.
+     *
+     * @param enabled true to keep an index of the elements by name
+     */
+    public void setElementIndexEnabled(boolean enabled) {
+        checkNotFrozen();
+        if (enabled && elementIndex == null) {
+            elementIndex = new ElementIndex(this);
+            updateTracker();
+        } else if (!enabled && elementIndex != null) {
+            elementIndex = null;
+            updateTracker();
+        }
+    }
+
+    /**
+     * Points every content list of this document at the document while it keeps an element index, an ID index or
+     * document-order keys, and at nothing once it keeps none, so that only the lists of such a document report their
+     * changes to it.
+     */
+    private void updateTracker() {
+        Document tracker = elementIndex != null || idIndex != null || documentOrder != null ? this : null;
+        if (contents.tracker != tracker) {
+            contents.tracker = tracker;
+            for (int i = 0; i < contents.size(); i++) {
+                Content content = contents.get(i);
+                if (content instanceof Element) {
+                    ContentList.setTracker((Element) content, tracker);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the document-wide element index is on.
+     *
+     * @return true if the elements are indexed by name
+     * @see #setElementIndexEnabled(boolean)
+     */
+    public boolean isElementIndexEnabled() {
+        return elementIndex != null;
+    }
+
+    /**
+     * Returns the number of elements in the document-wide element index, which is the number of elements in the
+     * document while the index is on.
+     *
+     * @return the number of indexed elements, or 0 if the index is off
+     */
+    public int getElementIndexSize() {
+        return elementIndex == null ? 0 : elementIndex.size();
+    }
+
+    /**
+     * Returns the elements anywhere in this document with the given local name and no namespace, in document order.
+     *
+     * @param name local name of the elements to return
+     * @return an unmodifiable list of the matching elements
+     * @see #getElementsByName(String, Namespace)
+     */
+    public List<Element> getElementsByName(String name) {
+        return getElementsByName(name, Namespace.NO_NAMESPACE);
+    }
+
+    /**
+     * Returns the elements anywhere in this document with the given local name and namespace, in document order.  The
+     * elements are looked up in the element index if it is on, otherwise the whole document is walked.  The returned
+     * list does not change when the document does.
+     *
+     * @param name      local name of the elements to return
+     * @param namespace namespace of the elements to return
+     * @return an unmodifiable list of the matching elements
+     * @see #setElementIndexEnabled(boolean)
+     */
+    public List<Element> getElementsByName(String name, Namespace namespace) {
+        if (name == null) {
+            throw new IllegalArgumentException("name cannot be null");
+        }
+        if (namespace == null) {
+            namespace = Namespace.NO_NAMESPACE;
+        }
+        if (elementIndex != null) {
+            return elementIndex.get(name, namespace.getURI());
+        }
+
+        List<Element> elements = new ArrayList<Element>();
+        for (Content content : getDescendants(new ElementFilter(name, namespace))) {
+            elements.add((Element) content);
+        }
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Returns the element whose attribute of type {@link Attribute.Type#ID} has the given value.  Documents built by
+     * {@link org.cdmckay.coffeedom.input.SAXBuilder} from a DTD that declares IDs are indexed as they are built, and
+     * any other document is indexed on its first lookup; after that the index follows every change to the document,
+     * so each lookup takes constant time.  If several elements have the same ID, which of them is returned is
+     * unspecified.
+     *
+     * @param id the ID to look for
+     * @return the element with that ID, or null if there is none
+     */
+    public Element getElementById(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("id cannot be null");
+        }
+        IdIndex index = idIndex;
+        if (index == null) {
+            index = getIdIndex();
+        }
+        return index.get(id);
+    }
+
+    /**
+     * Returns the ID index, creating it from the current content if this document has none yet.
+     *
+     * @return the ID index
+     */
+    synchronized IdIndex getIdIndex() {
+        if (idIndex == null) {
+            idIndex = new IdIndex(this);
+            if (!frozen) {
+                updateTracker();
+            }
+        }
+        return idIndex;
+    }
+
+    /**
+     * Turns document-order keys on or off.  While they are on, each content of this document carries a sparse key
+     * that grows in document order, so {@link #compareDocumentOrder(Content, Content)} compares two numbers instead of
+     * walking up the tree.  Content attached where its neighbours leave room gets keys at once; otherwise the whole
+     * document is renumbered before the next comparison.  Turning the keys off makes comparisons walk the tree again.
+     *
+     * @param enabled true to keep document-order keys
+     */
+    public void setDocumentOrderKeysEnabled(boolean enabled) {
+        checkNotFrozen();
+        if (enabled && documentOrder == null) {
+            documentOrder = new DocumentOrder(this);
+            updateTracker();
+        } else if (!enabled && documentOrder != null) {
+            documentOrder = null;
+            updateTracker();
+        }
+    }
+
+    /**
+     * Returns whether document-order keys are on.
+     *
+     * @return true if this document keeps document-order keys
+     * @see #setDocumentOrderKeysEnabled(boolean)
+     */
+    public boolean isDocumentOrderKeysEnabled() {
+        return documentOrder != null;
+    }
+
+    /**
+     * Compares the positions of two contents of this document.  With document-order keys on this takes constant time,
+     * including the check that both contents belong to this document, apart from an occasional renumbering after the
+     * document changed.  With the keys off their paths from the root are compared.
+     *
+     * @param a the first content
+     * @param b the second content
+     * @return a negative number, zero or a positive number as <code>a</code> comes before, is, or comes after
+     *         <code>b</code>
+     * @throws IllegalArgumentException if either content is not in this document
+     * @see #setDocumentOrderKeysEnabled(boolean)
+     */
+    public int compareDocumentOrder(Content a, Content b) {
+        if (documentOrder != null) {
+            // While the keys are on, the lists of this document and only those point at it
+            if (ContentList.trackerOf(a.parent) != this || ContentList.trackerOf(b.parent) != this) {
+                throw new IllegalArgumentException("The contents are not in this document");
+            }
+            return documentOrder.compare(a, b);
+        }
+        if (a.getDocument() != this || b.getDocument() != this) {
+            throw new IllegalArgumentException("The contents are not in this document");
+        }
+        return DocumentOrder.compareByPath(a, b);
+    }
+
+    /**
+     * Freezes this document.  Afterwards every method that would modify it or any of its content throws an {@link
+     * UnsupportedOperationException}, and the document can be read by any number of threads without locking once it
+     * has been safely published to them, for example through a final or volatile field or by checking {@link
+     * #isFrozen()}.  Freezing compacts the content and attribute lists, precomputes the values, list positions and
+     * in-scope namespaces that would otherwise be computed lazily on a read, and brings the element index, the ID
+     * index and the document-order keys up to date so that they are read without locking too.  A clone of a frozen
+     * document is not frozen.
+     *
+     * @return this document
+     */
+    public Document freeze() {
+        if (frozen) {
+            return this;
+        }
+        contents.freeze();
+        for (Content content : getDescendants()) {
+            content.prepareFreeze();
+        }
+        if (elementIndex != null) {
+            elementIndex.freeze();
+        }
+        if (idIndex != null) {
+            idIndex.freeze();
+        }
+        if (documentOrder != null) {
+            documentOrder.freeze();
+        }
+        for (Content content : getDescendants()) {
+            content.markFrozen();
+        }
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Returns whether this document has been frozen.
+     *
+     * @return true if this document is frozen
+     * @see #freeze()
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("A frozen document cannot be modified");
+        }
+    }
+
+    /**
+     * Serializes this document as a flat stream of nodes, written without recursion; see {@link SerialTree}.
+     *
+     * @return the object to serialize in place of this document
+     */
+    private Object writeReplace() {
+        return SerialTree.replace(this);
+    }
+
     public Parent getParent() {
         return null;  // documents never have parents
     }
@@ -660,6 +976,7 @@ public class Document
      * @param value the object to store
      */
     public void setProperty(String id, Object value) {
+        checkNotFrozen();
         if (propertyMap == null) {
             propertyMap = new HashMap<String, Object>();
         }
@@ -0,0 +1,282 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom;
+
+/**
+ * Sparse document-order keys for the content of a {@link Document}.  Keys are handed out in steps of {@link #GAP}, so
+ * content attached later usually fits between its neighbours and gets keys of its own at once; when it does not fit,
+ * the keys are marked out of date and the whole document is renumbered before the next comparison.  While the keys
+ * are up to date, comparing the positions of two contents of the document compares two longs.
+ *
+ * @author Cameron McKay
+ */
+final class DocumentOrder {
+
+    /**
+     * Distance between the keys of consecutive contents after the document is numbered.
+     */
+    static final long GAP = 1L << 16;
+
+    private final Document document;
+
+    /**
+     * Whether every content of the document has an up to date key.
+     */
+    private boolean numbered;
+
+    /**
+     * Set once the document is frozen, after which the keys never change and are compared without locking.
+     */
+    private boolean frozen;
+
+    /**
+     * Creates the keys of a document; they are computed on the first comparison.
+     *
+     * @param document the document to number
+     */
+    DocumentOrder(Document document) {
+        this.document = document;
+    }
+
+    /**
+     * Called by a content list of a tracking document after it gained the given child.
+     *
+     * @param tracker the document tracking the content list
+     * @param parent  the parent of the content list
+     * @param child   the child that was added
+     */
+    static void attached(Document tracker, Parent parent, Content child) {
+        if (tracker.documentOrder != null) {
+            tracker.documentOrder.insert(parent, child);
+        }
+    }
+
+    /**
+     * Compares the positions of two contents of the document.
+     *
+     * @param a the first content
+     * @param b the second content
+     * @return a negative number, zero or a positive number as <code>a</code> comes before, is, or comes after
+     *         <code>b</code>
+     */
+    int compare(Content a, Content b) {
+        if (!frozen) {
+            synchronized (this) {
+                if (!numbered) {
+                    number();
+                }
+            }
+        }
+        return a.order < b.order ? -1 : (a.order == b.order ? 0 : 1);
+    }
+
+    /**
+     * Brings the keys up to date for good, as the document is being frozen.
+     */
+    synchronized void freeze() {
+        if (!numbered) {
+            number();
+        }
+        frozen = true;
+    }
+
+    private void number() {
+        long key = 0;
+        for (Content content : document.getDescendants()) {
+            key += GAP;
+            content.order = key;
+        }
+        numbered = true;
+    }
+
+    /**
+     * Gives a newly attached child and its descendants keys between those of the contents around it, or marks the
+     * keys out of date if there is no room.  Detached contents need nothing: the keys left behind stay in order.
+     *
+     * @param parent the parent of the child
+     * @param child  the attached child
+     */
+    private synchronized void insert(Parent parent, Content child) {
+        if (!numbered) {
+            return;
+        }
+
+        int index = parent.indexOf(child);
+        long before = keyBefore(parent, index);
+        long after = keyAfter(parent, index);
+        int count = 1;
+        if (child instanceof Element) {
+            for (Content ignored : ((Element) child).getDescendants()) {
+                count++;
+            }
+        }
+
+        long step = after < 0 ? GAP : (after - before) / (count + 1);
+        if (step < 1) {
+            numbered = false;
+            return;
+        }
+        long key = before + step;
+        child.order = key;
+        if (child instanceof Element) {
+            for (Content content : ((Element) child).getDescendants()) {
+                key += step;
+                content.order = key;
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the content just before the child at the given index, in document order.
+     */
+    private static long keyBefore(Parent parent, int index) {
+        if (index == 0) {
+            return parent instanceof Content ? ((Content) parent).order : 0;
+        }
+        Content previous = parent.getContent(index - 1);
+        while (previous instanceof Element && ((Element) previous).getContentsSize() > 0) {
+            Element element = (Element) previous;
+            previous = element.getContent(element.getContentsSize() - 1);
+        }
+        return previous.order;
+    }
+
+    /**
+     * Returns the key of the first content after the subtree of the child at the given index, or -1 if the subtree
+     * ends the document.
+     */
+    private static long keyAfter(Parent parent, int index) {
+        if (index + 1 < parent.getContentsSize()) {
+            return parent.getContent(index + 1).order;
+        }
+        while (parent instanceof Element) {
+            Element element = (Element) parent;
+            parent = element.getParent();
+            if (parent == null) {
+                break;
+            }
+            int position = parent.indexOf(element);
+            if (position + 1 < parent.getContentsSize()) {
+                return parent.getContent(position + 1).order;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the positions of two contents of the same tree by their paths from the root of the tree.
+     *
+     * @param a the first content
+     * @param b the second content
+     * @return a negative number, zero or a positive number as <code>a</code> comes before, is, or comes after
+     *         <code>b</code>
+     * @throws IllegalArgumentException if the contents are not in the same tree
+     */
+    static int compareByPath(Content a, Content b) {
+        if (root(a) != root(b)) {
+            throw new IllegalArgumentException("The contents are not in the same tree");
+        }
+        return comparePaths(path(a), path(b));
+    }
+
+    private static Object root(Content content) {
+        Object root = content;
+        for (Parent p = content.getParent(); p != null; p = p.getParent()) {
+            root = p;
+        }
+        return root;
+    }
+
+    /**
+     * Returns the positions of the content and of each of its ancestors within their parents, outermost first.
+     *
+     * @param content the content
+     * @return the path from the root to the content
+     */
+    static int[] path(Content content) {
+        int depth = 0;
+        for (Parent p = content.getParent(); p != null; p = p.getParent()) {
+            depth++;
+        }
+        int[] path = new int[depth];
+        Content c = content;
+        for (int i = depth - 1; i >= 0; i--) {
+            Parent p = c.getParent();
+            path[i] = p.indexOf(c);
+            if (p instanceof Content) {
+                c = (Content) p;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Compares two paths returned by {@link #path(Content)}.
+     *
+     * @param a the first path
+     * @param b the second path
+     * @return a negative number, zero or a positive number as the first path comes before, is, or comes after the
+     *         second
+     */
+    static int comparePaths(int[] a, int[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] < b[i] ? -1 : 1;
+            }
+        }
+        // An ancestor comes before its descendants
+        return a.length - b.length;
+    }
+}
@@ -85,6 +85,11 @@ public class Element
 
     private static final int INITIAL_ARRAY_SIZE = 5;
 
+    /**
+     * The namespaces in scope on an element without a parent element
+     */
+    private static final List<Namespace> TOP_SCOPE = Collections.singletonList(Namespace.XML_NAMESPACE);
+
     /**
      * The local name of the element
      */
@@ -104,14 +109,34 @@ public class Element
     // for a possible memory optimization here (using a RootElement subclass)
 
     /**
-     * The attributes of the element.  Subclassers have to track attributes using their own mechanism.
+     * The attributes of the element, or null until the first attribute is added.  Subclassers have to track attributes
+     * using their own mechanism.
+     */
+    AttributeList attributes;
+
+    /**
+     * The content of the element, or null until the first child is added.  Subclassers have to track content using
+     * their own mechanism.
+     */
+    ContentList contents;
+
+    /**
+     * The namespaces in scope on this element, or null if they have not been computed or one of its declarations
+     * changed since
      */
-    AttributeList attributes = new AttributeList(this);
+    private transient NamespaceScope namespaceScope;
 
     /**
-     * The content of the element.  Subclassers have to track content using their own mechanism.
+     * The in-scope namespaces last computed for a child that declares namespaces of its own, offered to its siblings so
+     * that those declaring the same ones share the list.
      */
-    ContentList contents = new ContentList(this);
+    private transient List<Namespace> childNamespacesInScope;
+
+    /**
+     * The frozen element this clone still shares its content with, or null once it has copied it (or if it never
+     * shared it).  A clone copies its attributes right away, so only the content is ever shared.
+     */
+    private transient volatile Element shared;
 
     /**
      * This protected constructor is provided in order to support an Element subclass that wants full control over
@@ -195,11 +220,15 @@ public class Element
      * @throws IllegalNameException if the given name is illegal as an Element name
      */
     public Element setName(final String name) {
+        checkNotFrozen();
         final String reason = Verifier.checkElementName(name);
         if (reason != null) {
             throw new IllegalNameException(name, "element", reason);
         }
+        final String oldName = this.name;
         this.name = name;
+        invalidateParentNameIndex();
+        ElementIndex.renamed(this, oldName, this.namespace);
         return this;
     }
 
@@ -219,19 +248,149 @@ public class Element
      * @return the target element
      */
     public Element setNamespace(Namespace namespace) {
+        checkNotFrozen();
         if (namespace == null) {
             namespace = Namespace.NO_NAMESPACE;
         }
 
+        final Namespace oldNamespace = this.namespace;
         this.namespace = namespace;
+        namespacesChanged();
+        invalidateParentNameIndex();
+        ElementIndex.renamed(this, this.name, oldNamespace);
         return this;
     }
 
+    /**
+     * Tells the parent's content list that this element's name or namespace changed.
+     */
+    private void invalidateParentNameIndex() {
+        if (parent instanceof Element) {
+            ((Element) parent).contents.childRenamed();
+        } else if (parent instanceof Document) {
+            ((Document) parent).contents.childRenamed();
+        }
+    }
+
+    /**
+     * Returns the attribute list, creating it if this element has never held an attribute.  Read-only paths check
+     * {@link #attributes} for null instead, so leaf elements never allocate a list.
+     *
+     * @return the attribute list
+     */
+    AttributeList getAttributeList() {
+        if (attributes == null) {
+            if (frozen) {
+                // Never store a list on a frozen element; the empty one handed out only exists to refuse additions
+                final AttributeList empty = new AttributeList(this);
+                empty.frozen = true;
+                return empty;
+            }
+            attributes = new AttributeList(this);
+        }
+        return attributes;
+    }
+
+    /**
+     * Returns the content list without creating it, or null if this element has no content.  Content this clone still
+     * shares with a frozen element is copied first, since the children of the list are handed out as this element's.
+     *
+     * @return the content list, or null
+     */
+    ContentList peekContents() {
+        unshare();
+        return contents;
+    }
+
+    /**
+     * Returns the content list for reading only, without creating it or copying shared content.  While this clone
+     * still shares the content of a frozen element, that element's list is returned, so its children must not be
+     * handed out as this element's.
+     *
+     * @return the content list to read, or null
+     */
+    ContentList readContents() {
+        final Element source = shared;
+        return source != null ? source.contents : contents;
+    }
+
+    /**
+     * Returns the attribute list for reading only, without creating it.
+     *
+     * @return the attribute list to read, or null
+     */
+    AttributeList readAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Returns the frozen element this clone still shares its content with, for the indexes that walk a whole tree
+     * without copying it.
+     *
+     * @return the frozen element, or null if this element reads its own content
+     */
+    Element sharedSource() {
+        return shared;
+    }
+
+    /**
+     * Copies the children of the frozen element this clone shares them with, if any.  The children are copied the same
+     * way, so a clone of a frozen tree only copies the elements on the way to the nodes that are handed out or changed.
+     */
+    private void unshare() {
+        if (shared != null) {
+            copyShared();
+        }
+    }
+
+    private synchronized void copyShared() {
+        final Element source = shared;
+        if (source == null) {
+            return;
+        }
+        if (source.contents != null && source.contents.size() > 0) {
+            contents = new ContentList(this);
+            contents.addClones(source.contents);
+        }
+        // Published last, so that a thread reading through the shared element never sees half-built lists
+        shared = null;
+    }
+
+    /**
+     * Returns the content list, creating it if this element has never held content.  Read-only paths check {@link
+     * #contents} for null instead, so leaf elements never allocate a list.
+     *
+     * @return the content list
+     */
+    ContentList getContentList() {
+        unshare();
+        if (contents == null) {
+            if (frozen) {
+                // Never store a list on a frozen element; the empty one handed out only exists to refuse additions
+                final ContentList empty = new ContentList(this);
+                empty.frozen = true;
+                return empty;
+            }
+            contents = new ContentList(this);
+        }
+        return contents;
+    }
+
     @Override
     protected Element setParent(Parent parent) {
+        namespacesChanged();
         return (Element) super.setParent(parent);
     }
 
+    /**
+     * Drops the in-scope namespaces cached by this element.  Called when it moves, or when its namespace, its namespace
+     * declarations or its namespaced attributes change.  The elements below it notice on their next lookup, since
+     * their cached lists were computed from a list of this element's that it no longer returns.
+     */
+    void namespacesChanged() {
+        namespaceScope = null;
+    }
+
     /**
      * Returns the namespace prefix of the element or an empty string if none exists.
      *
@@ -252,9 +411,10 @@ public class Element
     }
 
     /**
-     * Returns the {@link Namespace} corresponding to the given prefix in scope for this element. This involves
-     * searching up the tree, so the results depend on the current location of the element. Returns null if there is no
-     * namespace in scope with the given prefix at this point in the document.
+     * Returns the {@link Namespace} corresponding to the given prefix in scope for this element. The results depend on
+     * the current location of the element, and are looked up in the cached {@link #getNamespacesInScope() in-scope
+     * namespaces}. Returns null if there is no namespace in scope with the given prefix at this point in the document,
+     * except for the empty prefix, which then maps to {@link Namespace#NO_NAMESPACE}.
      *
      * @param prefix namespace prefix to look up
      * @return the Namespace for this prefix at this location, or null if none
@@ -274,22 +434,11 @@ public class Element
             return getNamespace();
         }
 
-        // Scan the additional namespaces
-        if (additionalNamespaces != null) {
-            for (Object additionalNamespace : additionalNamespaces) {
-                final Namespace ns = (Namespace) additionalNamespace;
-                if (prefix.equals(ns.getPrefix())) {
-                    return ns;
-                }
-            }
+        final Namespace ns = findPrefix(getNamespacesInScope(), prefix);
+        if (ns == null && prefix.length() == 0) {
+            return Namespace.NO_NAMESPACE;
         }
-
-        // If we still don't have a match, ask the parent
-        if (parent instanceof Element) {
-            return ((Element) parent).getNamespace(prefix);
-        }
-
-        return null;
+        return ns;
     }
 
     /**
@@ -318,6 +467,7 @@ public class Element
      * @throws IllegalAddException if the namespace prefix collides with another namespace prefix on the element
      */
     public void addNamespaceDeclaration(final Namespace additionalNamespace) {
+        checkNotFrozen();
 
         // Verify the new namespace prefix doesn't collide with another
         // declared namespace, an attribute prefix, or this element's prefix
@@ -331,6 +481,7 @@ public class Element
         }
 
         additionalNamespaces.add(additionalNamespace);
+        namespacesChanged();
     }
 
     /**
@@ -342,10 +493,13 @@ public class Element
      * @param additionalNamespace namespace to remove
      */
     public void removeNamespaceDeclaration(final Namespace additionalNamespace) {
+        checkNotFrozen();
         if (additionalNamespaces == null) {
             return;
         }
-        additionalNamespaces.remove(additionalNamespace);
+        if (additionalNamespaces.remove(additionalNamespace)) {
+            namespacesChanged();
+        }
     }
 
     /**
@@ -365,6 +519,246 @@ public class Element
         return Collections.unmodifiableList(additionalNamespaces);
     }
 
+    /**
+     * Returns the namespaces in scope on this element: its own namespace, its additional declarations and the
+     * namespaces of its attributes, followed by those inherited from its ancestors that it does not redeclare, and
+     * finally the <code>xml</code> namespace.  A default namespace undeclared with <code>xmlns=""</code> is left out.
+     * Note, the returned list is unmodifiable.
+     * <p/>
+     * The list is cached on the element until it moves or its own declarations change.  A lookup only checks that the
+     * lists cached on the ancestors are still those the element's list was computed from, and recomputes the ones that
+     * are not.  Elements that declare nothing new share their parent's list, and siblings that declare the same
+     * namespaces usually share one list.
+     *
+     * @return the namespaces in scope, nearest declarations first
+     */
+    public List<Namespace> getNamespacesInScope() {
+        final NamespaceScope scope = namespaceScope;
+        if (scope != null && (scope.permanent || isCurrent(scope))) {
+            return scope.namespaces;
+        }
+        return updateNamespacesInScope();
+    }
+
+    /**
+     * Returns whether the given scope cached by this element is still valid, which is the case when it was computed
+     * from the list now in scope on the parent, and the parent's own list is still valid in the same way.
+     *
+     * @param scope the scope cached by this element
+     * @return true if the scope is valid
+     */
+    private boolean isCurrent(NamespaceScope scope) {
+        Element element = this;
+        while (element.parent instanceof Element) {
+            final Element parentElement = (Element) element.parent;
+            final NamespaceScope parentScope = parentElement.namespaceScope;
+            if (parentScope == null || parentScope.namespaces != scope.inherited) {
+                return false;
+            }
+            if (parentScope.permanent) {
+                return true;
+            }
+            element = parentElement;
+            scope = parentScope;
+        }
+        return scope.inherited == TOP_SCOPE;
+    }
+
+    /**
+     * Computes the namespaces in scope on this element and on the ancestors whose cached lists are no longer valid,
+     * from the top down so that deep trees cannot overflow the call stack, and caches them on the elements that are
+     * not frozen.
+     *
+     * @return the namespaces in scope on this element
+     */
+    private List<Namespace> updateNamespacesInScope() {
+        final List<Element> elements = new ArrayList<Element>();
+        List<Namespace> inherited = TOP_SCOPE;
+        Element element = this;
+        while (true) {
+            elements.add(element);
+            if (!(element.parent instanceof Element)) {
+                break;
+            }
+            element = (Element) element.parent;
+            final NamespaceScope scope = element.namespaceScope;
+            if (scope != null && scope.permanent) {
+                inherited = scope.namespaces;
+                break;
+            }
+        }
+
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            element = elements.get(i);
+            final NamespaceScope scope = element.namespaceScope;
+            if (scope != null && scope.inherited == inherited) {
+                inherited = scope.namespaces;
+                continue;
+            }
+            final List<Namespace> computed = element.computeNamespacesInScope(inherited);
+            if (!element.frozen) {
+                // A frozen element is never written to once published
+                element.namespaceScope = new NamespaceScope(computed, inherited, false);
+            }
+            inherited = computed;
+        }
+        return inherited;
+    }
+
+    private List<Namespace> computeNamespacesInScope(final List<Namespace> inherited) {
+        // Collect the bindings this element changes, most of the time there are none
+        List<Namespace> declared = declare(null, inherited, namespace);
+        if (additionalNamespaces != null) {
+            for (Namespace ns : additionalNamespaces) {
+                declared = declare(declared, inherited, ns);
+            }
+        }
+        final AttributeList attributes = readAttributes();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.size(); i++) {
+                final Namespace ns = attributes.get(i).getNamespace();
+                if (ns != Namespace.NO_NAMESPACE) {
+                    declared = declare(declared, inherited, ns);
+                }
+            }
+        }
+        if (declared == null) {
+            return inherited;
+        }
+
+        final List<Namespace> scope = new ArrayList<Namespace>(declared.size() + inherited.size());
+        for (Namespace ns : declared) {
+            if (ns != Namespace.NO_NAMESPACE) {
+                scope.add(ns);
+            }
+        }
+        for (Namespace ns : inherited) {
+            if (findPrefix(declared, ns.getPrefix()) == null) {
+                scope.add(ns);
+            }
+        }
+
+        // Siblings often repeat the same declarations, on a prefixed namespace that is not declared further up
+        if (parent instanceof Element) {
+            final Element parentElement = (Element) parent;
+            final List<Namespace> sibling = parentElement.childNamespacesInScope;
+            if (sibling != null && sameBindings(sibling, scope)) {
+                return sibling;
+            }
+            final List<Namespace> shared = Collections.unmodifiableList(scope);
+            if (!parentElement.frozen) {
+                parentElement.childNamespacesInScope = shared;
+            }
+            return shared;
+        }
+        return Collections.unmodifiableList(scope);
+    }
+
+    private static boolean sameBindings(final List<Namespace> a, final List<Namespace> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            final Namespace x = a.get(i);
+            final Namespace y = b.get(i);
+            if (x != y && !(x.getPrefix().equals(y.getPrefix()) && x.getURI().equals(y.getURI()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Namespace> declare(List<Namespace> declared, final List<Namespace> inherited,
+                                           final Namespace ns) {
+        final String prefix = ns.getPrefix();
+        if (declared != null && findPrefix(declared, prefix) != null) {
+            return declared;
+        }
+        final Namespace current = findPrefix(inherited, prefix);
+        if (current == null ? ns == Namespace.NO_NAMESPACE : current.getURI().equals(ns.getURI())) {
+            return declared;
+        }
+        if (declared == null) {
+            declared = new ArrayList<Namespace>(INITIAL_ARRAY_SIZE);
+        }
+        declared.add(ns);
+        return declared;
+    }
+
+    private static Namespace findPrefix(final List<Namespace> namespaces, final String prefix) {
+        for (int i = 0; i < namespaces.size(); i++) {
+            final Namespace ns = namespaces.get(i);
+            if (ns.getPrefix().equals(prefix)) {
+                return ns;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Freezes this element and everything below it.  Afterwards every method that would modify the subtree throws an
+     * {@link UnsupportedOperationException}, including attaching, detaching and adding attributes, and the subtree can
+     * be read by any number of threads without locking once it has been safely published to them.  Freezing compacts
+     * the content and attribute lists and precomputes the values, list positions and in-scope namespaces that would
+     * otherwise be computed lazily on a read.  A clone of a frozen element is not frozen.
+     * <p/>
+     * The in-scope namespaces are only precomputed when this element has no parent element, since an ancestor that is
+     * not frozen could still change them.  Use {@link Document#freeze()} to freeze a whole document.
+     *
+     * @return this element
+     */
+    public Element freeze() {
+        if (frozen) {
+            return this;
+        }
+        prepareFreeze();
+        for (Content content : getDescendants()) {
+            content.prepareFreeze();
+        }
+        // Mark the descendants before this element so that isFrozen() on the top element is the publishing write
+        for (Content content : getDescendants()) {
+            content.markFrozen();
+        }
+        markFrozen();
+        return this;
+    }
+
+    @Override
+    void prepareFreeze() {
+        unshare();
+        if (contents != null) {
+            contents.freeze();
+        }
+        if (attributes != null) {
+            attributes.freeze();
+        }
+        if (additionalNamespaces instanceof ArrayList) {
+            ((ArrayList<Namespace>) additionalNamespaces).trimToSize();
+        }
+        // The scope of an element whose ancestors are all frozen can never change; any other is cached as usual
+        if (!(parent instanceof Element)) {
+            namespaceScope = new NamespaceScope(computeNamespacesInScope(TOP_SCOPE), TOP_SCOPE, true);
+        } else {
+            final NamespaceScope parentScope = ((Element) parent).namespaceScope;
+            if (parentScope != null && parentScope.permanent) {
+                namespaceScope = new NamespaceScope(computeNamespacesInScope(parentScope.namespaces),
+                        parentScope.namespaces, true);
+            } else {
+                getNamespacesInScope();
+            }
+        }
+    }
+
+    @Override
+    void markFrozen() {
+        if (attributes != null) {
+            for (int i = 0; i < attributes.size(); i++) {
+                attributes.get(i).frozen = true;
+            }
+        }
+        super.markFrozen();
+    }
+
     /**
      * Returns the XPath 1.0 string value of this element, which is the complete, ordered content of all text node
      * descendants of this element (i&#46;e&#46; the text that's left after all references are resolved and all other
@@ -373,9 +767,14 @@ public class Element
      * @return a concatentation of all text node descendants
      */
     public String getValue() {
+        final ContentList contents = readContents();
+        if (contents == null) {
+            return "";
+        }
+
         final StringBuilder buffer = new StringBuilder();
 
-        for (Object o : getContents()) {
+        for (Object o : contents) {
             final Content child = (Content) o;
             if (child instanceof Element || child instanceof Text) {
                 buffer.append(child.getValue());
@@ -395,11 +794,14 @@ public class Element
     }
 
     public int getContentsSize() {
-        return contents.size();
+        final ContentList contents = readContents();
+        return contents == null ? 0 : contents.size();
     }
 
     public int indexOf(final Content child) {
-        return contents.indexOf(child);
+        // While the content is shared, the child cannot be in it
+        final ContentList contents = readContents();
+        return contents == null ? -1 : contents.indexOf(child);
     }
 
 //    private int indexOf(int start, Filter filter) {
@@ -422,13 +824,14 @@ public class Element
      * @return text content for this element, or empty string if none
      */
     public String getText() {
-        if (contents.size() == 0) {
+        final ContentList contents = readContents();
+        if (contents == null || contents.size() == 0) {
             return "";
         }
 
         // If we hold only a Text or CDATA, return it directly
         if (contents.size() == 1) {
-            final Content content = this.contents.get(0);
+            final Content content = contents.get(0);
             if (content instanceof Text) {
                 return ((Text) content).getText();
             } else {
@@ -440,7 +843,7 @@ public class Element
         final StringBuilder textContent = new StringBuilder();
         boolean hasText = false;
 
-        for (final Content content : this.contents) {
+        for (final Content content : contents) {
             if (content instanceof Text) {
                 textContent.append(((Text) content).getText());
                 hasText = true;
@@ -576,7 +979,10 @@ public class Element
      *                              determined by {@link org.cdmckay.coffeedom.Verifier#checkCharacterData(String)})
      */
     public Element setText(final String text) {
-        contents.clear();
+        unshare();
+        if (contents != null) {
+            contents.clear();
+        }
 
         if (text != null) {
             addContent(new Text(text));
@@ -598,7 +1004,7 @@ public class Element
      *         <code>{@link CDATA}</code>, and <code>{@link EntityRef}</code> objects.
      */
     public List<Content> getContents() {
-        return contents;
+        return getContentList();
     }
 
     /**
@@ -610,7 +1016,7 @@ public class Element
      * @return <code>List</code> - filtered Element content
      */
     public List<Content> getContents(final Filter filter) {
-        return contents.getView(filter);
+        return getContentList().getView(filter);
     }
 
     /**
@@ -619,6 +1025,10 @@ public class Element
      * @return list of the old children detached from this parent
      */
     public List<Content> removeContents() {
+        unshare();
+        if (contents == null) {
+            return new ArrayList<Content>();
+        }
         final List<Content> oldContent = new ArrayList<Content>(contents);
         contents.clear();
         return oldContent;
@@ -631,7 +1041,11 @@ public class Element
      * @return list of the old children detached from this parent
      */
     public List<Content> removeContents(final Filter filter) {
+        unshare();
         final List<Content> oldContent = new ArrayList<Content>();
+        if (contents == null) {
+            return oldContent;
+        }
         final Iterator<Content> it = contents.getView(filter).iterator();
         while (it.hasNext()) {
             final Content child = (Content) it.next();
@@ -660,7 +1074,7 @@ public class Element
      * @throws IllegalAddException if the List contains objects of illegal types or with existing parentage.
      */
     public Element setContents(final Collection<? extends Content> newContents) {
-        contents.clearAndSet(newContents);
+        getContentList().clearAndSet(newContents);
         return this;
     }
 
@@ -676,7 +1090,7 @@ public class Element
      * @throws IndexOutOfBoundsException if index is negative or greater than the current number of children.
      */
     public Element setContent(final int index, final Content child) {
-        contents.set(index, child);
+        getContentList().set(index, child);
         return this;
     }
 
@@ -691,6 +1105,8 @@ public class Element
      * @throws IndexOutOfBoundsException if index is negative or greater than the current number of children.
      */
     public Parent setContents(final int index, final Collection<? extends Content> newContents) {
+        unshare();
+        final ContentList contents = getContentList();
         contents.remove(index);
         contents.addAll(index, newContents);
         return this;
@@ -717,7 +1133,7 @@ public class Element
      * @throws IllegalAddException if the given child already has a parent.
      */
     public Element addContent(final Content child) {
-        contents.add(child);
+        getContentList().add(child);
         return this;
     }
 
@@ -730,7 +1146,7 @@ public class Element
      * @throws IllegalAddException if any item in the collection already has a parent or is of an inappropriate type.
      */
     public Element addContents(final Collection<? extends Content> newContents) {
-        contents.addAll(newContents);
+        getContentList().addAll(newContents);
         return this;
     }
 
@@ -744,7 +1160,7 @@ public class Element
      * @throws IllegalAddException       if the given child already has a parent.
      */
     public Element addContent(final int index, final Content child) {
-        contents.addContent(index, child);
+        getContentList().addContent(index, child);
         return this;
     }
 
@@ -760,7 +1176,7 @@ public class Element
      *                                   type.
      */
     public Element addContents(final int index, final Collection<? extends Content> newContents) {
-        contents.addAll(index, newContents);
+        getContentList().addAll(index, newContents);
         return this;
     }
 
@@ -774,7 +1190,22 @@ public class Element
         return list;
     }
 
+    /**
+     * Returns the child at the given index.  A clone of a {@link #freeze() frozen} element that has not copied its
+     * content yet reads it from the element it was cloned from, so the child returned is that element's frozen child,
+     * which reads the same as the clone's own copy would.  Reading a whole tree this way, as the outputters do, copies
+     * nothing; {@link #getContents()} and {@link #getChildren()} hand out the clone's own children, to change them.
+     *
+     * @param index the index of the child
+     * @return the child at the index
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the number of children
+     */
     public Content getContent(final int index) {
+        // A leaf has no list to look in, and does not get one for a read
+        final ContentList contents = readContents();
+        if (contents == null) {
+            throw new IndexOutOfBoundsException("Index: " + index + " Size: 0");
+        }
         return contents.get(index);
     }
 
@@ -784,11 +1215,12 @@ public class Element
 //    }
 
     public boolean removeContent(final Content child) {
-        return contents.remove(child);
+        unshare();
+        return contents != null && contents.remove(child);
     }
 
     public Content removeContent(final int index) {
-        return contents.remove(index);
+        return getContentList().remove(index);
     }
 
     /**
@@ -812,6 +1244,8 @@ public class Element
      * @throws IllegalAddException if the supplied child is already attached or not legal content for an Element
      */
     public Element setContent(final Content child) {
+        unshare();
+        final ContentList contents = getContentList();
         contents.clear();
         contents.add(child);
         return this;
@@ -843,7 +1277,18 @@ public class Element
      * @return attributes for the element
      */
     public List<Attribute> getAttributes() {
-        return attributes;
+        return getAttributeList();
+    }
+
+    /**
+     * <p> This returns whether this element has any attributes. Unlike <code>getAttributes().isEmpty()</code> it does
+     * not create the attribute list of an element that never had attributes. </p>
+     *
+     * @return whether the element has attributes
+     */
+    public boolean hasAttributes() {
+        final AttributeList attributes = readAttributes();
+        return attributes != null && attributes.size() > 0;
     }
 
     /**
@@ -866,7 +1311,8 @@ public class Element
      * @return attribute for the element
      */
     public Attribute getAttribute(final String name, final Namespace ns) {
-        return (Attribute) attributes.getAttribute(name, ns);
+        final AttributeList list = readAttributes();
+        return list == null ? null : (Attribute) list.getAttribute(name, ns);
     }
 
     /**
@@ -914,7 +1360,8 @@ public class Element
      * @return the named attribute's value, or the default if no such attribute
      */
     public String getAttributeValue(final String name, final Namespace ns, final String def) {
-        final Attribute attribute = (Attribute) attributes.getAttribute(name, ns);
+        final AttributeList attributes = readAttributes();
+        final Attribute attribute = attributes == null ? null : (Attribute) attributes.getAttribute(name, ns);
         if (attribute == null) {
             return def;
         }
@@ -943,7 +1390,7 @@ public class Element
      *                             any of the <code>Attribute</code> objects have conflicting namespace prefixes.
      */
     public Element setAttributes(final Collection<? extends Attribute> newAttributes) {
-        attributes.clearAndSet(newAttributes);
+        getAttributeList().clearAndSet(newAttributes);
         return this;
     }
 
@@ -1018,7 +1465,7 @@ public class Element
      *                             prefix collides with another namespace prefix on the element.
      */
     public Element setAttribute(final Attribute attribute) {
-        attributes.add(attribute);
+        getAttributeList().add(attribute);
         return this;
     }
 
@@ -1042,7 +1489,7 @@ public class Element
      * @return whether the attribute was removed
      */
     public boolean removeAttribute(final String name, final Namespace ns) {
-        return attributes.removeAttribute(name, ns);
+        return attributes != null && attributes.removeAttribute(name, ns);
     }
 
     /**
@@ -1052,7 +1499,7 @@ public class Element
      * @return whether the attribute was removed
      */
     public boolean removeAttribute(final Attribute attribute) {
-        return attributes.remove(attribute);
+        return attributes != null && attributes.remove(attribute);
     }
 
     /**
@@ -1077,6 +1524,11 @@ public class Element
     /**
      * <p> This returns a deep clone of this element. The new element is detached from its parent, and getParent() on
      * the clone will return null. </p>
+     * <p> The clone of a {@link #freeze() frozen} element copies only the attributes of the original, and shares its
+     * content until it first changes it or hands out one of its children through a live list, and then copies only its
+     * own children, which in turn share theirs.  Reading values, sizes and children by index, looking up namespaces,
+     * outputting and serializing read the shared content without copying it.  Changing a few nodes of a clone of a
+     * large frozen template therefore only copies the elements on the way to them. </p>
      *
      * @return the clone of this element
      */
@@ -1085,6 +1537,82 @@ public class Element
 
         // Ken Rune Helland <kenh@csc.no> is our local clone() guru
 
+        final Element element = copyElement();
+
+        // A frozen element cannot change, so its clone can share its content and attributes until either is used
+        final Element template = frozen ? this : shared;
+        if (template != null) {
+            if (attributes != null && attributes.size() > 0) {
+                element.attributes = new AttributeList(element);
+                element.attributes.addClones(attributes);
+            }
+            element.shared = template;
+            return element;
+        }
+
+        // Copy this element and the plain elements below it with an explicit stack so that deep trees cannot overflow
+        // the call stack.  The source is valid and the copy has no document yet, so the copies are appended to
+        // presized lists without the checks and index hooks of the add methods.
+        final List<Element> sources = new ArrayList<Element>();
+        final List<Element> copies = new ArrayList<Element>();
+        sources.add(this);
+        copies.add(element);
+        while (!sources.isEmpty()) {
+            final int last = sources.size() - 1;
+            final Element source = sources.remove(last);
+            final Element copy = copies.remove(last);
+
+            if (source.attributes != null && source.attributes.size() > 0) {
+                copy.attributes = new AttributeList(copy);
+                copy.attributes.addClones(source.attributes);
+            }
+
+            final ContentList children = source.contents;
+            if (children == null || children.size() == 0) {
+                continue;
+            }
+            final int size = children.size();
+            copy.contents = new ContentList(copy);
+            copy.contents.ensureCapacity(size);
+            for (int i = 0; i < size; i++) {
+                final Content child = children.get(i);
+                if (isCopiedByClone(child)) {
+                    copy.contents.appendCopy(((Element) child).copyElement());
+                } else {
+                    // Leaves, subclasses with their own clone(), and elements cloned lazily
+                    copy.contents.appendCopy(child.clone());
+                }
+            }
+            // Push the child elements last first, so they are copied in document order
+            for (int i = size - 1; i >= 0; i--) {
+                final Content child = children.get(i);
+                if (isCopiedByClone(child)) {
+                    sources.add((Element) child);
+                    copies.add((Element) copy.contents.get(i));
+                }
+            }
+        }
+
+        return element;
+    }
+
+    /**
+     * Returns whether {@link #clone()} copies the given child itself rather than calling its clone(), which is the
+     * case for plain elements that are neither frozen nor shared.
+     *
+     * @param child the child to check
+     * @return true if the child is copied by the clone of its parent
+     */
+    private static boolean isCopiedByClone(final Content child) {
+        return child.getClass() == Element.class && !child.frozen && ((Element) child).shared == null;
+    }
+
+    /**
+     * Copies this element without its attributes and content.
+     *
+     * @return the copy
+     */
+    private Element copyElement() {
         final Element element = (Element) super.clone();
 
         // name and namespace are references to immutable objects
@@ -1097,31 +1625,18 @@ public class Element
         // element.parent = null;
 
         // Reference to content list and attribute lists are copyed by
-        // super.clone() so we set it new lists if the original had lists
-        element.contents = new ContentList(element);
-        element.attributes = new AttributeList(element);
-
-        // Cloning attributes
-        if (attributes != null) {
-            for (int i = 0; i < attributes.size(); i++) {
-                final Attribute attribute = attributes.get(i);
-                element.attributes.add(attribute.clone());
-            }
-        }
+        // super.clone() so we set it new lists if the original had content
+        element.contents = null;
+        element.attributes = null;
+        element.namespaceScope = null;
+        element.childNamespacesInScope = null;
+        element.shared = null;
 
         // Cloning additional namespaces
         if (additionalNamespaces != null) {
             element.additionalNamespaces = new ArrayList<Namespace>(additionalNamespaces);
         }
 
-        // Cloning content
-        if (contents != null) {
-            for (int i = 0; i < contents.size(); i++) {
-                final Content c = contents.get(i);
-                element.contents.add(c.clone());
-            }
-        }
-
         return element;
     }
 
@@ -1133,6 +1648,9 @@ public class Element
     // Support a custom Namespace serialization so no two namespace
     // object instances may exist for the same prefix/uri pair
     private void writeObject(final ObjectOutputStream out) throws IOException {
+        // Only trees holding a subclass get here, in the default form, which has to write this element's own lists;
+        // every other tree is written by SerialTree, which reads shared content without copying it
+        unshare();
 
         out.defaultWriteObject();
 
@@ -1200,6 +1718,45 @@ public class Element
         };
     }
 
+    /**
+     * Returns an iterator that walks over descendants in document order, only descending into the elements that match
+     * the <code>descend</code> filter and returning only the descendants that match the <code>emit</code> filter.  An
+     * element that does not match <code>descend</code> may still be returned, but none of its descendants are visited,
+     * so whole subtrees can be skipped without being walked.
+     *
+     * @param descend filter to select the elements whose children are visited
+     * @param emit    filter to select which descendants to see
+     * @return an iterator to walk the selected descendants
+     */
+    public Iterable<Content> getDescendants(final Filter descend, final Filter emit) {
+        if (descend == null) {
+            throw new IllegalArgumentException("descend filter cannot be null");
+        }
+        if (emit == null) {
+            throw new IllegalArgumentException("emit filter cannot be null");
+        }
+        return new Iterable<Content>() {
+            public Iterator<Content> iterator() {
+                Iterator<Content> iterator = new DescendantIterator(Element.this, descend);
+                return new FilterIterator(iterator, emit);
+            }
+        };
+    }
+
+    /**
+     * Splits the descendants into at most <code>count</code> runs of whole subtrees that together return every
+     * descendant once, so that separate threads can walk disjoint parts of the tree at the same time.  The runs are in
+     * document order and each is walked in document order; they are balanced using the sizes of the content lists
+     * near the top of the tree.  The tree must not be modified while the runs are walked.
+     *
+     * @param count maximum number of runs, usually a small multiple of the number of threads
+     * @return the runs of descendants, in document order
+     * @throws IllegalArgumentException if <code>count</code> is not positive
+     */
+    public List<Iterable<Content>> splitDescendants(int count) {
+        return DescendantSplitter.split(this, count);
+    }
+
 
     /**
      * This returns a <code>List</code> of all the child elements nested directly (one level deep) within this element,
@@ -1223,7 +1780,64 @@ public class Element
      * @return list of child <code>Element</code> objects for this element
      */
     public List<Element> getChildren() {
-        return contents.getView(new ElementFilter());
+        if (readContents() == null) {
+            return new LeafChildren();
+        }
+        return getContentList().getView(new ElementFilter());
+    }
+
+    /**
+     * The live child elements of an element that had no content list when they were asked for.  Reads find no children
+     * until the element gets a list, so that reading them does not create one; the first change through this view
+     * creates it.
+     */
+    private final class LeafChildren
+            extends AbstractList<Element> {
+
+        /**
+         * The view of the content list, once the element has one
+         */
+        private List<Element> view;
+
+        private List<Element> view(final boolean create) {
+            if (view == null && (create || readContents() != null)) {
+                view = getContentList().getView(new ElementFilter());
+            }
+            return view;
+        }
+
+        @Override
+        public Element get(final int index) {
+            final List<Element> children = view(false);
+            if (children == null) {
+                throw new IndexOutOfBoundsException("Index: " + index + " Size: 0");
+            }
+            return children.get(index);
+        }
+
+        @Override
+        public int size() {
+            final List<Element> children = view(false);
+            return children == null ? 0 : children.size();
+        }
+
+        @Override
+        public void add(final int index, final Element element) {
+            view(true).add(index, element);
+            modCount++;
+        }
+
+        @Override
+        public Element set(final int index, final Element element) {
+            return view(true).set(index, element);
+        }
+
+        @Override
+        public Element remove(final int index) {
+            final Element removed = view(true).remove(index);
+            modCount++;
+            return removed;
+        }
     }
 
     /**
@@ -1252,7 +1866,10 @@ public class Element
      * @return all matching child elements
      */
     public List<Element> getChildren(final String name, final Namespace ns) {
-        return contents.getView(new ElementFilter(name, ns));
+        if (name == null) {
+            return getContentList().getView(new ElementFilter(name, ns));
+        }
+        return getContentList().getNamedView(name, ns);
     }
 
     /**
@@ -1264,7 +1881,21 @@ public class Element
      * @return the first matching child element, or null if not found
      */
     public Element getChild(final String name, final Namespace ns) {
-        final List<Content> elements = contents.getView(new ElementFilter(name, ns));
+        final ContentList list = readContents();
+        if (list == null) {
+            return null;
+        }
+
+        if (name != null) {
+            if (list.getChild(name, ns) == null) {
+                return null;
+            }
+            // The child is handed out, so it has to be this element's own
+            unshare();
+            return contents.getChild(name, ns);
+        }
+
+        final List<Content> elements = getContentList().getView(new ElementFilter(name, ns));
         final Iterator<Content> it = elements.iterator();
         if (it.hasNext()) {
             return (Element) it.next();
@@ -1303,6 +1934,11 @@ public class Element
      * @return whether deletion occurred
      */
     public boolean removeChild(final String name, final Namespace ns) {
+        unshare();
+        if (contents == null) {
+            return false;
+        }
+
         final Filter filter = new ElementFilter(name, ns);
         final List<Content> oldContents = contents.getView(filter);
         final Iterator<Content> it = oldContents.iterator();
@@ -1335,7 +1971,11 @@ public class Element
      * @return whether deletion occurred
      */
     public boolean removeChildren(final String name, final Namespace ns) {
+        unshare();
         boolean deletedSome = false;
+        if (contents == null) {
+            return deletedSome;
+        }
 
         final Filter filter = new ElementFilter(name, ns);
         final List<Content> oldContents = contents.getView(filter);
@@ -1349,4 +1989,24 @@ public class Element
         return deletedSome;
     }
 
+    /**
+     * The namespaces in scope on an element, with the list in scope on its parent they were computed from.  It is
+     * immutable, so a thread reading an element's scope always sees a matching pair.
+     */
+    private static final class NamespaceScope {
+
+        final List<Namespace> namespaces;
+        final List<Namespace> inherited;
+
+        /**
+         * Whether the element and all its ancestors were frozen when this was computed, so that it can never change
+         */
+        final boolean permanent;
+
+        NamespaceScope(final List<Namespace> namespaces, final List<Namespace> inherited, final boolean permanent) {
+            this.namespaces = namespaces;
+            this.inherited = inherited;
+            this.permanent = permanent;
+        }
+    }
 }
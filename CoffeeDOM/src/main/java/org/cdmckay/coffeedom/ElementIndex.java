@@ -0,0 +1,302 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom;
+
+import java.util.*;
+
+/**
+ * A document-wide index from element name and namespace to the elements of a {@link Document}, kept up to date by
+ * every mutation of the document's content lists and every rename of its elements.  Elements attached after the
+ * elements already indexed under their name (the usual case when a document is built front to back) keep the entry
+ * in document order; any other attachment marks the entry so that it is sorted on its next lookup.
+ *
+ * @author Cameron McKay
+ */
+final class ElementIndex {
+
+    /**
+     * The entries, keyed by {@link #key(String, String)}.
+     */
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    /**
+     * Number of elements in the index.
+     */
+    private int size;
+
+    /**
+     * Set once the document is frozen, after which the index never changes and is read without locking.
+     */
+    private boolean frozen;
+
+    /**
+     * Creates an index of every element in the document.
+     *
+     * @param document the document to index
+     */
+    ElementIndex(Document document) {
+        for (Content content : document.getDescendants()) {
+            if (content instanceof Element) {
+                add((Element) content, true);
+            }
+        }
+    }
+
+    /**
+     * Called by a content list of a tracking document after it gained the given child.
+     *
+     * @param document the document tracking the content list
+     * @param child    the child that was added
+     */
+    static void attached(Document document, Content child) {
+        if (child instanceof Element && document.elementIndex != null) {
+            document.elementIndex.addSubtree((Element) child);
+        }
+    }
+
+    /**
+     * Called by a content list of a tracking document after it lost the given child.
+     *
+     * @param document the document tracking the content list
+     * @param child    the child that was removed
+     */
+    static void detached(Document document, Content child) {
+        if (child instanceof Element && document.elementIndex != null) {
+            document.elementIndex.removeSubtree((Element) child);
+        }
+    }
+
+    /**
+     * Called by an element after its name or namespace changed.
+     *
+     * @param element      the renamed element
+     * @param oldName      the element's previous name
+     * @param oldNamespace the element's previous namespace
+     */
+    static void renamed(Element element, String oldName, Namespace oldNamespace) {
+        if (oldName != null && oldNamespace != null) {
+            Document document = ContentList.trackerOf(element.parent);
+            if (document != null && document.elementIndex != null) {
+                document.elementIndex.rename(element, key(oldName, oldNamespace.getURI()));
+            }
+        }
+    }
+
+    /**
+     * Returns the elements with the given name and namespace URI in document order.
+     *
+     * @param name the local name
+     * @param uri  the namespace URI, or the empty string for no namespace
+     * @return an unmodifiable snapshot of the matching elements
+     */
+    List<Element> get(String name, String uri) {
+        if (frozen) {
+            return snapshot(entries.get(key(name, uri)));
+        }
+        synchronized (this) {
+            Entry entry = entries.get(key(name, uri));
+            if (entry != null && !entry.ordered) {
+                entry.sort();
+            }
+            return snapshot(entry);
+        }
+    }
+
+    private static List<Element> snapshot(Entry entry) {
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<Element>(entry.elements));
+    }
+
+    /**
+     * Sorts every entry for good, as the document is being frozen.
+     */
+    synchronized void freeze() {
+        for (Entry entry : entries.values()) {
+            if (!entry.ordered) {
+                entry.sort();
+            }
+        }
+        frozen = true;
+    }
+
+    /**
+     * Returns the number of elements in the index.
+     *
+     * @return the number of indexed elements
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private synchronized void addSubtree(Element element) {
+        add(element, false);
+        for (Content content : element.getDescendants()) {
+            if (content instanceof Element) {
+                add((Element) content, false);
+            }
+        }
+    }
+
+    private synchronized void removeSubtree(Element element) {
+        remove(element, key(element));
+        for (Content content : element.getDescendants()) {
+            if (content instanceof Element) {
+                remove((Element) content, key((Element) content));
+            }
+        }
+    }
+
+    private synchronized void rename(Element element, String oldKey) {
+        remove(element, oldKey);
+        add(element, false);
+    }
+
+    /**
+     * Adds an element to its entry.
+     *
+     * @param element the element to add
+     * @param last    true if the element is known to follow every element already indexed
+     */
+    private void add(Element element, boolean last) {
+        String key = key(element);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        if (entry.ordered && !last && !entry.elements.isEmpty()) {
+            if (entry.last == null) {
+                for (Element e : entry.elements) {
+                    entry.last = e;
+                }
+            }
+            int[] lastPath = DocumentOrder.path(entry.last);
+            entry.ordered = DocumentOrder.comparePaths(lastPath, DocumentOrder.path(element)) < 0;
+        }
+        if (entry.elements.add(element)) {
+            size++;
+        }
+        entry.last = entry.ordered ? element : null;
+    }
+
+    private void remove(Element element, String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.elements.remove(element)) {
+            size--;
+            if (entry.elements.isEmpty()) {
+                entries.remove(key);
+            } else if (entry.last == element) {
+                entry.last = null;
+            }
+        }
+    }
+
+    private static String key(Element element) {
+        return key(element.getName(), element.getNamespaceURI());
+    }
+
+    private static String key(String name, String uri) {
+        // Names never contain '{', so the two forms cannot collide
+        return uri.length() == 0 ? name : '{' + uri + '}' + name;
+    }
+
+    /**
+     * The elements indexed under one name.
+     */
+    private static final class Entry {
+
+        /**
+         * The elements, in document order when {@link #ordered} is set.
+         */
+        final Set<Element> elements = new LinkedHashSet<Element>();
+
+        /**
+         * The last element in document order, or null if it is not known.
+         */
+        Element last;
+
+        /**
+         * Whether {@link #elements} is in document order.
+         */
+        boolean ordered = true;
+
+        /**
+         * Puts the elements back in document order.
+         */
+        void sort() {
+            int count = elements.size();
+            final int[][] paths = new int[count][];
+            Integer[] order = new Integer[count];
+            Element[] sorted = elements.toArray(new Element[count]);
+            for (int i = 0; i < count; i++) {
+                paths[i] = DocumentOrder.path(sorted[i]);
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return DocumentOrder.comparePaths(paths[a], paths[b]);
+                }
+            });
+
+            elements.clear();
+            for (Integer i : order) {
+                elements.add(sorted[i]);
+            }
+            last = sorted[order[count - 1]];
+            ordered = true;
+        }
+    }
+}
@@ -171,6 +171,7 @@ public class EntityRef
     public EntityRef setName(String name) {
         // This can contain a colon so we use checkXMLName()
         // instead of checkElementName()
+        checkNotFrozen();
         String reason = Verifier.checkXMLName(name);
         if (reason != null) {
             throw new IllegalNameException(name, "EntityRef", reason);
@@ -187,6 +188,7 @@ public class EntityRef
      * @throws IllegalDataException if the given public ID is not a legal public ID.
      */
     public EntityRef setPublicID(String publicID) {
+        checkNotFrozen();
         String reason = Verifier.checkPublicID(publicID);
         if (reason != null) {
             throw new IllegalDataException(publicID, "EntityRef", reason);
@@ -203,6 +205,7 @@ public class EntityRef
      * @throws IllegalDataException if the given system ID is not a legal system literal.
      */
     public EntityRef setSystemID(String systemID) {
+        checkNotFrozen();
         String reason = Verifier.checkSystemLiteral(systemID);
         if (reason != null) {
             throw new IllegalDataException(systemID, "EntityRef", reason);
@@ -0,0 +1,432 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index from the values of a {@link Document}'s {@link Attribute.Type#ID} attributes to the elements that carry
+ * them.  A document gets its index when an element with an ID attribute is first attached to it, which happens as
+ * {@link org.cdmckay.coffeedom.input.SAXBuilder} builds a document whose DTD declares IDs, or when the document is
+ * first asked for an element by ID.  From then on every change to the document's content, to the attributes of its
+ * elements and to the value or type of those attributes keeps the index up to date.
+ *
+ * @author Cameron McKay
+ */
+final class IdIndex {
+
+    private final Document document;
+
+    /**
+     * The element carrying each ID, or a {@link SharedId} for an ID found in content shared with a frozen element
+     */
+    private final Map<String, Object> elements = new HashMap<String, Object>();
+
+    /**
+     * Number of {@link SharedId} entries in {@link #elements}.  Their paths are only valid until the document changes,
+     * so while there are any, a change makes the index stale instead of updating it.
+     */
+    private int sharedIds;
+
+    /**
+     * Set when two elements were given the same ID, in which case only one of them is in {@link #elements}.
+     */
+    private boolean duplicates;
+
+    /**
+     * Set when an ID that may be shared was removed, so the index has to be rebuilt before it is used.
+     */
+    private boolean stale;
+
+    /**
+     * Set once the document is frozen, after which the index never changes and is read without locking.
+     */
+    private boolean frozen;
+
+    /**
+     * Creates an index of every ID in the document.
+     *
+     * @param document the document to index
+     */
+    IdIndex(Document document) {
+        this.document = document;
+        scan();
+        frozen = document.isFrozen();
+    }
+
+    /**
+     * Brings the index up to date for good, as the document is being frozen.
+     */
+    synchronized void freeze() {
+        if (stale) {
+            rescan();
+        }
+        frozen = true;
+    }
+
+    /**
+     * Called by a content list after it gained the given child.
+     *
+     * @param tracker the document tracking the content list, or null
+     * @param parent  the parent of the content list
+     * @param child   the child that was added
+     */
+    static void attached(Document tracker, Parent parent, Content child) {
+        if (!(child instanceof Element)) {
+            return;
+        }
+        Element element = (Element) child;
+        if (tracker != null && tracker.idIndex != null) {
+            tracker.idIndex.addSubtree(element);
+            return;
+        }
+        if (hasId(element)) {
+            Document document = parent.getDocument();
+            if (document != null) {
+                document.getIdIndex();
+            }
+        }
+    }
+
+    /**
+     * Called by a content list of a tracking document after it lost the given child.
+     *
+     * @param tracker the document tracking the content list
+     * @param child   the child that was removed
+     */
+    static void detached(Document tracker, Content child) {
+        if (child instanceof Element && tracker.idIndex != null) {
+            tracker.idIndex.removeSubtree((Element) child);
+        }
+    }
+
+    /**
+     * Called by an attribute list after the given attribute was added to it.
+     *
+     * @param element   the element owning the attribute list
+     * @param attribute the attribute that was added
+     */
+    static void attributeAdded(Element element, Attribute attribute) {
+        if (attribute.type == Attribute.Type.ID) {
+            idAdded(element, attribute.value);
+        }
+    }
+
+    /**
+     * Called by an attribute list after the given attribute was removed from it.
+     *
+     * @param element   the element that owned the attribute
+     * @param attribute the attribute that was removed
+     */
+    static void attributeRemoved(Element element, Attribute attribute) {
+        if (attribute.type == Attribute.Type.ID) {
+            idRemoved(element, attribute.value);
+        }
+    }
+
+    /**
+     * Called when an element attached somewhere gained an ID.
+     *
+     * @param element the element
+     * @param id      the ID
+     */
+    static void idAdded(Element element, String id) {
+        Document document = ContentList.trackerOf(element.parent);
+        if (document != null && document.idIndex != null) {
+            document.idIndex.add(id, element);
+            return;
+        }
+        // Only a document without an index walks up, to create its index
+        document = element.getDocument();
+        if (document != null) {
+            document.getIdIndex();
+        }
+    }
+
+    /**
+     * Called when an element attached somewhere lost an ID.
+     *
+     * @param element the element
+     * @param id      the ID
+     */
+    static void idRemoved(Element element, String id) {
+        Document document = ContentList.trackerOf(element.parent);
+        if (document != null && document.idIndex != null) {
+            document.idIndex.remove(id, element);
+        }
+    }
+
+    /**
+     * Returns the element with the given ID.
+     *
+     * @param id the ID to look for
+     * @return the element, or null if no element in the document has that ID
+     */
+    Element get(String id) {
+        if (frozen) {
+            return (Element) elements.get(id);
+        }
+        synchronized (this) {
+            if (stale) {
+                rescan();
+            }
+            Object found = elements.get(id);
+            if (found instanceof SharedId) {
+                // Hand out the clone's own element, copying only the shared content on the way to it
+                Element element = ((SharedId) found).resolve();
+                elements.put(id, element);
+                sharedIds--;
+                return element;
+            }
+            return (Element) found;
+        }
+    }
+
+    private void rescan() {
+        elements.clear();
+        sharedIds = 0;
+        duplicates = false;
+        stale = false;
+        scan();
+    }
+
+    private void scan() {
+        walk(document.contents, true);
+    }
+
+    /**
+     * An ID carried by an element of a frozen tree whose content a clone in this document still shares.  The element
+     * of the frozen tree stands for the element of the clone at the same position, which is only made when it is
+     * looked up.
+     */
+    private static final class SharedId {
+
+        /**
+         * The element of the document whose content was shared when the ID was found
+         */
+        final Element owner;
+
+        /**
+         * The frozen element that {@link #owner} shared its content with
+         */
+        final Element root;
+
+        /**
+         * The element below {@link #root} that carries the ID
+         */
+        final Element source;
+
+        SharedId(Element owner, Element root, Element source) {
+            this.owner = owner;
+            this.root = root;
+            this.source = source;
+        }
+
+        /**
+         * Returns the element of the document at the position of {@link #source} below {@link #owner}.
+         *
+         * @return the element carrying the ID
+         */
+        Element resolve() {
+            List<Integer> steps = new ArrayList<Integer>();
+            Element element = source;
+            while (element != root) {
+                Element parent = (Element) element.getParent();
+                steps.add(parent.indexOf(element));
+                element = parent;
+            }
+            element = owner;
+            for (int i = steps.size() - 1; i >= 0; i--) {
+                element = (Element) element.peekContents().get(steps.get(i));
+            }
+            return element;
+        }
+    }
+
+    private synchronized void addSubtree(Element element) {
+        if (sharedIds > 0) {
+            stale = true;
+            return;
+        }
+        List<Content> top = new ArrayList<Content>(1);
+        top.add(element);
+        walk(top, true);
+    }
+
+    private synchronized void removeSubtree(Element element) {
+        if (sharedIds > 0) {
+            stale = true;
+            return;
+        }
+        List<Content> top = new ArrayList<Content>(1);
+        top.add(element);
+        walk(top, false);
+    }
+
+    /**
+     * Adds or removes the IDs of the given elements and of the elements below them.  Content that a clone of a frozen
+     * element still shares is read without copying it, and its IDs are recorded as {@link SharedId} entries.
+     *
+     * @param top the content to walk
+     * @param add true to add the IDs, false to remove them
+     */
+    private void walk(List<Content> top, boolean add) {
+        // Each pending element with the clone its content was reached through and the frozen element that clone shares
+        List<Element> pending = new ArrayList<Element>();
+        List<Element> owners = new ArrayList<Element>();
+        List<Element> roots = new ArrayList<Element>();
+        for (int i = top.size() - 1; i >= 0; i--) {
+            if (top.get(i) instanceof Element) {
+                pending.add((Element) top.get(i));
+                owners.add(null);
+                roots.add(null);
+            }
+        }
+        while (!pending.isEmpty()) {
+            int last = pending.size() - 1;
+            Element element = pending.remove(last);
+            Element owner = owners.remove(last);
+            Element root = roots.remove(last);
+
+            AttributeList attributes = element.readAttributes();
+            if (attributes != null) {
+                for (int i = 0, size = attributes.size(); i < size; i++) {
+                    Attribute attribute = attributes.get(i);
+                    if (attribute.type == Attribute.Type.ID) {
+                        if (owner == null) {
+                            if (add) {
+                                add(attribute.value, element);
+                            } else {
+                                remove(attribute.value, element);
+                            }
+                        } else if (add) {
+                            addShared(attribute.value, new SharedId(owner, root, element));
+                        } else {
+                            remove(attribute.value, element);
+                        }
+                    }
+                }
+            }
+
+            ContentList children = element.readContents();
+            if (owner == null) {
+                Element source = element.sharedSource();
+                if (source != null) {
+                    owner = element;
+                    root = source;
+                    children = source.readContents();
+                }
+            }
+            if (children != null) {
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    Content child = children.get(i);
+                    if (child instanceof Element) {
+                        pending.add((Element) child);
+                        owners.add(owner);
+                        roots.add(root);
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized void add(String id, Element element) {
+        Object old = elements.get(id);
+        if (old == null) {
+            elements.put(id, element);
+        } else if (old != element) {
+            duplicates = true;
+        }
+    }
+
+    private void addShared(String id, SharedId shared) {
+        if (elements.get(id) == null) {
+            elements.put(id, shared);
+            sharedIds++;
+        } else {
+            duplicates = true;
+        }
+    }
+
+    private synchronized void remove(String id, Element element) {
+        Object old = elements.get(id);
+        if (old == element || old instanceof SharedId && ((SharedId) old).source == element) {
+            elements.remove(id);
+            if (old instanceof SharedId) {
+                sharedIds--;
+            }
+        } else if (old instanceof SharedId) {
+            // The element may be the copy of a shared one
+            stale = true;
+        }
+        if (duplicates) {
+            stale = true;
+        }
+    }
+
+    private static boolean hasId(Element element) {
+        AttributeList attributes = element.readAttributes();
+        if (attributes != null) {
+            for (int i = 0, size = attributes.size(); i < size; i++) {
+                if (attributes.get(i).type == Attribute.Type.ID) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,253 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe record of the names the {@link Verifier} has already found legal. Documents are usually built
+ * from a small vocabulary, so checking element names, attribute names and namespace prefixes character by character
+ * every time one is used repeats the same work over and over. Once a name has passed a check, later checks of an equal
+ * name for the same use are answered from the cache.
+ * <p/>
+ * Only legal names are remembered, and the cache stops growing once it holds its maximum number of names. The
+ * cache in use is set through {@link Verifier#setNameCache(NameCache)}.  Hits and misses are only counted by a cache
+ * created to record them, since every thread checking names would otherwise update the same two counters.
+ *
+ * @author Cameron McKay
+ */
+public final class NameCache {
+
+    /**
+     * The maximum number of names held by a cache created with the default constructor
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * Flags for the uses a name has been verified for
+     */
+    static final int ELEMENT = 0x01;
+    static final int ATTRIBUTE = 0x02;
+    static final int PREFIX = 0x04;
+
+    /**
+     * The verified names, mapped to the uses they were verified for
+     */
+    private final ConcurrentHashMap<String, Integer> names = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * The maximum number of names in the cache
+     */
+    private final int maxSize;
+
+    /**
+     * Lookup statistics, or null if this cache does not record them
+     */
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_SIZE} names, which does not record statistics.
+     */
+    public NameCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache holding at most the given number of names, which does not record statistics.
+     *
+     * @param maxSize maximum number of names
+     * @throws IllegalArgumentException if <code>maxSize</code> is negative
+     */
+    public NameCache(int maxSize) {
+        this(maxSize, false);
+    }
+
+    /**
+     * Creates a cache holding at most the given number of names.
+     *
+     * @param maxSize          maximum number of names
+     * @param recordStatistics true to count hits and misses
+     * @throws IllegalArgumentException if <code>maxSize</code> is negative
+     */
+    public NameCache(int maxSize, boolean recordStatistics) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        hits = recordStatistics ? new AtomicLong() : null;
+        misses = recordStatistics ? new AtomicLong() : null;
+    }
+
+    /**
+     * Returns whether the name has already been verified for the given use, counting the lookup as a hit or a miss if
+     * this cache records statistics.
+     *
+     * @param name the name to look up
+     * @param use  one of {@link #ELEMENT}, {@link #ATTRIBUTE} or {@link #PREFIX}
+     * @return true if the name is known to be legal
+     */
+    boolean contains(String name, int use) {
+        Integer uses = names.get(name);
+        if (uses != null && (uses & use) != 0) {
+            if (hits != null) {
+                hits.incrementAndGet();
+            }
+            return true;
+        }
+        if (misses != null) {
+            misses.incrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * Records that the name is legal for the given use, unless the cache is full.
+     *
+     * @param name the verified name
+     * @param use  one of {@link #ELEMENT}, {@link #ATTRIBUTE} or {@link #PREFIX}
+     */
+    void add(String name, int use) {
+        while (true) {
+            Integer uses = names.get(name);
+            if (uses == null) {
+                if (names.size() >= maxSize || names.putIfAbsent(name, use) == null) {
+                    return;
+                }
+            } else if ((uses & use) != 0 || names.replace(name, uses, uses | use)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all names from the cache and resets its statistics.
+     */
+    public void clear() {
+        names.clear();
+        if (hits != null) {
+            hits.set(0);
+            misses.set(0);
+        }
+    }
+
+    /**
+     * Returns the number of names in this cache.
+     *
+     * @return number of names
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Returns the maximum number of names this cache holds.
+     *
+     * @return maximum number of names
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns whether this cache counts hits and misses.
+     *
+     * @return true if this cache records statistics
+     */
+    public boolean isRecordingStatistics() {
+        return hits != null;
+    }
+
+    /**
+     * Returns the number of checks answered from this cache.
+     *
+     * @return number of hits, or 0 if this cache does not record statistics
+     */
+    public long getHitCount() {
+        return hits == null ? 0 : hits.get();
+    }
+
+    /**
+     * Returns the number of checks that had to scan the name.
+     *
+     * @return number of misses, or 0 if this cache does not record statistics
+     */
+    public long getMissCount() {
+        return misses == null ? 0 : misses.get();
+    }
+
+    /**
+     * Returns the fraction of checks answered from this cache, or 0 if nothing has been checked or this cache does not
+     * record statistics.
+     *
+     * @return hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * This returns a <code>String</code> representation of this <code>NameCache</code>, suitable for use in debugging.
+     *
+     * @return <code>String</code> - information about this instance.
+     */
+    @Override
+    public String toString() {
+        return "[NameCache: size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount() + ", misses=" +
+                getMissCount() + "]";
+    }
+}
@@ -54,7 +54,11 @@
 
 package org.cdmckay.coffeedom;
 
-import java.util.HashMap;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An XML namespace representation, as well as a factory for creating XML namespace objects. Namespaces are not
@@ -70,13 +74,17 @@ import java.util.HashMap;
  */
 public final class Namespace {
 
-    // XXX May want to use weak references to keep the maps from growing 
-    // large with extended use
+    /**
+     * Factory list of namespaces. Keys are URIs. Values are chains of weak references to the Namespace objects for
+     * each prefix mapped to that URI, so a lookup never allocates and a Namespace no longer referenced elsewhere can be
+     * collected.  Chains are immutable and replaced atomically.
+     */
+    private static final ConcurrentHashMap<String, NamespaceReference> namespaces;
 
     /**
-     * Factory list of namespaces. Keys are <i>prefix</i>&amp;<i>URI</i>. Values are Namespace objects
+     * Queue of references to collected namespaces, whose chain entries are pruned on the next store
      */
-    private static final HashMap<NamespaceKey, Namespace> namespaces;
+    private static final ReferenceQueue<Namespace> collected = new ReferenceQueue<Namespace>();
 
     /**
      * Define a <code>Namespace</code> for when <i>not</i> in a namespace
@@ -91,23 +99,23 @@ public final class Namespace {
     /**
      * The prefix mapped to this namespace
      */
-    private String prefix;
+    private final String prefix;
 
     /**
      * The URI for this namespace
      */
-    private String uri;
+    private final String uri;
 
     /**
      * This static initializer acts as a factory contructor.
      * It sets up storage and required initial values.
      */
     static {
-        namespaces = new HashMap<NamespaceKey, Namespace>(16);
+        namespaces = new ConcurrentHashMap<String, NamespaceReference>(16);
 
         // Add the "empty" namespace
-        namespaces.put(new NamespaceKey(NO_NAMESPACE), NO_NAMESPACE);
-        namespaces.put(new NamespaceKey(XML_NAMESPACE), XML_NAMESPACE);
+        intern(NO_NAMESPACE);
+        intern(XML_NAMESPACE);
     }
 
     /**
@@ -135,11 +143,7 @@ public final class Namespace {
         // should all be legal. In other words, an illegal namespace won't
         // have been placed in this.  Thus we can do this test before
         // verifying the URI and prefix.
-        NamespaceKey lookup = new NamespaceKey(prefix, uri);
-        Namespace preexisting;
-        synchronized (namespaces) {
-            preexisting = namespaces.get(lookup);
-        }
+        Namespace preexisting = lookup(namespaces.get(uri), prefix);
         if (preexisting != null) {
             return preexisting;
         }
@@ -177,11 +181,107 @@ public final class Namespace {
         }
 
         // Finally, store and return
-        Namespace ns = new Namespace(prefix, uri);
-        synchronized (namespaces) {
-            namespaces.put(lookup, ns);
+        return intern(new Namespace(prefix, uri));
+    }
+
+    /**
+     * Returns the namespace with the given prefix in a reference chain, or null if there is none or it was collected.
+     *
+     * @param chain  chain of references for one URI, may be null
+     * @param prefix prefix to look for
+     * @return the namespace, or null
+     */
+    private static Namespace lookup(NamespaceReference chain, String prefix) {
+        for (NamespaceReference ref = chain; ref != null; ref = ref.next) {
+            if (ref.prefix.equals(prefix)) {
+                Namespace ns = ref.get();
+                if (ns != null) {
+                    return ns;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a namespace in the factory list, unless another thread stored one with the same prefix and URI first.
+     *
+     * @param ns the new namespace
+     * @return the namespace now stored for its prefix and URI
+     */
+    private static Namespace intern(Namespace ns) {
+        purgeCollected();
+
+        while (true) {
+            NamespaceReference chain = namespaces.get(ns.uri);
+            Namespace preexisting = lookup(chain, ns.prefix);
+            if (preexisting != null) {
+                return preexisting;
+            }
+
+            // Collected entries are left to purgeCollected(), so storing never copies the chain
+            NamespaceReference ref = new NamespaceReference(ns, chain);
+            if (chain == null ? namespaces.putIfAbsent(ns.uri, ref) == null : namespaces.replace(ns.uri, chain, ref)) {
+                return ns;
+            }
+        }
+    }
+
+    /**
+     * Removes the chain entries of namespaces that have been collected.
+     */
+    private static void purgeCollected() {
+        NamespaceReference dead;
+        while ((dead = (NamespaceReference) collected.poll()) != null) {
+            while (true) {
+                NamespaceReference chain = namespaces.get(dead.uri);
+                if (chain == null) {
+                    break;
+                }
+                NamespaceReference pruned = prune(chain, dead);
+                if (pruned == chain) {
+                    break;
+                }
+                if (pruned == null ? namespaces.remove(dead.uri, chain) : namespaces.replace(dead.uri, chain, pruned)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a chain without the given reference and without references to collected namespaces. The original chain
+     * is returned when there is nothing to remove.
+     *
+     * @param chain  chain to prune, may be null
+     * @param remove reference to remove, may be null
+     * @return the pruned chain, possibly null
+     */
+    private static NamespaceReference prune(NamespaceReference chain, NamespaceReference remove) {
+        // The references after the last one to drop are kept as they are
+        NamespaceReference lastDropped = null;
+        for (NamespaceReference ref = chain; ref != null; ref = ref.next) {
+            if (ref == remove || ref.get() == null) {
+                lastDropped = ref;
+            }
+        }
+        if (lastDropped == null) {
+            return chain;
         }
-        return ns;
+
+        // and the live ones before it are copied onto them, in the same order
+        final List<Namespace> kept = new ArrayList<Namespace>();
+        for (NamespaceReference ref = chain; ref != lastDropped; ref = ref.next) {
+            Namespace ns = ref.get();
+            if (ref != remove && ns != null) {
+                kept.add(ns);
+            }
+        }
+        NamespaceReference pruned = lastDropped.next;
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            pruned = new NamespaceReference(kept.get(i), pruned);
+        }
+        return pruned;
     }
 
     /**
@@ -263,4 +363,22 @@ public final class Namespace {
     public int hashCode() {
         return uri.hashCode();
     }
+
+    /**
+     * A weak reference to an interned namespace, linked to the references for the other prefixes of the same URI.
+     */
+    private static final class NamespaceReference
+            extends WeakReference<Namespace> {
+
+        final String prefix;
+        final String uri;
+        final NamespaceReference next;
+
+        NamespaceReference(Namespace namespace, NamespaceReference next) {
+            super(namespace, collected);
+            this.prefix = namespace.prefix;
+            this.uri = namespace.uri;
+            this.next = next;
+        }
+    }
 }
@@ -199,6 +199,26 @@ public interface Parent
      */
     Iterable<Content> getDescendants(Filter filter);
 
+    /**
+     * Returns an {@link java.lang.Iterable} that walks over descendants in document order, visiting only the children of
+     * elements that match the <code>descend</code> filter and returning only the descendants that match the
+     * <code>emit</code> filter.
+     *
+     * @param descend filter to select the elements whose children are visited
+     * @param emit    filter to select which descendants to see
+     * @return an iterable to walk the selected descendants
+     */
+    Iterable<Content> getDescendants(Filter descend, Filter emit);
+
+    /**
+     * Splits the descendants into at most <code>count</code> runs of whole subtrees, in document order, that can be
+     * walked by separate threads while the tree is not being modified.
+     *
+     * @param count maximum number of runs
+     * @return the runs of descendants, in document order
+     */
+    List<Iterable<Content>> splitDescendants(int count);
+
     /**
      * Return this parent's parent, or null if this parent is currently not attached to another parent. This is the same
      * method as in Content but also added to Parent to allow more easy up-the-tree walking.
@@ -121,6 +121,7 @@ public class ProcessingInstruction
      * @return <code>ProcessingInstruction</code> - this PI modified.
      */
     public ProcessingInstruction setTarget(String newTarget) {
+        checkNotFrozen();
         String reason;
         if ((reason = Verifier.checkProcessingInstructionTarget(newTarget)) != null) {
             throw new IllegalTargetException(newTarget, reason);
@@ -183,6 +184,7 @@ public class ProcessingInstruction
      * @return <code>ProcessingInstruction</code> - this PI modified.
      */
     public ProcessingInstruction setData(String data) {
+        checkNotFrozen();
         String reason = Verifier.checkProcessingInstructionData(data);
         if (reason != null) {
             throw new IllegalDataException(data, reason);
@@ -201,6 +203,7 @@ public class ProcessingInstruction
      * @return <code>ProcessingInstruction</code> - modified PI.
      */
     public ProcessingInstruction setData(Map<String, String> data) {
+        checkNotFrozen();
         String temp = toString(data);
 
         String reason = Verifier.checkProcessingInstructionData(temp);
@@ -234,6 +237,7 @@ public class ProcessingInstruction
      * @return <code>ProcessingInstruction</code> this PI modified.
      */
     public ProcessingInstruction setPseudoAttribute(String name, String value) {
+        checkNotFrozen();
         String reason = Verifier.checkProcessingInstructionData(name);
         if (reason != null) {
             throw new IllegalDataException(name, reason);
@@ -257,6 +261,7 @@ public class ProcessingInstruction
      * @return <code>boolean</code> - whether the requested instruction was removed.
      */
     public boolean removePseudoAttribute(String name) {
+        checkNotFrozen();
         if ((mapData.remove(name)) != null) {
             rawData = toString(mapData);
             return true;
@@ -0,0 +1,823 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The serialized form of the tree holding a document, an element or any node attached to one.  Their
+ * <code>writeReplace()</code> methods put a {@link Node} in their place, which refers to the tree and holds the number
+ * of the node in the order the tree was written.  The tree is written as a flat stream of node tags, with tables for
+ * names and namespaces so that each is written once; reading it back builds the tree, and each node resolves to the node
+ * with its number.  Neither writing nor reading recurses, so trees of any depth can be serialized, where the default
+ * form needed a few stack frames per level.
+ * <p/>
+ * Every node of a tree written to a stream refers to the same tree object, which the stream writes once and then
+ * refers back to, so nodes of one tree serialized separately are read back into one tree, and a document read back is
+ * the document of its elements read back.  As with any object written twice to a stream, a node already written with
+ * the tree reads back as it was then, whatever changed since.  A node added to the tree since is written with a new
+ * copy of the tree in its current state.
+ * <p/>
+ * Trees holding a subclass of any of the CoffeeDOM node classes keep the default form, which is the only one that can
+ * restore the subclasses.  Whether a tree holds one is checked when its first node is replaced, not for every node.
+ *
+ * @author Cameron McKay
+ */
+final class SerialTree
+        implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+    private static final int ELEMENT = 1;
+    private static final int TEXT = 2;
+    private static final int CDATA = 3;
+    private static final int COMMENT = 4;
+    private static final int PROCESSING_INSTRUCTION = 5;
+    private static final int ENTITY_REF = 6;
+    private static final int DOCTYPE = 7;
+
+    private static final int NULL_STRING = 0;
+    private static final int LITERAL_STRING = 1;
+    private static final int FIRST_STRING_REFERENCE = 2;
+
+    /**
+     * Strings are written in pieces of at most this many characters, which writeUTF can always encode
+     */
+    private static final int CHUNK_LENGTH = 16 * 1024;
+
+    private static final Attribute.Type[] TYPES = Attribute.Type.values();
+
+    /**
+     * The tree last handed out for each top on this thread, so that every node of a tree written to a stream refers to
+     * the same tree.  The trees are held weakly, as a stream holds on to every object it wrote until it is reset.
+     */
+    private static final ThreadLocal<Map<Parent, WeakReference<SerialTree>>> trees =
+            new ThreadLocal<Map<Parent, WeakReference<SerialTree>>>() {
+                @Override
+                protected Map<Parent, WeakReference<SerialTree>> initialValue() {
+                    return new WeakHashMap<Parent, WeakReference<SerialTree>>();
+                }
+            };
+
+    /**
+     * Stands in {@link #trees} for a tree holding a subclass, which keeps the default form
+     */
+    private static final WeakReference<SerialTree> DEFAULT_FORM = new WeakReference<SerialTree>(null);
+
+    /**
+     * The top of the tree being written in the default form by {@link #writeObject(ObjectOutputStream)} on this
+     * thread, whose nodes are not replaced
+     */
+    private static final ThreadLocal<Parent> defaultFormTop = new ThreadLocal<Parent>();
+
+    /**
+     * The top of the tree: a document or an element without a parent
+     */
+    private transient Parent top;
+
+    /**
+     * The number of each node in the order this tree was last written to each stream, so that its nodes written later
+     * to the same stream resolve to the nodes it wrote
+     */
+    private transient Map<ObjectOutputStream, Map<Object, Integer>> numbers;
+
+    /**
+     * The nodes of the tree read back, in the order they were written, listed when the first node resolves
+     */
+    private transient List<Object> nodes;
+
+    private SerialTree(Parent top) {
+        this.top = top;
+    }
+
+    /**
+     * Returns the object to serialize in place of the given node.
+     *
+     * @param node a document, content or attribute
+     * @return the serialized form of the node, or the node itself if it is kept in the default form
+     */
+    static Object replace(Object node) {
+        final Parent top = topOf(node);
+        if (top == null || top == defaultFormTop.get()) {
+            return node;
+        }
+        final SerialTree tree = treeOf(top);
+        return tree == null ? node : new Node(tree, node);
+    }
+
+    /**
+     * Returns the top of the tree holding the given node.
+     *
+     * @param node a document, content or attribute
+     * @return the document or the element without a parent at the top of the tree, or null if the node is a detached
+     *         attribute or a detached node other than an element
+     */
+    private static Parent topOf(Object node) {
+        if (node instanceof Document) {
+            return (Document) node;
+        }
+        Content content;
+        if (node instanceof Attribute) {
+            content = ((Attribute) node).getParent();
+            if (content == null) {
+                return null;
+            }
+        } else {
+            content = (Content) node;
+            if (!(content instanceof Element) && content.getParent() == null) {
+                return null;
+            }
+        }
+        while (true) {
+            final Parent parent = content.getParent();
+            if (parent == null) {
+                return (Element) content;
+            }
+            if (parent instanceof Document) {
+                return parent;
+            }
+            content = (Element) parent;
+        }
+    }
+
+    /**
+     * Lists the nodes of a tree in the order they are numbered: each node before its attributes, and those before its
+     * children.  Content shared with a frozen element is listed in place of the clone's own, as it is written.
+     *
+     * @param top the top of the tree
+     * @return the top and every node below it
+     */
+    private static List<Object> nodesOf(Parent top) {
+        final List<Object> nodes = new ArrayList<Object>();
+        final List<Object> pending = new ArrayList<Object>();
+        pending.add(top);
+        while (!pending.isEmpty()) {
+            final Object node = pending.remove(pending.size() - 1);
+            nodes.add(node);
+            final List<Content> children;
+            if (node instanceof Element) {
+                final Element element = (Element) node;
+                final AttributeList attributes = element.readAttributes();
+                if (attributes != null) {
+                    for (int i = 0; i < attributes.size(); i++) {
+                        nodes.add(attributes.get(i));
+                    }
+                }
+                children = element.readContents();
+            } else if (node instanceof Document) {
+                children = ((Document) node).contents;
+            } else {
+                continue;
+            }
+            if (children != null) {
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.add(children.get(i));
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the numbers of the nodes as this tree was last written to a stream.
+     *
+     * @param out the stream
+     * @return the number of each node, or null if this tree was never written to the stream
+     */
+    private Map<Object, Integer> numbersIn(ObjectOutputStream out) {
+        return numbers == null ? null : numbers.get(out);
+    }
+
+    /**
+     * Replaces this tree with a new one for the same top, for nodes that were not in the tree when it was written.
+     *
+     * @return the new tree
+     */
+    private SerialTree renew() {
+        final SerialTree tree = new SerialTree(top);
+        trees.get().put(top, new WeakReference<SerialTree>(tree));
+        return tree;
+    }
+
+    /**
+     * Returns the tree to refer the nodes of a tree to, checking whether the tree holds a subclass the first time.
+     *
+     * @param top the top of the tree
+     * @return the serialized form of the tree, or null if the tree keeps the default form
+     */
+    private static SerialTree treeOf(Parent top) {
+        final Map<Parent, WeakReference<SerialTree>> map = trees.get();
+        final WeakReference<SerialTree> reference = map.get(top);
+        if (reference == DEFAULT_FORM) {
+            return null;
+        }
+        SerialTree tree = reference == null ? null : reference.get();
+        if (tree == null) {
+            if (!holdsOnlyNodeClasses(top)) {
+                map.put(top, DEFAULT_FORM);
+                return null;
+            }
+            tree = new SerialTree(top);
+            map.put(top, new WeakReference<SerialTree>(tree));
+        }
+        return tree;
+    }
+
+    /**
+     * Returns whether a tree is made of the CoffeeDOM node classes only.
+     *
+     * @param top the top of the tree
+     * @return true if the tree holds no subclass of a node class
+     */
+    private static boolean holdsOnlyNodeClasses(Parent top) {
+        final List<ContentList> lists = new ArrayList<ContentList>();
+        if (top.getClass() == Element.class) {
+            if (!hasStandardAttributes((Element) top)) {
+                return false;
+            }
+            lists.add(((Element) top).readContents());
+        } else if (top.getClass() == Document.class) {
+            lists.add(((Document) top).contents);
+        } else {
+            return false;
+        }
+        // Walks the content shared by clones of frozen elements without copying it
+        while (!lists.isEmpty()) {
+            final ContentList list = lists.remove(lists.size() - 1);
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size(); i++) {
+                final Content content = list.get(i);
+                final Class<?> type = content.getClass();
+                if (type == Element.class) {
+                    if (!hasStandardAttributes((Element) content)) {
+                        return false;
+                    }
+                    lists.add(((Element) content).readContents());
+                } else if (type != Text.class && type != CDATA.class && type != Comment.class
+                        && type != ProcessingInstruction.class && type != EntityRef.class && type != DocType.class) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasStandardAttributes(Element element) {
+        final AttributeList attributes = element.readAttributes();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.size(); i++) {
+                if (attributes.get(i).getClass() != Attribute.class) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeByte(VERSION);
+
+        // Numbered before anything is written, as the document properties may hold nodes of this tree
+        final List<Object> written = nodesOf(top);
+        final Map<Object, Integer> numbered = new IdentityHashMap<Object, Integer>(written.size() * 4 / 3 + 1);
+        for (int i = 0; i < written.size(); i++) {
+            numbered.put(written.get(i), i);
+        }
+        if (numbers == null) {
+            numbers = new WeakHashMap<ObjectOutputStream, Map<Object, Integer>>();
+        }
+        numbers.put(out, numbered);
+
+        // A tree reused from an earlier stream may have gained a subclass since its nodes were first replaced.  This
+        // stream would write back the replaced nodes in place of the tree's own, so the default form goes through a
+        // stream of its own.
+        final boolean flat = holdsOnlyNodeClasses(top);
+        out.writeBoolean(flat);
+        if (!flat) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream defaultForm = new ObjectOutputStream(bytes);
+            final Parent previous = defaultFormTop.get();
+            defaultFormTop.set(top);
+            try {
+                defaultForm.writeObject(top);
+                defaultForm.close();
+            } finally {
+                defaultFormTop.set(previous);
+            }
+            out.writeObject(bytes.toByteArray());
+            return;
+        }
+
+        final Encoder encoder = new Encoder(out);
+        final List<Content> topContents;
+        if (top instanceof Document) {
+            final Document document = (Document) top;
+            out.writeBoolean(true);
+            encoder.writeString(document.getBaseURI(), false);
+            out.writeObject(document.propertyMap);
+            topContents = document.getContents();
+        } else {
+            out.writeBoolean(false);
+            topContents = Collections.<Content>singletonList((Element) top);
+        }
+        encoder.writeNodes(topContents);
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final int version = in.readByte();
+        if (version != VERSION) {
+            throw new InvalidObjectException("Unsupported serialized tree version " + version);
+        }
+
+        if (!in.readBoolean()) {
+            final byte[] bytes = (byte[]) in.readObject();
+            top = (Parent) new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+            return;
+        }
+
+        final Decoder decoder = new Decoder(in);
+        if (in.readBoolean()) {
+            final Document document = new Document();
+            document.baseURI = decoder.readString(false);
+            document.propertyMap = (Map<String, Object>) in.readObject();
+            decoder.readNodes(document);
+            top = document;
+        } else {
+            top = (Element) decoder.readNodes(null);
+        }
+    }
+
+    /**
+     * A node of a tree, serialized as its number in the order the tree was written.
+     */
+    private static final class Node
+            implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient SerialTree tree;
+
+        /**
+         * The node being written
+         */
+        private transient Object node;
+
+        /**
+         * The number of the node read back
+         */
+        private transient int number;
+
+        Node(SerialTree tree, Object node) {
+            this.tree = tree;
+            this.node = node;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            Map<Object, Integer> numbered = tree.numbersIn(out);
+            if (numbered != null && !numbered.containsKey(node)) {
+                // The stream would only refer back to the tree it wrote, which does not hold this node
+                tree = tree.renew();
+            }
+            out.writeObject(tree);
+            numbered = tree.numbersIn(out);
+            final Integer written = numbered.get(node);
+            if (written == null) {
+                throw new InvalidObjectException("Serialized tree does not hold the node");
+            }
+            out.writeInt(written);
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            tree = (SerialTree) in.readObject();
+            number = in.readInt();
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            if (tree.top == null) {
+                // Only a node held by the properties of its own document gets here
+                throw new InvalidObjectException("Serialized node refers to a tree that is still being read");
+            }
+            if (tree.nodes == null) {
+                tree.nodes = nodesOf(tree.top);
+            }
+            if (number < 0 || number >= tree.nodes.size()) {
+                throw new InvalidObjectException("Serialized tree has no node numbered " + number);
+            }
+            return tree.nodes.get(number);
+        }
+    }
+
+    /**
+     * Writes nodes with the name and namespace tables of one tree.
+     */
+    private static final class Encoder {
+
+        private final ObjectOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+        private final Map<Namespace, Integer> namespaces = new IdentityHashMap<Namespace, Integer>();
+
+        Encoder(ObjectOutputStream out) {
+            this.out = out;
+            namespaces.put(Namespace.NO_NAMESPACE, 0);
+            namespaces.put(Namespace.XML_NAMESPACE, 1);
+        }
+
+        /**
+         * Writes the given nodes and everything below them, followed by an end tag.
+         *
+         * @param top the nodes to write
+         * @throws IOException if the stream cannot be written to
+         */
+        void writeNodes(List<Content> top) throws IOException {
+            final List<List<Content>> lists = new ArrayList<List<Content>>();
+            int[] positions = new int[16];
+            lists.add(top);
+            while (!lists.isEmpty()) {
+                final int depth = lists.size() - 1;
+                final List<Content> list = lists.get(depth);
+                final int index = positions[depth];
+                if (index == list.size()) {
+                    lists.remove(depth);
+                    out.writeByte(END);
+                    continue;
+                }
+                positions[depth] = index + 1;
+
+                final Content content = list.get(index);
+                if (content instanceof Element) {
+                    final Element element = (Element) content;
+                    writeElement(element);
+                    final ContentList children = element.readContents();
+                    if (children == null || children.size() == 0) {
+                        out.writeByte(END);
+                    } else {
+                        if (depth + 1 == positions.length) {
+                            final int[] grown = new int[positions.length * 2];
+                            System.arraycopy(positions, 0, grown, 0, positions.length);
+                            positions = grown;
+                        }
+                        lists.add(children);
+                        positions[depth + 1] = 0;
+                    }
+                } else {
+                    writeLeaf(content);
+                }
+            }
+        }
+
+        private void writeElement(Element element) throws IOException {
+            out.writeByte(ELEMENT);
+            writeString(element.getName(), true);
+            writeNamespace(element.getNamespace());
+
+            final List<Namespace> additional = element.getAdditionalNamespaces();
+            writeNumber(additional.size());
+            for (int i = 0; i < additional.size(); i++) {
+                writeNamespace(additional.get(i));
+            }
+
+            final AttributeList attributes = element.readAttributes();
+            if (attributes == null) {
+                writeNumber(0);
+                return;
+            }
+            writeNumber(attributes.size());
+            for (int i = 0; i < attributes.size(); i++) {
+                final Attribute attribute = attributes.get(i);
+                writeString(attribute.getName(), true);
+                writeNamespace(attribute.getNamespace());
+                out.writeByte(attribute.getAttributeType().ordinal());
+                writeString(attribute.getValue(), true);
+            }
+        }
+
+        private void writeLeaf(Content content) throws IOException {
+            // CDATA extends Text, so it has to be checked first
+            if (content instanceof CDATA) {
+                out.writeByte(CDATA);
+                writeString(((CDATA) content).getText(), false);
+            } else if (content instanceof Text) {
+                out.writeByte(TEXT);
+                writeString(((Text) content).getText(), false);
+            } else if (content instanceof Comment) {
+                out.writeByte(COMMENT);
+                writeString(((Comment) content).getText(), false);
+            } else if (content instanceof ProcessingInstruction) {
+                final ProcessingInstruction pi = (ProcessingInstruction) content;
+                out.writeByte(PROCESSING_INSTRUCTION);
+                writeString(pi.getTarget(), true);
+                writeString(pi.getData(), false);
+            } else if (content instanceof EntityRef) {
+                final EntityRef entityRef = (EntityRef) content;
+                out.writeByte(ENTITY_REF);
+                writeString(entityRef.getName(), true);
+                writeString(entityRef.getPublicID(), false);
+                writeString(entityRef.getSystemID(), false);
+            } else {
+                final DocType docType = (DocType) content;
+                out.writeByte(DOCTYPE);
+                writeString(docType.getElementName(), true);
+                writeString(docType.getPublicID(), false);
+                writeString(docType.getSystemID(), false);
+                writeString(docType.getInternalSubset(), false);
+            }
+        }
+
+        private void writeNamespace(Namespace namespace) throws IOException {
+            final Integer number = namespaces.get(namespace);
+            if (number != null) {
+                writeNumber(number);
+                return;
+            }
+            final int size = namespaces.size();
+            namespaces.put(namespace, size);
+            writeNumber(size);
+            writeString(namespace.getPrefix(), true);
+            writeString(namespace.getURI(), true);
+        }
+
+        void writeString(String s, boolean shared) throws IOException {
+            if (s == null) {
+                writeNumber(NULL_STRING);
+                return;
+            }
+            if (shared) {
+                final Integer number = strings.get(s);
+                if (number != null) {
+                    writeNumber(FIRST_STRING_REFERENCE + number);
+                    return;
+                }
+                strings.put(s, strings.size());
+            }
+            final int length = s.length();
+            writeNumber(LITERAL_STRING);
+            writeNumber(length);
+            if (length <= CHUNK_LENGTH) {
+                out.writeUTF(s);
+            } else {
+                for (int start = 0; start < length; start += CHUNK_LENGTH) {
+                    out.writeUTF(s.substring(start, Math.min(start + CHUNK_LENGTH, length)));
+                }
+            }
+        }
+
+        void writeNumber(int n) throws IOException {
+            while ((n & ~0x7F) != 0) {
+                out.writeByte(n | 0x80);
+                n >>>= 7;
+            }
+            out.writeByte(n);
+        }
+    }
+
+    /**
+     * Reads nodes with the name and namespace tables of one tree.
+     */
+    private static final class Decoder {
+
+        private final ObjectInputStream in;
+        private final List<String> strings = new ArrayList<String>();
+        private final List<Namespace> namespaces = new ArrayList<Namespace>();
+
+        Decoder(ObjectInputStream in) {
+            this.in = in;
+            namespaces.add(Namespace.NO_NAMESPACE);
+            namespaces.add(Namespace.XML_NAMESPACE);
+        }
+
+        /**
+         * Reads nodes up to the end tag that closes the given parent.
+         *
+         * @param parent the document to add the nodes to, or null to read a single element tree
+         * @return the first node read
+         * @throws IOException if the stream cannot be read or is malformed
+         */
+        Content readNodes(Parent parent) throws IOException {
+            final List<Parent> ancestors = new ArrayList<Parent>();
+            Content first = null;
+            while (true) {
+                final int tag = in.readUnsignedByte();
+                final Content content;
+                switch (tag) {
+                    case END:
+                        if (ancestors.isEmpty()) {
+                            return first;
+                        }
+                        parent = ancestors.remove(ancestors.size() - 1);
+                        continue;
+                    case ELEMENT:
+                        content = readElement();
+                        break;
+                    case TEXT:
+                        content = new Text();
+                        ((Text) content).value = readString(false);
+                        break;
+                    case CDATA:
+                        content = new CDATA();
+                        ((Text) content).value = readString(false);
+                        break;
+                    case COMMENT:
+                        content = new Comment();
+                        ((Comment) content).text = readString(false);
+                        break;
+                    case PROCESSING_INSTRUCTION:
+                        final String target = readString(true);
+                        content = new ProcessingInstruction(target, readString(false));
+                        break;
+                    case ENTITY_REF:
+                        final String name = readString(true);
+                        final String publicID = readString(false);
+                        content = new EntityRef(name, publicID, readString(false));
+                        break;
+                    case DOCTYPE:
+                        final String elementName = readString(true);
+                        final String docTypePublicID = readString(false);
+                        final DocType docType = new DocType(elementName, docTypePublicID, readString(false));
+                        docType.setInternalSubset(readString(false));
+                        content = docType;
+                        break;
+                    default:
+                        throw new InvalidObjectException("Unknown node tag " + tag);
+                }
+
+                if (parent instanceof Element) {
+                    ((Element) parent).getContentList().uncheckedAddContent(content);
+                } else if (parent != null) {
+                    ((Document) parent).contents.uncheckedAddContent(content);
+                } else if (first == null) {
+                    first = content;
+                }
+                if (content instanceof Element) {
+                    ancestors.add(parent);
+                    parent = (Element) content;
+                }
+            }
+        }
+
+        private Element readElement() throws IOException {
+            final Element element = new Element();
+            element.name = readString(true);
+            element.namespace = readNamespace();
+
+            int count = readNumber();
+            if (count > 0) {
+                element.additionalNamespaces = new ArrayList<Namespace>(count);
+                for (; count > 0; count--) {
+                    element.additionalNamespaces.add(readNamespace());
+                }
+            }
+
+            count = readNumber();
+            if (count > 0) {
+                final AttributeList attributes = element.getAttributeList();
+                attributes.ensureCapacity(count);
+                for (; count > 0; count--) {
+                    final Attribute attribute = new Attribute();
+                    attribute.name = readString(true);
+                    attribute.namespace = readNamespace();
+                    final int type = in.readUnsignedByte();
+                    if (type >= TYPES.length) {
+                        throw new InvalidObjectException("Unknown attribute type " + type);
+                    }
+                    attribute.type = TYPES[type];
+                    attribute.value = readString(true);
+                    attributes.uncheckedAddAttribute(attribute);
+                }
+            }
+            return element;
+        }
+
+        private Namespace readNamespace() throws IOException {
+            final int number = readNumber();
+            if (number < namespaces.size()) {
+                return namespaces.get(number);
+            }
+            if (number > namespaces.size()) {
+                throw new InvalidObjectException("Unknown namespace " + number);
+            }
+            final String prefix = readString(true);
+            final Namespace namespace = Namespace.getNamespace(prefix, readString(true));
+            namespaces.add(namespace);
+            return namespace;
+        }
+
+        String readString(boolean shared) throws IOException {
+            int number = readNumber();
+            if (number == NULL_STRING) {
+                return null;
+            }
+            if (number != LITERAL_STRING) {
+                number -= FIRST_STRING_REFERENCE;
+                if (number >= strings.size()) {
+                    throw new InvalidObjectException("Unknown string " + number);
+                }
+                return strings.get(number);
+            }
+
+            final int length = readNumber();
+            String s = in.readUTF();
+            if (s.length() < length) {
+                final StringBuilder builder = new StringBuilder(length).append(s);
+                while (builder.length() < length) {
+                    builder.append(in.readUTF());
+                }
+                s = builder.toString();
+            }
+            if (shared) {
+                strings.add(s);
+            }
+            return s;
+        }
+
+        int readNumber() throws IOException {
+            int n = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final int b = in.readUnsignedByte();
+                n |= (b & 0x7F) << shift;
+                if (b < 0x80) {
+                    if (n < 0) {
+                        break;
+                    }
+                    return n;
+                }
+            }
+            throw new InvalidObjectException("Malformed number");
+        }
+    }
+}
@@ -54,6 +54,9 @@
 
 package org.cdmckay.coffeedom;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
 /**
  * Character-based XML content. Provides a modular, parentable method of representing text. Text makes no guarantees
  * about the underlying textual representation of character data, but does expose that data as a Java String.
@@ -69,13 +72,21 @@ public class Text
     static final String EMPTY_STRING = "";
 
     /**
-     * The actual character content
+     * The actual character content.  While fragments appended with {@link #append(String)} are pending this is out of
+     * date; subclasses should read it through {@link #getText()}.
      */
     // XXX See http://www.servlets.com/archive/servlet/ReadMsg?msgId=8612
     // from elharo for a description of why Java characters may not suffice
     // long term.
     protected String value;
 
+    /**
+     * The whole character content once a second fragment has been appended, or null.  Appending to this buffer keeps
+     * building a large node from many fragments linear; it is turned back into <code>value</code> when the node is
+     * frozen.  Reads never change either field, so that threads reading the same node cannot race.
+     */
+    private transient StringBuilder buffer;
+
     /**
      * This is the protected, no-args constructor standard in all CoffeeDOM classes. It allows subclassers to get a raw
      * instance with no initialization.
@@ -100,7 +111,17 @@ public class Text
      * @return <code>String</code> - character content of this node.
      */
     public String getText() {
-        return value;
+        final StringBuilder pending = buffer;
+        return pending != null ? pending.toString() : value;
+    }
+
+    @Override
+    void prepareFreeze() {
+        // Flattened once, so that reading a frozen node never builds the string again
+        if (buffer != null) {
+            value = buffer.toString();
+            buffer = null;
+        }
     }
 
     /**
@@ -166,20 +187,31 @@ public class Text
      *                              determined by {@link org.cdmckay.coffeedom.Verifier#checkCharacterData(String)})
      */
     public Text setText(String str) {
+        checkNotFrozen();
         String reason;
 
         if (str == null) {
-            value = EMPTY_STRING;
+            setValue(EMPTY_STRING);
             return this;
         }
 
         if ((reason = Verifier.checkCharacterData(str)) != null) {
             throw new IllegalDataException(str, "character content", reason);
         }
-        value = str;
+        setValue(str);
         return this;
     }
 
+    /**
+     * Replaces the character content, discarding any pending appended fragments.
+     *
+     * @param str the verified new content
+     */
+    final void setValue(String str) {
+        value = str;
+        buffer = null;
+    }
+
     /**
      * This will append character content to whatever content already exists within this <code>Text</code> node.
      *
@@ -188,6 +220,7 @@ public class Text
      *                              determined by {@link org.cdmckay.coffeedom.Verifier#checkCharacterData(String)})
      */
     public void append(String str) {
+        checkNotFrozen();
         String reason;
 
         if (str == null) {
@@ -197,11 +230,50 @@ public class Text
             throw new IllegalDataException(str, "character content", reason);
         }
 
-        if (str.equals(EMPTY_STRING)) {
-            value = str;
-        } else {
-            value += str;
+        appendValue(str);
+    }
+
+    /**
+     * Appends verified character content in amortized constant time.
+     *
+     * @param str the verified content to append
+     */
+    final void appendValue(String str) {
+        if (str.length() == 0) {
+            return;
+        }
+        if (buffer == null) {
+            if (value == null || value.length() == 0) {
+                value = str;
+                return;
+            }
+            buffer = new StringBuilder(2 * (value.length() + str.length())).append(value);
+        }
+        buffer.append(str);
+    }
+
+    /**
+     * Returns the length of the character content without flattening any pending appended fragments.
+     *
+     * @return the number of characters
+     */
+    final int length() {
+        final StringBuilder pending = buffer;
+        if (pending != null) {
+            return pending.length();
         }
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Returns a character of the content without flattening any pending appended fragments.
+     *
+     * @param index position of the character
+     * @return the character
+     */
+    final char charAt(int index) {
+        final StringBuilder pending = buffer;
+        return pending != null ? pending.charAt(index) : value.charAt(index);
     }
 
     /**
@@ -210,10 +282,11 @@ public class Text
      * @param text Text node to append.
      */
     public void append(Text text) {
+        checkNotFrozen();
         if (text == null) {
             return;
         }
-        value += text.getText();
+        appendValue(text.getText());
     }
 
     /**
@@ -222,7 +295,7 @@ public class Text
      * @return the text
      */
     public String getValue() {
-        return value;
+        return getText();
     }
 
     @Override
@@ -241,8 +314,10 @@ public class Text
      * @return <code>Text</code> - cloned node.
      */
     public Text clone() {
+        String value = getText();
         Text text = (Text) super.clone();
         text.value = value;
+        text.buffer = null;
         return text;
     }
 
@@ -262,4 +337,11 @@ public class Text
         return new StringBuilder(64).append("[Text: ").append(getText()).append("]").toString();
     }
 
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        // Pending fragments are not serialized, so the whole content is written as the value without changing the node
+        final ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("value", getText());
+        out.writeFields();
+    }
+
 }
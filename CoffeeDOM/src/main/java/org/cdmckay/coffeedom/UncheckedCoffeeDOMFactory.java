@@ -265,7 +265,7 @@ public class UncheckedCoffeeDOMFactory
     public void addContent(Parent parent, Content child) {
         if (parent instanceof Element) {
             Element elt = (Element) parent;
-            elt.contents.uncheckedAddContent(child);
+            elt.getContentList().uncheckedAddContent(child);
         } else {
             Document doc = (Document) parent;
             doc.contents.uncheckedAddContent(child);
@@ -273,7 +273,7 @@ public class UncheckedCoffeeDOMFactory
     }
 
     public void setAttribute(Element parent, Attribute a) {
-        parent.attributes.uncheckedAddAttribute(a);
+        parent.getAttributeList().uncheckedAddAttribute(a);
     }
 
     public void addNamespaceDeclaration(Element parent, Namespace additional) {
@@ -281,5 +281,6 @@ public class UncheckedCoffeeDOMFactory
             parent.additionalNamespaces = new ArrayList<Namespace>(5); //Element.INITIAL_ARRAY_SIZE
         }
         parent.additionalNamespaces.add(additional);
+        parent.namespacesChanged();
     }
 }
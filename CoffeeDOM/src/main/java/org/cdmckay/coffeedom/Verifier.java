@@ -69,12 +69,37 @@ import java.util.List;
  */
 final public class Verifier {
 
+    /**
+     * The names already found legal, or null if names are always checked in full
+     */
+    private static volatile NameCache nameCache = new NameCache();
+
     /**
      * Ensure instantiation cannot occur.
      */
     private Verifier() {
     }
 
+    /**
+     * Returns the cache of names that {@link #checkElementName(String)}, {@link #checkAttributeName(String)} and {@link
+     * #checkNamespacePrefix(String)} have already found legal. A cache holding {@link NameCache#DEFAULT_MAX_SIZE} names
+     * is used by default.
+     *
+     * @return the cache in use, or null if caching is disabled
+     */
+    public static NameCache getNameCache() {
+        return nameCache;
+    }
+
+    /**
+     * Sets the cache of names that have already been found legal.
+     *
+     * @param cache the cache to use, or null to check every name in full
+     */
+    public static void setNameCache(NameCache cache) {
+        nameCache = cache;
+    }
+
     /**
      * This will check the supplied name to see if it is legal for use as a CoffeeDOM <code>{@link Element}</code> name.
      *
@@ -82,6 +107,11 @@ final public class Verifier {
      * @return <code>String</code> reason name is illegal, or <code>null</code> if name is OK.
      */
     public static String checkElementName(String name) {
+        final NameCache cache = nameCache;
+        if (cache != null && name != null && cache.contains(name, NameCache.ELEMENT)) {
+            return null;
+        }
+
         // Check basic XML name rules first
         String reason;
         if ((reason = checkXMLName(name)) != null) {
@@ -94,6 +124,9 @@ final public class Verifier {
         }
 
         // If we got here, everything is OK
+        if (cache != null) {
+            cache.add(name, NameCache.ELEMENT);
+        }
         return null;
     }
 
@@ -104,6 +137,11 @@ final public class Verifier {
      * @return <code>String</code> reason name is illegal, or <code>null</code> if name is OK.
      */
     public static String checkAttributeName(String name) {
+        final NameCache cache = nameCache;
+        if (cache != null && name != null && cache.contains(name, NameCache.ATTRIBUTE)) {
+            return null;
+        }
+
         // Check basic XML name rules first
         String reason;
         if ((reason = checkXMLName(name)) != null) {
@@ -121,6 +159,9 @@ final public class Verifier {
         }
 
         // If we got here, everything is OK.
+        if (cache != null) {
+            cache.add(name, NameCache.ATTRIBUTE);
+        }
         return null;
     }
 
@@ -205,6 +246,11 @@ final public class Verifier {
             return null;
         }
 
+        final NameCache cache = nameCache;
+        if (cache != null && cache.contains(prefix, NameCache.PREFIX)) {
+            return null;
+        }
+
         // Cannot start with a number
         char first = prefix.charAt(0);
         if (isXMLDigit(first)) {
@@ -241,6 +287,9 @@ final public class Verifier {
         }
 
         // If we got here, everything is OK
+        if (cache != null) {
+            cache.add(prefix, NameCache.PREFIX);
+        }
         return null;
     }
 
@@ -328,9 +377,11 @@ final public class Verifier {
             return reason;
         }
 
-        reason = checkNamespaceCollision(namespace, element.getAttributes());
-        if (reason != null) {
-            return reason;
+        if (element.hasAttributes()) {
+            reason = checkNamespaceCollision(namespace, element.getAttributes());
+            if (reason != null) {
+                return reason;
+            }
         }
 
         return null;
@@ -804,7 +855,6 @@ final public class Verifier {
         return false;
     }
 
-
     /**
      * This is a utility function for determining whether a specified character is a name character according to
      * production 4 of the XML 1.0 specification.
@@ -813,9 +863,10 @@ final public class Verifier {
      * @return <code>boolean</code> true if it's a name character, false otherwise.
      */
     public static boolean isXMLNameCharacter(char ch) {
-
-        return (isXMLLetter(ch) || isXMLDigit(ch) || ch == '.' || ch == '-' || ch == '_' || ch == ':' ||
-                isXMLCombiningChar(ch) || isXMLExtender(ch));
+        if (ch < 0x80) {
+            return (ASCII_FLAGS[ch] & NAME_CHAR_FLAG) != 0;
+        }
+        return contains(NAME_CHARS, ch);
     }
 
     /**
@@ -827,9 +878,10 @@ final public class Verifier {
      * @return <code>boolean</code> true if it's a name start character, false otherwise.
      */
     public static boolean isXMLNameStartCharacter(char ch) {
-
-        return (isXMLLetter(ch) || ch == '_' || ch == ':');
-
+        if (ch < 0x80) {
+            return (ASCII_FLAGS[ch] & NAME_START_FLAG) != 0;
+        }
+        return contains(NAME_START_CHARS, ch);
     }
 
     /**
@@ -840,9 +892,10 @@ final public class Verifier {
      * @return <code>boolean</code> true if it's letter or digit, false otherwise.
      */
     public static boolean isXMLLetterOrDigit(char ch) {
-
-        return (isXMLLetter(ch) || isXMLDigit(ch));
-
+        if (ch < 0x80) {
+            return (ASCII_FLAGS[ch] & (LETTER_FLAG | DIGIT_FLAG)) != 0;
+        }
+        return contains(LETTERS, ch) || contains(DIGITS, ch);
     }
 
     /**
@@ -853,1788 +906,188 @@ final public class Verifier {
      * @return <code>String</code> true if it's a letter, false otherwise.
      */
     public static boolean isXMLLetter(char ch) {
-        // Note that order is very important here.  The search proceeds 
-        // from lowest to highest values, so that no searching occurs 
-        // above the character's value.  BTW, the first line is equivalent to:
-        // if (ch >= 0x0041 && ch <= 0x005A) return true;
-
-        if (ch < 0x0041) {
-            return false;
-        }
-        if (ch <= 0x005a) {
-            return true;
-        }
-        if (ch < 0x0061) {
-            return false;
-        }
-        if (ch <= 0x007A) {
-            return true;
-        }
-        if (ch < 0x00C0) {
-            return false;
-        }
-        if (ch <= 0x00D6) {
-            return true;
-        }
-        if (ch < 0x00D8) {
-            return false;
-        }
-        if (ch <= 0x00F6) {
-            return true;
-        }
-        if (ch < 0x00F8) {
-            return false;
-        }
-        if (ch <= 0x00FF) {
-            return true;
-        }
-        if (ch < 0x0100) {
-            return false;
-        }
-        if (ch <= 0x0131) {
-            return true;
-        }
-        if (ch < 0x0134) {
-            return false;
-        }
-        if (ch <= 0x013E) {
-            return true;
-        }
-        if (ch < 0x0141) {
-            return false;
-        }
-        if (ch <= 0x0148) {
-            return true;
-        }
-        if (ch < 0x014A) {
-            return false;
-        }
-        if (ch <= 0x017E) {
-            return true;
-        }
-        if (ch < 0x0180) {
-            return false;
-        }
-        if (ch <= 0x01C3) {
-            return true;
-        }
-        if (ch < 0x01CD) {
-            return false;
-        }
-        if (ch <= 0x01F0) {
-            return true;
-        }
-        if (ch < 0x01F4) {
-            return false;
-        }
-        if (ch <= 0x01F5) {
-            return true;
-        }
-        if (ch < 0x01FA) {
-            return false;
-        }
-        if (ch <= 0x0217) {
-            return true;
-        }
-        if (ch < 0x0250) {
-            return false;
-        }
-        if (ch <= 0x02A8) {
-            return true;
-        }
-        if (ch < 0x02BB) {
-            return false;
-        }
-        if (ch <= 0x02C1) {
-            return true;
-        }
-        if (ch == 0x0386) {
-            return true;
-        }
-        if (ch < 0x0388) {
-            return false;
-        }
-        if (ch <= 0x038A) {
-            return true;
-        }
-        if (ch == 0x038C) {
-            return true;
-        }
-        if (ch < 0x038E) {
-            return false;
-        }
-        if (ch <= 0x03A1) {
-            return true;
-        }
-        if (ch < 0x03A3) {
-            return false;
-        }
-        if (ch <= 0x03CE) {
-            return true;
-        }
-        if (ch < 0x03D0) {
-            return false;
-        }
-        if (ch <= 0x03D6) {
-            return true;
-        }
-        if (ch == 0x03DA) {
-            return true;
-        }
-        if (ch == 0x03DC) {
-            return true;
-        }
-        if (ch == 0x03DE) {
-            return true;
-        }
-        if (ch == 0x03E0) {
-            return true;
-        }
-        if (ch < 0x03E2) {
-            return false;
+        if (ch < 0x80) {
+            return (ASCII_FLAGS[ch] & LETTER_FLAG) != 0;
         }
-        if (ch <= 0x03F3) {
-            return true;
-        }
-        if (ch < 0x0401) {
-            return false;
-        }
-        if (ch <= 0x040C) {
-            return true;
-        }
-        if (ch < 0x040E) {
-            return false;
-        }
-        if (ch <= 0x044F) {
-            return true;
-        }
-        if (ch < 0x0451) {
-            return false;
-        }
-        if (ch <= 0x045C) {
-            return true;
-        }
-        if (ch < 0x045E) {
-            return false;
-        }
-        if (ch <= 0x0481) {
-            return true;
-        }
-        if (ch < 0x0490) {
-            return false;
-        }
-        if (ch <= 0x04C4) {
-            return true;
-        }
-        if (ch < 0x04C7) {
-            return false;
-        }
-        if (ch <= 0x04C8) {
-            return true;
-        }
-        if (ch < 0x04CB) {
-            return false;
-        }
-        if (ch <= 0x04CC) {
-            return true;
-        }
-        if (ch < 0x04D0) {
-            return false;
-        }
-        if (ch <= 0x04EB) {
-            return true;
-        }
-        if (ch < 0x04EE) {
-            return false;
-        }
-        if (ch <= 0x04F5) {
-            return true;
-        }
-        if (ch < 0x04F8) {
-            return false;
-        }
-        if (ch <= 0x04F9) {
-            return true;
-        }
-        if (ch < 0x0531) {
-            return false;
-        }
-        if (ch <= 0x0556) {
-            return true;
-        }
-        if (ch == 0x0559) {
-            return true;
-        }
-        if (ch < 0x0561) {
-            return false;
-        }
-        if (ch <= 0x0586) {
-            return true;
-        }
-        if (ch < 0x05D0) {
-            return false;
-        }
-        if (ch <= 0x05EA) {
-            return true;
-        }
-        if (ch < 0x05F0) {
-            return false;
-        }
-        if (ch <= 0x05F2) {
-            return true;
-        }
-        if (ch < 0x0621) {
-            return false;
-        }
-        if (ch <= 0x063A) {
-            return true;
-        }
-        if (ch < 0x0641) {
-            return false;
-        }
-        if (ch <= 0x064A) {
-            return true;
-        }
-        if (ch < 0x0671) {
-            return false;
+        return contains(LETTERS, ch);
+    }
+
+    /**
+     * This is a utility function for determining whether a specified character is a combining character according to
+     * production 87 of the XML 1.0 specification.
+     *
+     * @param ch <code>char</code> to check.
+     * @return <code>boolean</code> true if it's a combining character, false otherwise.
+     */
+    public static boolean isXMLCombiningChar(char ch) {
+        // There are no combining characters in ASCII.
+        return ch >= 0x80 && contains(COMBINING_CHARS, ch);
+    }
+
+    /**
+     * This is a utility function for determining whether a specified character is an extender according to production
+     * 88 of the XML 1.0 specification.
+     *
+     * @param ch <code>char</code> to check.
+     * @return <code>String</code> true if it's an extender, false otherwise.
+     */
+    public static boolean isXMLExtender(char ch) {
+        // There are no extenders in ASCII.
+        return ch >= 0x80 && contains(EXTENDERS, ch);
+    }
+
+    /**
+     * This is a utility function for determining whether a specified Unicode character is a digit according to
+     * production 88 of the XML 1.0 specification.
+     *
+     * @param ch <code>char</code> to check for XML digit compliance
+     * @return <code>boolean</code> true if it's a digit, false otherwise
+     */
+    public static boolean isXMLDigit(char ch) {
+        if (ch < 0x80) {
+            return (ASCII_FLAGS[ch] & DIGIT_FLAG) != 0;
         }
-        if (ch <= 0x06B7) {
+        return contains(DIGITS, ch);
+    }
+
+    /**
+     * This is a utility function for determining whether a specified Unicode character is a whitespace character
+     * according to production 3 of the XML 1.0 specification.
+     *
+     * @param ch <code>char</code> to check for XML whitespace compliance
+     * @return <code>boolean</code> true if it's a whitespace, false otherwise
+     */
+    public static boolean isXMLWhitespace(char ch) {
+        if (ch == ' ' || ch == '\n' || ch == '\t' || ch == '\r') {
             return true;
         }
-        if (ch < 0x06BA) {
-            return false;
+        return false;
+    }
+
+    // The character classes of productions 84 to 89 of the XML 1.0 specification (Appendix B), as inclusive pairs of
+    // BMP code points. These are expanded once into 64K-bit sets so that classifying a character is a single array
+    // lookup rather than a walk through the ranges.
+    private static final char[] LETTER_RANGES = {
+            0x0041, 0x005A, 0x0061, 0x007A, 0x00C0, 0x00D6, 0x00D8, 0x00F6, 0x00F8, 0x0131, 0x0134, 0x013E,
+            0x0141, 0x0148, 0x014A, 0x017E, 0x0180, 0x01C3, 0x01CD, 0x01F0, 0x01F4, 0x01F5, 0x01FA, 0x0217,
+            0x0250, 0x02A8, 0x02BB, 0x02C1, 0x0386, 0x0386, 0x0388, 0x038A, 0x038C, 0x038C, 0x038E, 0x03A1,
+            0x03A3, 0x03CE, 0x03D0, 0x03D6, 0x03DA, 0x03DA, 0x03DC, 0x03DC, 0x03DE, 0x03DE, 0x03E0, 0x03E0,
+            0x03E2, 0x03F3, 0x0401, 0x040C, 0x040E, 0x044F, 0x0451, 0x045C, 0x045E, 0x0481, 0x0490, 0x04C4,
+            0x04C7, 0x04C8, 0x04CB, 0x04CC, 0x04D0, 0x04EB, 0x04EE, 0x04F5, 0x04F8, 0x04F9, 0x0531, 0x0556,
+            0x0559, 0x0559, 0x0561, 0x0586, 0x05D0, 0x05EA, 0x05F0, 0x05F2, 0x0621, 0x063A, 0x0641, 0x064A,
+            0x0671, 0x06B7, 0x06BA, 0x06BE, 0x06C0, 0x06CE, 0x06D0, 0x06D3, 0x06D5, 0x06D5, 0x06E5, 0x06E6,
+            0x0905, 0x0939, 0x093D, 0x093D, 0x0958, 0x0961, 0x0985, 0x098C, 0x098F, 0x0990, 0x0993, 0x09A8,
+            0x09AA, 0x09B0, 0x09B2, 0x09B2, 0x09B6, 0x09B9, 0x09DC, 0x09DD, 0x09DF, 0x09E1, 0x09F0, 0x09F1,
+            0x0A05, 0x0A0A, 0x0A0F, 0x0A10, 0x0A13, 0x0A28, 0x0A2A, 0x0A30, 0x0A32, 0x0A33, 0x0A35, 0x0A36,
+            0x0A38, 0x0A39, 0x0A59, 0x0A5C, 0x0A5E, 0x0A5E, 0x0A72, 0x0A74, 0x0A85, 0x0A8B, 0x0A8D, 0x0A8D,
+            0x0A8F, 0x0A91, 0x0A93, 0x0AA8, 0x0AAA, 0x0AB0, 0x0AB2, 0x0AB3, 0x0AB5, 0x0AB9, 0x0ABD, 0x0ABD,
+            0x0AE0, 0x0AE0, 0x0B05, 0x0B0C, 0x0B0F, 0x0B10, 0x0B13, 0x0B28, 0x0B2A, 0x0B30, 0x0B32, 0x0B33,
+            0x0B36, 0x0B39, 0x0B3D, 0x0B3D, 0x0B5C, 0x0B5D, 0x0B5F, 0x0B61, 0x0B85, 0x0B8A, 0x0B8E, 0x0B90,
+            0x0B92, 0x0B95, 0x0B99, 0x0B9A, 0x0B9C, 0x0B9C, 0x0B9E, 0x0B9F, 0x0BA3, 0x0BA4, 0x0BA8, 0x0BAA,
+            0x0BAE, 0x0BB5, 0x0BB7, 0x0BB9, 0x0C05, 0x0C0C, 0x0C0E, 0x0C10, 0x0C12, 0x0C28, 0x0C2A, 0x0C33,
+            0x0C35, 0x0C39, 0x0C60, 0x0C61, 0x0C85, 0x0C8C, 0x0C8E, 0x0C90, 0x0C92, 0x0CA8, 0x0CAA, 0x0CB3,
+            0x0CB5, 0x0CB9, 0x0CDE, 0x0CDE, 0x0CE0, 0x0CE1, 0x0D05, 0x0D0C, 0x0D0E, 0x0D10, 0x0D12, 0x0D28,
+            0x0D2A, 0x0D39, 0x0D60, 0x0D61, 0x0E01, 0x0E2E, 0x0E30, 0x0E30, 0x0E32, 0x0E33, 0x0E40, 0x0E45,
+            0x0E81, 0x0E82, 0x0E84, 0x0E84, 0x0E87, 0x0E88, 0x0E8A, 0x0E8A, 0x0E8D, 0x0E8D, 0x0E94, 0x0E97,
+            0x0E99, 0x0E9F, 0x0EA1, 0x0EA3, 0x0EA5, 0x0EA5, 0x0EA7, 0x0EA7, 0x0EAA, 0x0EAB, 0x0EAD, 0x0EAE,
+            0x0EB0, 0x0EB0, 0x0EB2, 0x0EB3, 0x0EBD, 0x0EBD, 0x0EC0, 0x0EC4, 0x0F40, 0x0F47, 0x0F49, 0x0F69,
+            0x10A0, 0x10C5, 0x10D0, 0x10F6, 0x1100, 0x1100, 0x1102, 0x1103, 0x1105, 0x1107, 0x1109, 0x1109,
+            0x110B, 0x110C, 0x110E, 0x1112, 0x113C, 0x113C, 0x113E, 0x113E, 0x1140, 0x1140, 0x114C, 0x114C,
+            0x114E, 0x114E, 0x1150, 0x1150, 0x1154, 0x1155, 0x1159, 0x1159, 0x115F, 0x1161, 0x1163, 0x1163,
+            0x1165, 0x1165, 0x1167, 0x1167, 0x1169, 0x1169, 0x116D, 0x116E, 0x1172, 0x1173, 0x1175, 0x1175,
+            0x119E, 0x119E, 0x11A8, 0x11A8, 0x11AB, 0x11AB, 0x11AE, 0x11AF, 0x11B7, 0x11B8, 0x11BA, 0x11BA,
+            0x11BC, 0x11C2, 0x11EB, 0x11EB, 0x11F0, 0x11F0, 0x11F9, 0x11F9, 0x1E00, 0x1E9B, 0x1EA0, 0x1EF9,
+            0x1F00, 0x1F15, 0x1F18, 0x1F1D, 0x1F20, 0x1F45, 0x1F48, 0x1F4D, 0x1F50, 0x1F57, 0x1F59, 0x1F59,
+            0x1F5B, 0x1F5B, 0x1F5D, 0x1F5D, 0x1F5F, 0x1F7D, 0x1F80, 0x1FB4, 0x1FB6, 0x1FBC, 0x1FBE, 0x1FBE,
+            0x1FC2, 0x1FC4, 0x1FC6, 0x1FCC, 0x1FD0, 0x1FD3, 0x1FD6, 0x1FDB, 0x1FE0, 0x1FEC, 0x1FF2, 0x1FF4,
+            0x1FF6, 0x1FFC, 0x2126, 0x2126, 0x212A, 0x212B, 0x212E, 0x212E, 0x2180, 0x2182, 0x3007, 0x3007,
+            0x3021, 0x3029, 0x3041, 0x3094, 0x30A1, 0x30FA, 0x3105, 0x312C, 0x4E00, 0x9FA5, 0xAC00, 0xD7A3
+    };
+
+    private static final char[] DIGIT_RANGES = {
+            0x0030, 0x0039, 0x0660, 0x0669, 0x06F0, 0x06F9, 0x0966, 0x096F, 0x09E6, 0x09EF, 0x0A66, 0x0A6F,
+            0x0AE6, 0x0AEF, 0x0B66, 0x0B6F, 0x0BE7, 0x0BEF, 0x0C66, 0x0C6F, 0x0CE6, 0x0CEF, 0x0D66, 0x0D6F,
+            0x0E50, 0x0E59, 0x0ED0, 0x0ED9, 0x0F20, 0x0F29
+    };
+
+    private static final char[] COMBINING_CHAR_RANGES = {
+            0x0300, 0x0345, 0x0360, 0x0361, 0x0483, 0x0486, 0x0591, 0x05A1, 0x05A3, 0x05B9, 0x05BB, 0x05BD,
+            0x05BF, 0x05BF, 0x05C1, 0x05C2, 0x05C4, 0x05C4, 0x064B, 0x0652, 0x0670, 0x0670, 0x06D6, 0x06E4,
+            0x06E7, 0x06E8, 0x06EA, 0x06ED, 0x0901, 0x0903, 0x093C, 0x093C, 0x093E, 0x094D, 0x0951, 0x0954,
+            0x0962, 0x0963, 0x0981, 0x0983, 0x09BC, 0x09BC, 0x09BE, 0x09C4, 0x09C7, 0x09C8, 0x09CB, 0x09CD,
+            0x09D7, 0x09D7, 0x09E2, 0x09E3, 0x0A02, 0x0A02, 0x0A3C, 0x0A3C, 0x0A3E, 0x0A42, 0x0A47, 0x0A48,
+            0x0A4B, 0x0A4D, 0x0A70, 0x0A71, 0x0A81, 0x0A83, 0x0ABC, 0x0ABC, 0x0ABE, 0x0AC5, 0x0AC7, 0x0AC9,
+            0x0ACB, 0x0ACD, 0x0B01, 0x0B03, 0x0B3C, 0x0B3C, 0x0B3E, 0x0B43, 0x0B47, 0x0B48, 0x0B4B, 0x0B4D,
+            0x0B56, 0x0B57, 0x0B82, 0x0B83, 0x0BBE, 0x0BC2, 0x0BC6, 0x0BC8, 0x0BCA, 0x0BCD, 0x0BD7, 0x0BD7,
+            0x0C01, 0x0C03, 0x0C3E, 0x0C44, 0x0C46, 0x0C48, 0x0C4A, 0x0C4D, 0x0C55, 0x0C56, 0x0C82, 0x0C83,
+            0x0CBE, 0x0CC4, 0x0CC6, 0x0CC8, 0x0CCA, 0x0CCD, 0x0CD5, 0x0CD6, 0x0D02, 0x0D03, 0x0D3E, 0x0D43,
+            0x0D46, 0x0D48, 0x0D4A, 0x0D4D, 0x0D57, 0x0D57, 0x0E31, 0x0E31, 0x0E34, 0x0E3A, 0x0E47, 0x0E4E,
+            0x0EB1, 0x0EB1, 0x0EB4, 0x0EB9, 0x0EBB, 0x0EBC, 0x0EC8, 0x0ECD, 0x0F18, 0x0F19, 0x0F35, 0x0F35,
+            0x0F37, 0x0F37, 0x0F39, 0x0F39, 0x0F3E, 0x0F3F, 0x0F71, 0x0F84, 0x0F86, 0x0F8B, 0x0F90, 0x0F95,
+            0x0F97, 0x0F97, 0x0F99, 0x0FAD, 0x0FB1, 0x0FB7, 0x0FB9, 0x0FB9, 0x20D0, 0x20DC, 0x20E1, 0x20E1,
+            0x302A, 0x302F, 0x3099, 0x309A
+    };
+
+    private static final char[] EXTENDER_RANGES = {
+            0x00B7, 0x00B7, 0x02D0, 0x02D1, 0x0387, 0x0387, 0x0640, 0x0640, 0x0E46, 0x0E46, 0x0EC6, 0x0EC6,
+            0x3005, 0x3005, 0x3031, 0x3035, 0x309D, 0x309E, 0x30FC, 0x30FE
+    };
+
+    private static final long[] LETTERS = toBitSet(LETTER_RANGES);
+    private static final long[] DIGITS = toBitSet(DIGIT_RANGES);
+    private static final long[] COMBINING_CHARS = toBitSet(COMBINING_CHAR_RANGES);
+    private static final long[] EXTENDERS = toBitSet(EXTENDER_RANGES);
+    private static final long[] NAME_START_CHARS = union(LETTERS, toBitSet(new char[] { '_', '_', ':', ':' }));
+    private static final long[] NAME_CHARS =
+            union(NAME_START_CHARS, DIGITS, COMBINING_CHARS, EXTENDERS, toBitSet(new char[] { '-', '.' }));
+
+    // Names are overwhelmingly ASCII, so those characters are classified from a small table that stays in cache.
+    private static final int LETTER_FLAG = 0x01;
+    private static final int DIGIT_FLAG = 0x02;
+    private static final int NAME_START_FLAG = 0x04;
+    private static final int NAME_CHAR_FLAG = 0x08;
+    private static final byte[] ASCII_FLAGS = new byte[0x80];
+
+    static {
+        for (char ch = 0; ch < 0x80; ch++) {
+            int flags = 0;
+            if (contains(LETTERS, ch)) {
+                flags |= LETTER_FLAG;
+            }
+            if (contains(DIGITS, ch)) {
+                flags |= DIGIT_FLAG;
+            }
+            if (contains(NAME_START_CHARS, ch)) {
+                flags |= NAME_START_FLAG;
+            }
+            if (contains(NAME_CHARS, ch)) {
+                flags |= NAME_CHAR_FLAG;
+            }
+            ASCII_FLAGS[ch] = (byte) flags;
         }
-        if (ch <= 0x06BE) {
-            return true;
+    }
+
+    private static boolean contains(long[] set, char ch) {
+        return (set[ch >>> 6] & (1L << ch)) != 0;
+    }
+
+    private static long[] toBitSet(char[] ranges) {
+        long[] set = new long[0x10000 >>> 6];
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int ch = ranges[i]; ch <= ranges[i + 1]; ch++) {
+                set[ch >>> 6] |= 1L << ch;
+            }
         }
-        if (ch < 0x06C0) {
-            return false;
+        return set;
+    }
+
+    private static long[] union(long[]... sets) {
+        long[] union = new long[0x10000 >>> 6];
+        for (long[] set : sets) {
+            for (int i = 0; i < union.length; i++) {
+                union[i] |= set[i];
+            }
         }
-        if (ch <= 0x06CE) {
-            return true;
-        }
-        if (ch < 0x06D0) {
-            return false;
-        }
-        if (ch <= 0x06D3) {
-            return true;
-        }
-        if (ch == 0x06D5) {
-            return true;
-        }
-        if (ch < 0x06E5) {
-            return false;
-        }
-        if (ch <= 0x06E6) {
-            return true;
-        }
-        if (ch < 0x0905) {
-            return false;
-        }
-        if (ch <= 0x0939) {
-            return true;
-        }
-        if (ch == 0x093D) {
-            return true;
-        }
-        if (ch < 0x0958) {
-            return false;
-        }
-        if (ch <= 0x0961) {
-            return true;
-        }
-        if (ch < 0x0985) {
-            return false;
-        }
-        if (ch <= 0x098C) {
-            return true;
-        }
-        if (ch < 0x098F) {
-            return false;
-        }
-        if (ch <= 0x0990) {
-            return true;
-        }
-        if (ch < 0x0993) {
-            return false;
-        }
-        if (ch <= 0x09A8) {
-            return true;
-        }
-        if (ch < 0x09AA) {
-            return false;
-        }
-        if (ch <= 0x09B0) {
-            return true;
-        }
-        if (ch == 0x09B2) {
-            return true;
-        }
-        if (ch < 0x09B6) {
-            return false;
-        }
-        if (ch <= 0x09B9) {
-            return true;
-        }
-        if (ch < 0x09DC) {
-            return false;
-        }
-        if (ch <= 0x09DD) {
-            return true;
-        }
-        if (ch < 0x09DF) {
-            return false;
-        }
-        if (ch <= 0x09E1) {
-            return true;
-        }
-        if (ch < 0x09F0) {
-            return false;
-        }
-        if (ch <= 0x09F1) {
-            return true;
-        }
-        if (ch < 0x0A05) {
-            return false;
-        }
-        if (ch <= 0x0A0A) {
-            return true;
-        }
-        if (ch < 0x0A0F) {
-            return false;
-        }
-        if (ch <= 0x0A10) {
-            return true;
-        }
-        if (ch < 0x0A13) {
-            return false;
-        }
-        if (ch <= 0x0A28) {
-            return true;
-        }
-        if (ch < 0x0A2A) {
-            return false;
-        }
-        if (ch <= 0x0A30) {
-            return true;
-        }
-        if (ch < 0x0A32) {
-            return false;
-        }
-        if (ch <= 0x0A33) {
-            return true;
-        }
-        if (ch < 0x0A35) {
-            return false;
-        }
-        if (ch <= 0x0A36) {
-            return true;
-        }
-        if (ch < 0x0A38) {
-            return false;
-        }
-        if (ch <= 0x0A39) {
-            return true;
-        }
-        if (ch < 0x0A59) {
-            return false;
-        }
-        if (ch <= 0x0A5C) {
-            return true;
-        }
-        if (ch == 0x0A5E) {
-            return true;
-        }
-        if (ch < 0x0A72) {
-            return false;
-        }
-        if (ch <= 0x0A74) {
-            return true;
-        }
-        if (ch < 0x0A85) {
-            return false;
-        }
-        if (ch <= 0x0A8B) {
-            return true;
-        }
-        if (ch == 0x0A8D) {
-            return true;
-        }
-        if (ch < 0x0A8F) {
-            return false;
-        }
-        if (ch <= 0x0A91) {
-            return true;
-        }
-        if (ch < 0x0A93) {
-            return false;
-        }
-        if (ch <= 0x0AA8) {
-            return true;
-        }
-        if (ch < 0x0AAA) {
-            return false;
-        }
-        if (ch <= 0x0AB0) {
-            return true;
-        }
-        if (ch < 0x0AB2) {
-            return false;
-        }
-        if (ch <= 0x0AB3) {
-            return true;
-        }
-        if (ch < 0x0AB5) {
-            return false;
-        }
-        if (ch <= 0x0AB9) {
-            return true;
-        }
-        if (ch == 0x0ABD) {
-            return true;
-        }
-        if (ch == 0x0AE0) {
-            return true;
-        }
-        if (ch < 0x0B05) {
-            return false;
-        }
-        if (ch <= 0x0B0C) {
-            return true;
-        }
-        if (ch < 0x0B0F) {
-            return false;
-        }
-        if (ch <= 0x0B10) {
-            return true;
-        }
-        if (ch < 0x0B13) {
-            return false;
-        }
-        if (ch <= 0x0B28) {
-            return true;
-        }
-        if (ch < 0x0B2A) {
-            return false;
-        }
-        if (ch <= 0x0B30) {
-            return true;
-        }
-        if (ch < 0x0B32) {
-            return false;
-        }
-        if (ch <= 0x0B33) {
-            return true;
-        }
-        if (ch < 0x0B36) {
-            return false;
-        }
-        if (ch <= 0x0B39) {
-            return true;
-        }
-        if (ch == 0x0B3D) {
-            return true;
-        }
-        if (ch < 0x0B5C) {
-            return false;
-        }
-        if (ch <= 0x0B5D) {
-            return true;
-        }
-        if (ch < 0x0B5F) {
-            return false;
-        }
-        if (ch <= 0x0B61) {
-            return true;
-        }
-        if (ch < 0x0B85) {
-            return false;
-        }
-        if (ch <= 0x0B8A) {
-            return true;
-        }
-        if (ch < 0x0B8E) {
-            return false;
-        }
-        if (ch <= 0x0B90) {
-            return true;
-        }
-        if (ch < 0x0B92) {
-            return false;
-        }
-        if (ch <= 0x0B95) {
-            return true;
-        }
-        if (ch < 0x0B99) {
-            return false;
-        }
-        if (ch <= 0x0B9A) {
-            return true;
-        }
-        if (ch == 0x0B9C) {
-            return true;
-        }
-        if (ch < 0x0B9E) {
-            return false;
-        }
-        if (ch <= 0x0B9F) {
-            return true;
-        }
-        if (ch < 0x0BA3) {
-            return false;
-        }
-        if (ch <= 0x0BA4) {
-            return true;
-        }
-        if (ch < 0x0BA8) {
-            return false;
-        }
-        if (ch <= 0x0BAA) {
-            return true;
-        }
-        if (ch < 0x0BAE) {
-            return false;
-        }
-        if (ch <= 0x0BB5) {
-            return true;
-        }
-        if (ch < 0x0BB7) {
-            return false;
-        }
-        if (ch <= 0x0BB9) {
-            return true;
-        }
-        if (ch < 0x0C05) {
-            return false;
-        }
-        if (ch <= 0x0C0C) {
-            return true;
-        }
-        if (ch < 0x0C0E) {
-            return false;
-        }
-        if (ch <= 0x0C10) {
-            return true;
-        }
-        if (ch < 0x0C12) {
-            return false;
-        }
-        if (ch <= 0x0C28) {
-            return true;
-        }
-        if (ch < 0x0C2A) {
-            return false;
-        }
-        if (ch <= 0x0C33) {
-            return true;
-        }
-        if (ch < 0x0C35) {
-            return false;
-        }
-        if (ch <= 0x0C39) {
-            return true;
-        }
-        if (ch < 0x0C60) {
-            return false;
-        }
-        if (ch <= 0x0C61) {
-            return true;
-        }
-        if (ch < 0x0C85) {
-            return false;
-        }
-        if (ch <= 0x0C8C) {
-            return true;
-        }
-        if (ch < 0x0C8E) {
-            return false;
-        }
-        if (ch <= 0x0C90) {
-            return true;
-        }
-        if (ch < 0x0C92) {
-            return false;
-        }
-        if (ch <= 0x0CA8) {
-            return true;
-        }
-        if (ch < 0x0CAA) {
-            return false;
-        }
-        if (ch <= 0x0CB3) {
-            return true;
-        }
-        if (ch < 0x0CB5) {
-            return false;
-        }
-        if (ch <= 0x0CB9) {
-            return true;
-        }
-        if (ch == 0x0CDE) {
-            return true;
-        }
-        if (ch < 0x0CE0) {
-            return false;
-        }
-        if (ch <= 0x0CE1) {
-            return true;
-        }
-        if (ch < 0x0D05) {
-            return false;
-        }
-        if (ch <= 0x0D0C) {
-            return true;
-        }
-        if (ch < 0x0D0E) {
-            return false;
-        }
-        if (ch <= 0x0D10) {
-            return true;
-        }
-        if (ch < 0x0D12) {
-            return false;
-        }
-        if (ch <= 0x0D28) {
-            return true;
-        }
-        if (ch < 0x0D2A) {
-            return false;
-        }
-        if (ch <= 0x0D39) {
-            return true;
-        }
-        if (ch < 0x0D60) {
-            return false;
-        }
-        if (ch <= 0x0D61) {
-            return true;
-        }
-        if (ch < 0x0E01) {
-            return false;
-        }
-        if (ch <= 0x0E2E) {
-            return true;
-        }
-        if (ch == 0x0E30) {
-            return true;
-        }
-        if (ch < 0x0E32) {
-            return false;
-        }
-        if (ch <= 0x0E33) {
-            return true;
-        }
-        if (ch < 0x0E40) {
-            return false;
-        }
-        if (ch <= 0x0E45) {
-            return true;
-        }
-        if (ch < 0x0E81) {
-            return false;
-        }
-        if (ch <= 0x0E82) {
-            return true;
-        }
-        if (ch == 0x0E84) {
-            return true;
-        }
-        if (ch < 0x0E87) {
-            return false;
-        }
-        if (ch <= 0x0E88) {
-            return true;
-        }
-        if (ch == 0x0E8A) {
-            return true;
-        }
-        if (ch == 0x0E8D) {
-            return true;
-        }
-        if (ch < 0x0E94) {
-            return false;
-        }
-        if (ch <= 0x0E97) {
-            return true;
-        }
-        if (ch < 0x0E99) {
-            return false;
-        }
-        if (ch <= 0x0E9F) {
-            return true;
-        }
-        if (ch < 0x0EA1) {
-            return false;
-        }
-        if (ch <= 0x0EA3) {
-            return true;
-        }
-        if (ch == 0x0EA5) {
-            return true;
-        }
-        if (ch == 0x0EA7) {
-            return true;
-        }
-        if (ch < 0x0EAA) {
-            return false;
-        }
-        if (ch <= 0x0EAB) {
-            return true;
-        }
-        if (ch < 0x0EAD) {
-            return false;
-        }
-        if (ch <= 0x0EAE) {
-            return true;
-        }
-        if (ch == 0x0EB0) {
-            return true;
-        }
-        if (ch < 0x0EB2) {
-            return false;
-        }
-        if (ch <= 0x0EB3) {
-            return true;
-        }
-        if (ch == 0x0EBD) {
-            return true;
-        }
-        if (ch < 0x0EC0) {
-            return false;
-        }
-        if (ch <= 0x0EC4) {
-            return true;
-        }
-        if (ch < 0x0F40) {
-            return false;
-        }
-        if (ch <= 0x0F47) {
-            return true;
-        }
-        if (ch < 0x0F49) {
-            return false;
-        }
-        if (ch <= 0x0F69) {
-            return true;
-        }
-        if (ch < 0x10A0) {
-            return false;
-        }
-        if (ch <= 0x10C5) {
-            return true;
-        }
-        if (ch < 0x10D0) {
-            return false;
-        }
-        if (ch <= 0x10F6) {
-            return true;
-        }
-        if (ch == 0x1100) {
-            return true;
-        }
-        if (ch < 0x1102) {
-            return false;
-        }
-        if (ch <= 0x1103) {
-            return true;
-        }
-        if (ch < 0x1105) {
-            return false;
-        }
-        if (ch <= 0x1107) {
-            return true;
-        }
-        if (ch == 0x1109) {
-            return true;
-        }
-        if (ch < 0x110B) {
-            return false;
-        }
-        if (ch <= 0x110C) {
-            return true;
-        }
-        if (ch < 0x110E) {
-            return false;
-        }
-        if (ch <= 0x1112) {
-            return true;
-        }
-        if (ch == 0x113C) {
-            return true;
-        }
-        if (ch == 0x113E) {
-            return true;
-        }
-        if (ch == 0x1140) {
-            return true;
-        }
-        if (ch == 0x114C) {
-            return true;
-        }
-        if (ch == 0x114E) {
-            return true;
-        }
-        if (ch == 0x1150) {
-            return true;
-        }
-        if (ch < 0x1154) {
-            return false;
-        }
-        if (ch <= 0x1155) {
-            return true;
-        }
-        if (ch == 0x1159) {
-            return true;
-        }
-        if (ch < 0x115F) {
-            return false;
-        }
-        if (ch <= 0x1161) {
-            return true;
-        }
-        if (ch == 0x1163) {
-            return true;
-        }
-        if (ch == 0x1165) {
-            return true;
-        }
-        if (ch == 0x1167) {
-            return true;
-        }
-        if (ch == 0x1169) {
-            return true;
-        }
-        if (ch < 0x116D) {
-            return false;
-        }
-        if (ch <= 0x116E) {
-            return true;
-        }
-        if (ch < 0x1172) {
-            return false;
-        }
-        if (ch <= 0x1173) {
-            return true;
-        }
-        if (ch == 0x1175) {
-            return true;
-        }
-        if (ch == 0x119E) {
-            return true;
-        }
-        if (ch == 0x11A8) {
-            return true;
-        }
-        if (ch == 0x11AB) {
-            return true;
-        }
-        if (ch < 0x11AE) {
-            return false;
-        }
-        if (ch <= 0x11AF) {
-            return true;
-        }
-        if (ch < 0x11B7) {
-            return false;
-        }
-        if (ch <= 0x11B8) {
-            return true;
-        }
-        if (ch == 0x11BA) {
-            return true;
-        }
-        if (ch < 0x11BC) {
-            return false;
-        }
-        if (ch <= 0x11C2) {
-            return true;
-        }
-        if (ch == 0x11EB) {
-            return true;
-        }
-        if (ch == 0x11F0) {
-            return true;
-        }
-        if (ch == 0x11F9) {
-            return true;
-        }
-        if (ch < 0x1E00) {
-            return false;
-        }
-        if (ch <= 0x1E9B) {
-            return true;
-        }
-        if (ch < 0x1EA0) {
-            return false;
-        }
-        if (ch <= 0x1EF9) {
-            return true;
-        }
-        if (ch < 0x1F00) {
-            return false;
-        }
-        if (ch <= 0x1F15) {
-            return true;
-        }
-        if (ch < 0x1F18) {
-            return false;
-        }
-        if (ch <= 0x1F1D) {
-            return true;
-        }
-        if (ch < 0x1F20) {
-            return false;
-        }
-        if (ch <= 0x1F45) {
-            return true;
-        }
-        if (ch < 0x1F48) {
-            return false;
-        }
-        if (ch <= 0x1F4D) {
-            return true;
-        }
-        if (ch < 0x1F50) {
-            return false;
-        }
-        if (ch <= 0x1F57) {
-            return true;
-        }
-        if (ch == 0x1F59) {
-            return true;
-        }
-        if (ch == 0x1F5B) {
-            return true;
-        }
-        if (ch == 0x1F5D) {
-            return true;
-        }
-        if (ch < 0x1F5F) {
-            return false;
-        }
-        if (ch <= 0x1F7D) {
-            return true;
-        }
-        if (ch < 0x1F80) {
-            return false;
-        }
-        if (ch <= 0x1FB4) {
-            return true;
-        }
-        if (ch < 0x1FB6) {
-            return false;
-        }
-        if (ch <= 0x1FBC) {
-            return true;
-        }
-        if (ch == 0x1FBE) {
-            return true;
-        }
-        if (ch < 0x1FC2) {
-            return false;
-        }
-        if (ch <= 0x1FC4) {
-            return true;
-        }
-        if (ch < 0x1FC6) {
-            return false;
-        }
-        if (ch <= 0x1FCC) {
-            return true;
-        }
-        if (ch < 0x1FD0) {
-            return false;
-        }
-        if (ch <= 0x1FD3) {
-            return true;
-        }
-        if (ch < 0x1FD6) {
-            return false;
-        }
-        if (ch <= 0x1FDB) {
-            return true;
-        }
-        if (ch < 0x1FE0) {
-            return false;
-        }
-        if (ch <= 0x1FEC) {
-            return true;
-        }
-        if (ch < 0x1FF2) {
-            return false;
-        }
-        if (ch <= 0x1FF4) {
-            return true;
-        }
-        if (ch < 0x1FF6) {
-            return false;
-        }
-        if (ch <= 0x1FFC) {
-            return true;
-        }
-        if (ch == 0x2126) {
-            return true;
-        }
-        if (ch < 0x212A) {
-            return false;
-        }
-        if (ch <= 0x212B) {
-            return true;
-        }
-        if (ch == 0x212E) {
-            return true;
-        }
-        if (ch < 0x2180) {
-            return false;
-        }
-        if (ch <= 0x2182) {
-            return true;
-        }
-        if (ch == 0x3007) {
-            return true;                          // ideographic
-        }
-        if (ch < 0x3021) {
-            return false;
-        }
-        if (ch <= 0x3029) {
-            return true;  // ideo
-        }
-        if (ch < 0x3041) {
-            return false;
-        }
-        if (ch <= 0x3094) {
-            return true;
-        }
-        if (ch < 0x30A1) {
-            return false;
-        }
-        if (ch <= 0x30FA) {
-            return true;
-        }
-        if (ch < 0x3105) {
-            return false;
-        }
-        if (ch <= 0x312C) {
-            return true;
-        }
-        if (ch < 0x4E00) {
-            return false;
-        }
-        if (ch <= 0x9FA5) {
-            return true;  // ideo
-        }
-        if (ch < 0xAC00) {
-            return false;
-        }
-        if (ch <= 0xD7A3) {
-            return true;
-        }
-
-        return false;
-
-    }
-
-    /**
-     * This is a utility function for determining whether a specified character is a combining character according to
-     * production 87 of the XML 1.0 specification.
-     *
-     * @param ch <code>char</code> to check.
-     * @return <code>boolean</code> true if it's a combining character, false otherwise.
-     */
-    public static boolean isXMLCombiningChar(char ch) {
-        // CombiningChar
-        if (ch < 0x0300) {
-            return false;
-        }
-        if (ch <= 0x0345) {
-            return true;
-        }
-        if (ch < 0x0360) {
-            return false;
-        }
-        if (ch <= 0x0361) {
-            return true;
-        }
-        if (ch < 0x0483) {
-            return false;
-        }
-        if (ch <= 0x0486) {
-            return true;
-        }
-        if (ch < 0x0591) {
-            return false;
-        }
-        if (ch <= 0x05A1) {
-            return true;
-        }
-
-        if (ch < 0x05A3) {
-            return false;
-        }
-        if (ch <= 0x05B9) {
-            return true;
-        }
-        if (ch < 0x05BB) {
-            return false;
-        }
-        if (ch <= 0x05BD) {
-            return true;
-        }
-        if (ch == 0x05BF) {
-            return true;
-        }
-        if (ch < 0x05C1) {
-            return false;
-        }
-        if (ch <= 0x05C2) {
-            return true;
-        }
-
-        if (ch == 0x05C4) {
-            return true;
-        }
-        if (ch < 0x064B) {
-            return false;
-        }
-        if (ch <= 0x0652) {
-            return true;
-        }
-        if (ch == 0x0670) {
-            return true;
-        }
-        if (ch < 0x06D6) {
-            return false;
-        }
-        if (ch <= 0x06DC) {
-            return true;
-        }
-
-        if (ch < 0x06DD) {
-            return false;
-        }
-        if (ch <= 0x06DF) {
-            return true;
-        }
-        if (ch < 0x06E0) {
-            return false;
-        }
-        if (ch <= 0x06E4) {
-            return true;
-        }
-        if (ch < 0x06E7) {
-            return false;
-        }
-        if (ch <= 0x06E8) {
-            return true;
-        }
-
-        if (ch < 0x06EA) {
-            return false;
-        }
-        if (ch <= 0x06ED) {
-            return true;
-        }
-        if (ch < 0x0901) {
-            return false;
-        }
-        if (ch <= 0x0903) {
-            return true;
-        }
-        if (ch == 0x093C) {
-            return true;
-        }
-        if (ch < 0x093E) {
-            return false;
-        }
-        if (ch <= 0x094C) {
-            return true;
-        }
-
-        if (ch == 0x094D) {
-            return true;
-        }
-        if (ch < 0x0951) {
-            return false;
-        }
-        if (ch <= 0x0954) {
-            return true;
-        }
-        if (ch < 0x0962) {
-            return false;
-        }
-        if (ch <= 0x0963) {
-            return true;
-        }
-        if (ch < 0x0981) {
-            return false;
-        }
-        if (ch <= 0x0983) {
-            return true;
-        }
-
-        if (ch == 0x09BC) {
-            return true;
-        }
-        if (ch == 0x09BE) {
-            return true;
-        }
-        if (ch == 0x09BF) {
-            return true;
-        }
-        if (ch < 0x09C0) {
-            return false;
-        }
-        if (ch <= 0x09C4) {
-            return true;
-        }
-        if (ch < 0x09C7) {
-            return false;
-        }
-        if (ch <= 0x09C8) {
-            return true;
-        }
-
-        if (ch < 0x09CB) {
-            return false;
-        }
-        if (ch <= 0x09CD) {
-            return true;
-        }
-        if (ch == 0x09D7) {
-            return true;
-        }
-        if (ch < 0x09E2) {
-            return false;
-        }
-        if (ch <= 0x09E3) {
-            return true;
-        }
-        if (ch == 0x0A02) {
-            return true;
-        }
-        if (ch == 0x0A3C) {
-            return true;
-        }
-
-        if (ch == 0x0A3E) {
-            return true;
-        }
-        if (ch == 0x0A3F) {
-            return true;
-        }
-        if (ch < 0x0A40) {
-            return false;
-        }
-        if (ch <= 0x0A42) {
-            return true;
-        }
-        if (ch < 0x0A47) {
-            return false;
-        }
-        if (ch <= 0x0A48) {
-            return true;
-        }
-
-        if (ch < 0x0A4B) {
-            return false;
-        }
-        if (ch <= 0x0A4D) {
-            return true;
-        }
-        if (ch < 0x0A70) {
-            return false;
-        }
-        if (ch <= 0x0A71) {
-            return true;
-        }
-        if (ch < 0x0A81) {
-            return false;
-        }
-        if (ch <= 0x0A83) {
-            return true;
-        }
-        if (ch == 0x0ABC) {
-            return true;
-        }
-
-        if (ch < 0x0ABE) {
-            return false;
-        }
-        if (ch <= 0x0AC5) {
-            return true;
-        }
-        if (ch < 0x0AC7) {
-            return false;
-        }
-        if (ch <= 0x0AC9) {
-            return true;
-        }
-        if (ch < 0x0ACB) {
-            return false;
-        }
-        if (ch <= 0x0ACD) {
-            return true;
-        }
-
-        if (ch < 0x0B01) {
-            return false;
-        }
-        if (ch <= 0x0B03) {
-            return true;
-        }
-        if (ch == 0x0B3C) {
-            return true;
-        }
-        if (ch < 0x0B3E) {
-            return false;
-        }
-        if (ch <= 0x0B43) {
-            return true;
-        }
-        if (ch < 0x0B47) {
-            return false;
-        }
-        if (ch <= 0x0B48) {
-            return true;
-        }
-
-        if (ch < 0x0B4B) {
-            return false;
-        }
-        if (ch <= 0x0B4D) {
-            return true;
-        }
-        if (ch < 0x0B56) {
-            return false;
-        }
-        if (ch <= 0x0B57) {
-            return true;
-        }
-        if (ch < 0x0B82) {
-            return false;
-        }
-        if (ch <= 0x0B83) {
-            return true;
-        }
-
-        if (ch < 0x0BBE) {
-            return false;
-        }
-        if (ch <= 0x0BC2) {
-            return true;
-        }
-        if (ch < 0x0BC6) {
-            return false;
-        }
-        if (ch <= 0x0BC8) {
-            return true;
-        }
-        if (ch < 0x0BCA) {
-            return false;
-        }
-        if (ch <= 0x0BCD) {
-            return true;
-        }
-        if (ch == 0x0BD7) {
-            return true;
-        }
-
-        if (ch < 0x0C01) {
-            return false;
-        }
-        if (ch <= 0x0C03) {
-            return true;
-        }
-        if (ch < 0x0C3E) {
-            return false;
-        }
-        if (ch <= 0x0C44) {
-            return true;
-        }
-        if (ch < 0x0C46) {
-            return false;
-        }
-        if (ch <= 0x0C48) {
-            return true;
-        }
-
-        if (ch < 0x0C4A) {
-            return false;
-        }
-        if (ch <= 0x0C4D) {
-            return true;
-        }
-        if (ch < 0x0C55) {
-            return false;
-        }
-        if (ch <= 0x0C56) {
-            return true;
-        }
-        if (ch < 0x0C82) {
-            return false;
-        }
-        if (ch <= 0x0C83) {
-            return true;
-        }
-
-        if (ch < 0x0CBE) {
-            return false;
-        }
-        if (ch <= 0x0CC4) {
-            return true;
-        }
-        if (ch < 0x0CC6) {
-            return false;
-        }
-        if (ch <= 0x0CC8) {
-            return true;
-        }
-        if (ch < 0x0CCA) {
-            return false;
-        }
-        if (ch <= 0x0CCD) {
-            return true;
-        }
-
-        if (ch < 0x0CD5) {
-            return false;
-        }
-        if (ch <= 0x0CD6) {
-            return true;
-        }
-        if (ch < 0x0D02) {
-            return false;
-        }
-        if (ch <= 0x0D03) {
-            return true;
-        }
-        if (ch < 0x0D3E) {
-            return false;
-        }
-        if (ch <= 0x0D43) {
-            return true;
-        }
-
-        if (ch < 0x0D46) {
-            return false;
-        }
-        if (ch <= 0x0D48) {
-            return true;
-        }
-        if (ch < 0x0D4A) {
-            return false;
-        }
-        if (ch <= 0x0D4D) {
-            return true;
-        }
-        if (ch == 0x0D57) {
-            return true;
-        }
-        if (ch == 0x0E31) {
-            return true;
-        }
-
-        if (ch < 0x0E34) {
-            return false;
-        }
-        if (ch <= 0x0E3A) {
-            return true;
-        }
-        if (ch < 0x0E47) {
-            return false;
-        }
-        if (ch <= 0x0E4E) {
-            return true;
-        }
-        if (ch == 0x0EB1) {
-            return true;
-        }
-        if (ch < 0x0EB4) {
-            return false;
-        }
-        if (ch <= 0x0EB9) {
-            return true;
-        }
-
-        if (ch < 0x0EBB) {
-            return false;
-        }
-        if (ch <= 0x0EBC) {
-            return true;
-        }
-        if (ch < 0x0EC8) {
-            return false;
-        }
-        if (ch <= 0x0ECD) {
-            return true;
-        }
-        if (ch < 0x0F18) {
-            return false;
-        }
-        if (ch <= 0x0F19) {
-            return true;
-        }
-        if (ch == 0x0F35) {
-            return true;
-        }
-
-        if (ch == 0x0F37) {
-            return true;
-        }
-        if (ch == 0x0F39) {
-            return true;
-        }
-        if (ch == 0x0F3E) {
-            return true;
-        }
-        if (ch == 0x0F3F) {
-            return true;
-        }
-        if (ch < 0x0F71) {
-            return false;
-        }
-        if (ch <= 0x0F84) {
-            return true;
-        }
-
-        if (ch < 0x0F86) {
-            return false;
-        }
-        if (ch <= 0x0F8B) {
-            return true;
-        }
-        if (ch < 0x0F90) {
-            return false;
-        }
-        if (ch <= 0x0F95) {
-            return true;
-        }
-        if (ch == 0x0F97) {
-            return true;
-        }
-        if (ch < 0x0F99) {
-            return false;
-        }
-        if (ch <= 0x0FAD) {
-            return true;
-        }
-
-        if (ch < 0x0FB1) {
-            return false;
-        }
-        if (ch <= 0x0FB7) {
-            return true;
-        }
-        if (ch == 0x0FB9) {
-            return true;
-        }
-        if (ch < 0x20D0) {
-            return false;
-        }
-        if (ch <= 0x20DC) {
-            return true;
-        }
-        if (ch == 0x20E1) {
-            return true;
-        }
-
-        if (ch < 0x302A) {
-            return false;
-        }
-        if (ch <= 0x302F) {
-            return true;
-        }
-        if (ch == 0x3099) {
-            return true;
-        }
-        if (ch == 0x309A) {
-            return true;
-        }
-
-        return false;
-
-    }
-
-    /**
-     * This is a utility function for determining whether a specified character is an extender according to production
-     * 88 of the XML 1.0 specification.
-     *
-     * @param ch <code>char</code> to check.
-     * @return <code>String</code> true if it's an extender, false otherwise.
-     */
-    public static boolean isXMLExtender(char ch) {
-
-        if (ch < 0x00B6) {
-            return false;  // quick short circuit
-        }
-
-        // Extenders                               
-        if (ch == 0x00B7) {
-            return true;
-        }
-        if (ch == 0x02D0) {
-            return true;
-        }
-        if (ch == 0x02D1) {
-            return true;
-        }
-        if (ch == 0x0387) {
-            return true;
-        }
-        if (ch == 0x0640) {
-            return true;
-        }
-        if (ch == 0x0E46) {
-            return true;
-        }
-        if (ch == 0x0EC6) {
-            return true;
-        }
-        if (ch == 0x3005) {
-            return true;
-        }
-
-        if (ch < 0x3031) {
-            return false;
-        }
-        if (ch <= 0x3035) {
-            return true;
-        }
-        if (ch < 0x309D) {
-            return false;
-        }
-        if (ch <= 0x309E) {
-            return true;
-        }
-        if (ch < 0x30FC) {
-            return false;
-        }
-        if (ch <= 0x30FE) {
-            return true;
-        }
-
-        return false;
-
-    }
-
-    /**
-     * This is a utility function for determining whether a specified Unicode character is a digit according to
-     * production 88 of the XML 1.0 specification.
-     *
-     * @param ch <code>char</code> to check for XML digit compliance
-     * @return <code>boolean</code> true if it's a digit, false otherwise
-     */
-    public static boolean isXMLDigit(char ch) {
-
-        if (ch < 0x0030) {
-            return false;
-        }
-        if (ch <= 0x0039) {
-            return true;
-        }
-        if (ch < 0x0660) {
-            return false;
-        }
-        if (ch <= 0x0669) {
-            return true;
-        }
-        if (ch < 0x06F0) {
-            return false;
-        }
-        if (ch <= 0x06F9) {
-            return true;
-        }
-        if (ch < 0x0966) {
-            return false;
-        }
-        if (ch <= 0x096F) {
-            return true;
-        }
-
-        if (ch < 0x09E6) {
-            return false;
-        }
-        if (ch <= 0x09EF) {
-            return true;
-        }
-        if (ch < 0x0A66) {
-            return false;
-        }
-        if (ch <= 0x0A6F) {
-            return true;
-        }
-        if (ch < 0x0AE6) {
-            return false;
-        }
-        if (ch <= 0x0AEF) {
-            return true;
-        }
-
-        if (ch < 0x0B66) {
-            return false;
-        }
-        if (ch <= 0x0B6F) {
-            return true;
-        }
-        if (ch < 0x0BE7) {
-            return false;
-        }
-        if (ch <= 0x0BEF) {
-            return true;
-        }
-        if (ch < 0x0C66) {
-            return false;
-        }
-        if (ch <= 0x0C6F) {
-            return true;
-        }
-
-        if (ch < 0x0CE6) {
-            return false;
-        }
-        if (ch <= 0x0CEF) {
-            return true;
-        }
-        if (ch < 0x0D66) {
-            return false;
-        }
-        if (ch <= 0x0D6F) {
-            return true;
-        }
-        if (ch < 0x0E50) {
-            return false;
-        }
-        if (ch <= 0x0E59) {
-            return true;
-        }
-
-        if (ch < 0x0ED0) {
-            return false;
-        }
-        if (ch <= 0x0ED9) {
-            return true;
-        }
-        if (ch < 0x0F20) {
-            return false;
-        }
-        if (ch <= 0x0F29) {
-            return true;
-        }
-
-        return false;
-    }
-
-    /**
-     * This is a utility function for determining whether a specified Unicode character is a whitespace character
-     * according to production 3 of the XML 1.0 specification.
-     *
-     * @param ch <code>char</code> to check for XML whitespace compliance
-     * @return <code>boolean</code> true if it's a whitespace, false otherwise
-     */
-    public static boolean isXMLWhitespace(char ch) {
-        if (ch == ' ' || ch == '\n' || ch == '\t' || ch == '\r') {
-            return true;
-        }
-        return false;
+        return union;
     }
 }
@@ -0,0 +1,369 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom.input;
+
+import org.cdmckay.coffeedom.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a CoffeeDOM document from the binary format written by {@link
+ * org.cdmckay.coffeedom.output.BinaryOutputter}, which describes the format.
+ * <p/>
+ * Like {@link SAXBuilder}, a binary builder creates the tree through a {@link CoffeeDOMFactory}, so by default every
+ * name and character is checked again.  Input written by a <code>BinaryOutputter</code> from a tree that was itself
+ * checked can be trusted with {@link #setTrustInput(boolean)}, which builds it through an {@link
+ * UncheckedCoffeeDOMFactory}.  Documents are built without recursion, so any depth of nesting is supported.
+ *
+ * @author Cameron McKay
+ * @see org.cdmckay.coffeedom.output.BinaryOutputter
+ */
+public class BinaryBuilder {
+
+    // The format constants are repeated from BinaryOutputter
+    private static final byte[] MAGIC = {'C', 'D', 'O', 'M'};
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+    private static final int ELEMENT = 1;
+    private static final int TEXT = 2;
+    private static final int CDATA = 3;
+    private static final int COMMENT = 4;
+    private static final int PROCESSING_INSTRUCTION = 5;
+    private static final int ENTITY_REF = 6;
+    private static final int DOCTYPE = 7;
+
+    private static final int NULL_STRING = 0;
+    private static final int LITERAL_STRING = 1;
+    private static final int FIRST_STRING_REFERENCE = 2;
+
+    private static final Attribute.Type[] TYPES = Attribute.Type.values();
+
+    /**
+     * The factory for creating new CoffeeDOM objects.
+     */
+    private CoffeeDOMFactory factory = new DefaultCoffeeDOMFactory();
+
+    /**
+     * Whether to build through the unchecked factory
+     */
+    private boolean trustInput = false;
+
+    /**
+     * Creates a binary builder that checks what it builds.
+     */
+    public BinaryBuilder() {
+    }
+
+    /**
+     * This sets a custom CoffeeDOMFactory for the builder.  Use this to build the tree with your own subclasses of the
+     * CoffeeDOM classes.
+     *
+     * @param factory <code>CoffeeDOMFactory</code> to use
+     */
+    public void setFactory(CoffeeDOMFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the current {@link CoffeeDOMFactory} in use.
+     *
+     * @return the factory in use
+     */
+    public CoffeeDOMFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Returns whether this builder trusts its input to hold only well-formed names and characters.
+     *
+     * @return whether the input is trusted
+     * @see #setTrustInput(boolean)
+     */
+    public boolean getTrustInput() {
+        return trustInput;
+    }
+
+    /**
+     * Specifies whether this builder trusts its input, which is the case for input written by a {@link
+     * org.cdmckay.coffeedom.output.BinaryOutputter} from a checked tree and not altered since.  When it does, and no
+     * custom factory has been set, the tree is built through an {@link UncheckedCoffeeDOMFactory}, as with {@link
+     * SAXBuilder#setTrustParser(boolean)}.  The default value of this setting is <code>false</code>.
+     *
+     * @param trustInput whether to trust the input
+     */
+    public void setTrustInput(boolean trustInput) {
+        this.trustInput = trustInput;
+    }
+
+    /**
+     * Builds a document from a stream.  The stream is read in blocks, possibly past the end of the document, and is
+     * not closed.
+     *
+     * @param in the stream to read
+     * @return the document
+     * @throws CoffeeDOMException if the stream does not hold a document in the binary format, or if the factory refuses
+     *                            one of its nodes
+     * @throws IOException        if the stream cannot be read or ends before the document does
+     */
+    public Document build(InputStream in) throws CoffeeDOMException, IOException {
+        CoffeeDOMFactory f = factory;
+        if (trustInput && f.getClass() == DefaultCoffeeDOMFactory.class) {
+            f = new UncheckedCoffeeDOMFactory();
+        }
+        return new Decoder(in, f).readDocument();
+    }
+
+    /**
+     * Builds a document from an array of bytes.
+     *
+     * @param bytes the bytes to read
+     * @return the document
+     * @throws CoffeeDOMException if the bytes do not hold a document in the binary format, or if the factory refuses
+     *                            one of its nodes
+     */
+    public Document build(byte[] bytes) throws CoffeeDOMException {
+        try {
+            return build(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new CoffeeDOMParseException("Error reading binary document: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The state of one build: the input buffer and the string and namespace tables.
+     */
+    private static final class Decoder {
+
+        private final InputStream in;
+        private final CoffeeDOMFactory factory;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+
+        private final List<String> strings = new ArrayList<String>();
+        private final List<Namespace> namespaces = new ArrayList<Namespace>();
+        private char[] chars = new char[64];
+
+        Decoder(InputStream in, CoffeeDOMFactory factory) {
+            this.in = in;
+            this.factory = factory;
+            namespaces.add(Namespace.NO_NAMESPACE);
+            namespaces.add(Namespace.XML_NAMESPACE);
+        }
+
+        Document readDocument() throws IOException {
+            for (byte b : MAGIC) {
+                if (readByte() != b) {
+                    throw new CoffeeDOMParseException("Not a CoffeeDOM binary document", null);
+                }
+            }
+            int version = readByte();
+            if (version != VERSION) {
+                throw new CoffeeDOMParseException("Unsupported binary document version " + version, null);
+            }
+
+            Document document = factory.document(null);
+            String baseURI = readString(false);
+            if (baseURI != null) {
+                document.setBaseURI(baseURI);
+            }
+
+            List<Parent> ancestors = new ArrayList<Parent>();
+            Parent parent = document;
+            while (true) {
+                int tag = readByte();
+                switch (tag) {
+                    case END:
+                        if (ancestors.isEmpty()) {
+                            return document;
+                        }
+                        parent = ancestors.remove(ancestors.size() - 1);
+                        break;
+                    case ELEMENT:
+                        Element element = readElement();
+                        factory.addContent(parent, element);
+                        ancestors.add(parent);
+                        parent = element;
+                        break;
+                    case TEXT:
+                        factory.addContent(parent, factory.text(readString(false)));
+                        break;
+                    case CDATA:
+                        factory.addContent(parent, factory.cdata(readString(false)));
+                        break;
+                    case COMMENT:
+                        factory.addContent(parent, factory.comment(readString(false)));
+                        break;
+                    case PROCESSING_INSTRUCTION:
+                        String target = readString(true);
+                        factory.addContent(parent, factory.processingInstruction(target, readString(false)));
+                        break;
+                    case ENTITY_REF:
+                        String name = readString(true);
+                        String publicID = readString(false);
+                        factory.addContent(parent, factory.entityRef(name, publicID, readString(false)));
+                        break;
+                    case DOCTYPE:
+                        String elementName = readString(true);
+                        String docTypePublicID = readString(false);
+                        DocType docType = factory.docType(elementName, docTypePublicID, readString(false));
+                        docType.setInternalSubset(readString(false));
+                        factory.addContent(parent, docType);
+                        break;
+                    default:
+                        throw new CoffeeDOMParseException("Unknown node tag " + tag, null);
+                }
+            }
+        }
+
+        private Element readElement() throws IOException {
+            String name = readString(true);
+            Element element = factory.element(name, readNamespace());
+
+            for (int i = readNumber(); i > 0; i--) {
+                factory.addNamespaceDeclaration(element, readNamespace());
+            }
+
+            for (int i = readNumber(); i > 0; i--) {
+                String attributeName = readString(true);
+                Namespace namespace = readNamespace();
+                int type = readByte();
+                if (type >= TYPES.length) {
+                    throw new CoffeeDOMParseException("Unknown attribute type " + type, null);
+                }
+                String value = readString(true);
+                factory.setAttribute(element, factory.attribute(attributeName, value, TYPES[type], namespace));
+            }
+            return element;
+        }
+
+        private Namespace readNamespace() throws IOException {
+            int number = readNumber();
+            if (number < namespaces.size()) {
+                return namespaces.get(number);
+            }
+            if (number > namespaces.size()) {
+                throw new CoffeeDOMParseException("Unknown namespace " + number, null);
+            }
+            String prefix = readString(true);
+            Namespace namespace = Namespace.getNamespace(prefix, readString(true));
+            namespaces.add(namespace);
+            return namespace;
+        }
+
+        private String readString(boolean shared) throws IOException {
+            int number = readNumber();
+            if (number == NULL_STRING) {
+                return null;
+            }
+            if (number != LITERAL_STRING) {
+                number -= FIRST_STRING_REFERENCE;
+                if (number >= strings.size()) {
+                    throw new CoffeeDOMParseException("Unknown string " + number, null);
+                }
+                return strings.get(number);
+            }
+
+            int length = readNumber();
+            if (length > chars.length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                if (position < limit && buffer[position] >= 0) {
+                    chars[i] = (char) buffer[position++];
+                } else {
+                    chars[i] = (char) readNumber();
+                }
+            }
+            String s = new String(chars, 0, length);
+            if (shared) {
+                strings.add(s);
+            }
+            return s;
+        }
+
+        private int readNumber() throws IOException {
+            int n = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                n |= (b & 0x7F) << shift;
+                if (b < 0x80) {
+                    if (n < 0) {
+                        break;
+                    }
+                    return n;
+                }
+            }
+            throw new CoffeeDOMParseException("Malformed number", null);
+        }
+
+        private int readByte() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("Binary document ended early");
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+    }
+}
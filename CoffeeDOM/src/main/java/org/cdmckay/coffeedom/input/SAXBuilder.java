@@ -177,6 +177,16 @@ public class SAXBuilder {
      */
     private XMLReader saxParser = null;
 
+    /**
+     * Table of element and attribute names shared by all builds, or null to use one table per build
+     */
+    private SymbolTable symbolTable = null;
+
+    /**
+     * Whether to build through the unchecked factory, relying on the parser for well-formedness
+     */
+    private boolean trustParser = false;
+
     /**
      * Creates a new SAXBuilder which will attempt to first locate a parser via JAXP, then will try to use a set of
      * default SAX Drivers. The underlying parser will not validate.
@@ -418,6 +428,53 @@ public class SAXBuilder {
         }
     }
 
+    /**
+     * Returns the table of element and attribute names shared by all builds, or null if each build uses its own.
+     *
+     * @return the shared <code>SymbolTable</code>, or null
+     * @see #setSymbolTable(SymbolTable)
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Specifies a table of element and attribute names to be shared by all documents built by this builder, so that
+     * equal names in different documents are the same <code>String</code> instance.  The table is thread safe and may
+     * also be shared between builders.  The default value of this setting is <code>null</code>, which gives each build
+     * a table of its own.
+     *
+     * @param symbolTable the shared <code>SymbolTable</code>, or null
+     */
+    public void setSymbolTable(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Returns whether this builder relies on the SAX parser to check names, character data, duplicate attributes and
+     * namespace declarations, rather than checking them again as the tree is built.
+     *
+     * @return whether the parser is trusted
+     * @see #setTrustParser(boolean)
+     */
+    public boolean getTrustParser() {
+        return trustParser;
+    }
+
+    /**
+     * Specifies whether this builder trusts the SAX parser to report only well-formed, namespace-well-formed
+     * documents.  When it does, and no custom factory has been set, the tree is built through an {@link
+     * UncheckedCoffeeDOMFactory}: names and character data are not verified and children and attributes are appended
+     * without parent, collision or duplicate checks.  This is considerably faster, but a parser that reports a malformed
+     * document (for example an XML 1.1 name, or a filter that rewrites events) can then produce a tree that the checked
+     * methods would have refused.  The default value of this setting is <code>false</code>.
+     *
+     * @param trustParser whether to trust the parser
+     */
+    public void setTrustParser(boolean trustParser) {
+        this.trustParser = trustParser;
+    }
+
     /**
      * This sets a feature on the SAX parser. See the SAX documentation for . more information. </p> <p> NOTE:
      * SAXBuilder requires that some particular features of the SAX parser be set up in certain ways for it to work
@@ -458,11 +515,26 @@ public class SAXBuilder {
      *         from being fully parsed
      */
     public Document build(InputSource in) throws CoffeeDOMException, IOException {
-        SAXHandler contentHandler = null;
+        return build(in, createContentHandler());
+    }
 
+    /**
+     * This parses the supplied input source with the given content handler instead of one made by {@link
+     * #createContentHandler()}.  The handler is configured by {@link #configureContentHandler(SAXHandler)} as usual.
+     * This lets handlers that keep only part of the document, such as {@link
+     * org.cdmckay.coffeedom.xpath.XPathStreamer}, use the parser set up by this builder.  As with any
+     * <code>SAXHandler</code>, the handler cannot be reused.
+     *
+     * @param in             <code>InputSource</code> to read from
+     * @param contentHandler <code>SAXHandler</code> receiving the parse events
+     * @return <code>Document</code> built by the handler
+     * @throws CoffeeDOMException when errors occur in parsing
+     * @throws IOException when an I/O error prevents a document
+     *         from being fully parsed
+     */
+    public Document build(InputSource in, SAXHandler contentHandler) throws CoffeeDOMException, IOException {
         try {
-            // Create and configure the content handler.
-            contentHandler = createContentHandler();
+            // Configure the content handler.
             configureContentHandler(contentHandler);
 
             XMLReader parser = this.saxParser;
@@ -522,6 +594,9 @@ public class SAXBuilder {
      * @return <code>SAXHandler</code> - resultant SAXHandler object.
      */
     protected SAXHandler createContentHandler() {
+        if (trustParser && factory.getClass() == DefaultCoffeeDOMFactory.class) {
+            return new SAXHandler(new UncheckedCoffeeDOMFactory());
+        }
         return new SAXHandler(factory);
     }
 
@@ -537,6 +612,9 @@ public class SAXBuilder {
         contentHandler.setExpandEntities(expand);
         contentHandler.setIgnoringElementContentWhitespace(ignoringWhite);
         contentHandler.setIgnoringBoundaryWhitespace(ignoringBoundaryWhite);
+        if (symbolTable != null) {
+            contentHandler.setSymbolTable(symbolTable);
+        }
     }
 
     /**
@@ -174,6 +174,11 @@ public class SAXHandler
      */
     private Locator locator;
 
+    /**
+     * Canonical instances of the element and attribute names
+     */
+    private SymbolTable symbols = new SymbolTable();
+
     /**
      * This will create a new <code>SAXHandler</code> that listens to SAX events and creates a CoffeeDOM Document.  The
      * objects will be constructed using the default factory.
@@ -237,6 +242,29 @@ public class SAXHandler
         return factory;
     }
 
+    /**
+     * Sets the table used to share element and attribute name instances.  By default each handler uses a table of its
+     * own.
+     *
+     * @param symbols <code>SymbolTable</code> for the names seen during the build
+     */
+    public void setSymbolTable(SymbolTable symbols) {
+        if (symbols == null) {
+            throw new IllegalArgumentException("symbols parameter was null");
+        }
+        this.symbols = symbols;
+    }
+
+    /**
+     * Returns the table used to share element and attribute name instances.
+     *
+     * @return <code>SymbolTable</code> for the names seen during the build
+     * @see #setSymbolTable(SymbolTable)
+     */
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
     /**
      * This sets whether or not to expand entities during the build. A true means to expand entities as normal content.
      * A false means to leave entities unexpanded as <code>EntityRef</code> objects.  The default is true.
@@ -475,13 +503,13 @@ public class SAXHandler
 
         Element element;
 
+        localName = symbols.intern(localName);
         if ((namespaceURI != null) && (!namespaceURI.equals(""))) {
             String prefix = "";
 
             // Determine any prefix on the Element
             if (!qName.equals(localName)) {
-                int split = qName.indexOf(":");
-                prefix = qName.substring(0, split);
+                prefix = symbols.prefix(qName);
             }
             Namespace elementNamespace = Namespace.getNamespace(prefix, namespaceURI);
             element = factory.element(localName, elementNamespace);
@@ -514,13 +542,14 @@ public class SAXHandler
             // First clause per http://markmail.org/message/2p245ggcjst27xe6
             // patch from Mattias Jiderhamn
             if ("".equals(attributeLocalName) && attributeQName.indexOf(":") == -1) {
-                attribute = factory.attribute(attributeQName, attributes.getValue(i), attType);
+                attribute = factory.attribute(symbols.intern(attributeQName), attributes.getValue(i), attType);
             } else if (!attributeQName.equals(attributeLocalName)) {
-                String attPrefix = attributeQName.substring(0, attributeQName.indexOf(":"));
+                String attPrefix = symbols.prefix(attributeQName);
                 Namespace attNs = Namespace.getNamespace(attPrefix, attributes.getURI(i));
-                attribute = factory.attribute(attributeLocalName, attributes.getValue(i), attType, attNs);
+                attribute = factory.attribute(symbols.intern(attributeLocalName), attributes.getValue(i), attType,
+                        attNs);
             } else {
-                attribute = factory.attribute(attributeLocalName, attributes.getValue(i), attType);
+                attribute = factory.attribute(symbols.intern(attributeLocalName), attributes.getValue(i), attType);
             }
             factory.setAttribute(element, attribute);
         }
@@ -545,7 +574,7 @@ public class SAXHandler
     private void transferNamespaces(Element element) {
         for (Namespace declaredNamespace : declaredNamespaces) {
             if (declaredNamespace != element.getNamespace()) {
-                element.addNamespaceDeclaration(declaredNamespace);
+                factory.addNamespaceDeclaration(element, declaredNamespace);
             }
         }
         declaredNamespaces.clear();
@@ -0,0 +1,172 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom.input;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of canonical <code>String</code> instances for the element and attribute names seen while building. SAX
+ * drivers may hand over a new <code>String</code> for every occurrence of a name, so a large document with a small
+ * vocabulary would otherwise hold millions of equal name strings. A {@link SAXHandler} uses a fresh table for each
+ * build unless one is supplied through {@link SAXBuilder#setSymbolTable(SymbolTable)}, which lets several builds (even
+ * concurrent ones) share their names.
+ * <p/>
+ * The table stops growing once it holds its maximum number of symbols; names seen after that are used as they are.
+ *
+ * @author Cameron McKay
+ */
+public class SymbolTable {
+
+    /**
+     * The maximum number of symbols held by a table created with the default constructor
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * Canonical instances of the names
+     */
+    private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Canonical prefixes of the qualified names
+     */
+    private final ConcurrentHashMap<String, String> prefixes = new ConcurrentHashMap<String, String>();
+
+    /**
+     * The maximum number of entries in each map
+     */
+    private final int maxSize;
+
+    /**
+     * Creates a table holding at most {@link #DEFAULT_MAX_SIZE} symbols.
+     */
+    public SymbolTable() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a table holding at most the given number of symbols.
+     *
+     * @param maxSize maximum number of symbols
+     * @throws IllegalArgumentException if <code>maxSize</code> is negative
+     */
+    public SymbolTable(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the canonical instance of the given name.
+     *
+     * @param name name to look up, may be null
+     * @return an equal <code>String</code>, shared by all callers once the name is in the table
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        String symbol = symbols.get(name);
+        if (symbol != null) {
+            return symbol;
+        }
+
+        if (symbols.size() >= maxSize) {
+            return name;
+        }
+        symbol = symbols.putIfAbsent(name, name);
+        return symbol != null ? symbol : name;
+    }
+
+    /**
+     * Returns the canonical instance of the prefix of the given qualified name, which is the empty string if the name
+     * has no prefix.  The prefix of each distinct qualified name is only split off once.
+     *
+     * @param qName qualified name of the form [prefix]:[localName]
+     * @return the prefix
+     */
+    public String prefix(String qName) {
+        String prefix = prefixes.get(qName);
+        if (prefix != null) {
+            return prefix;
+        }
+
+        int split = qName.indexOf(':');
+        prefix = split < 0 ? "" : intern(qName.substring(0, split));
+        if (prefixes.size() < maxSize) {
+            prefixes.putIfAbsent(qName, prefix);
+        }
+        return prefix;
+    }
+
+    /**
+     * Returns the number of names in this table.
+     *
+     * @return number of symbols
+     */
+    public int size() {
+        return symbols.size();
+    }
+
+    /**
+     * Returns the maximum number of names this table holds.
+     *
+     * @return maximum number of symbols
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
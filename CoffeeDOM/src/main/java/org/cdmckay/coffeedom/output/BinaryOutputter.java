@@ -0,0 +1,345 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom.output;
+
+import org.cdmckay.coffeedom.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a CoffeeDOM document or element in a compact binary format that {@link
+ * org.cdmckay.coffeedom.input.BinaryBuilder} reads back, for passing trees between JVMs much faster than through XML
+ * text and much smaller than through Java serialization.
+ * <p/>
+ * The format starts with the bytes <code>CDOM</code> and a version byte, followed by the document's base URI and its
+ * nodes in document order.  Each node is a tag byte followed by its fields; the children of the document and of each
+ * element are ended by an end tag.  Numbers are unsigned variable-length integers of 7 bits per byte, lowest first.
+ * A string is 0 for null, 1 followed by its length and its characters (each a number), or 2 plus its position in a
+ * string table.  Names, namespace prefixes and URIs and attribute values enter the table the first time they are
+ * written, so each of them is only written once; text is always written in full.  Namespaces are numbered the same
+ * way, with {@link Namespace#NO_NAMESPACE} and {@link Namespace#XML_NAMESPACE} as 0 and 1: a number equal to the size
+ * of the namespace table introduces a new namespace, followed by its prefix and URI.
+ * <p/>
+ * An outputter has no state of its own and can be shared between threads.  Documents and elements are written without
+ * recursion, so any depth of nesting is supported.
+ *
+ * @author Cameron McKay
+ * @see org.cdmckay.coffeedom.input.BinaryBuilder
+ */
+public class BinaryOutputter {
+
+    // The format constants are repeated in BinaryBuilder
+    private static final byte[] MAGIC = {'C', 'D', 'O', 'M'};
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+    private static final int ELEMENT = 1;
+    private static final int TEXT = 2;
+    private static final int CDATA = 3;
+    private static final int COMMENT = 4;
+    private static final int PROCESSING_INSTRUCTION = 5;
+    private static final int ENTITY_REF = 6;
+    private static final int DOCTYPE = 7;
+
+    private static final int NULL_STRING = 0;
+    private static final int LITERAL_STRING = 1;
+    private static final int FIRST_STRING_REFERENCE = 2;
+
+    /**
+     * Creates a binary outputter.
+     */
+    public BinaryOutputter() {
+    }
+
+    /**
+     * Writes a document.  The stream is flushed but not closed.
+     *
+     * @param document the document to write
+     * @param out      the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public void output(Document document, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder(out);
+        encoder.writeHeader(document.getBaseURI());
+        encoder.writeNodes(document.getContents());
+        encoder.flush();
+    }
+
+    /**
+     * Writes an element and everything below it.  It is read back as the root element of a document.  The stream is
+     * flushed but not closed.
+     *
+     * @param element the element to write
+     * @param out     the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public void output(Element element, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder(out);
+        encoder.writeHeader(null);
+        encoder.writeNodes(Collections.<Content>singletonList(element));
+        encoder.flush();
+    }
+
+    /**
+     * The state of one write: the output buffer and the string and namespace tables.
+     */
+    private static final class Encoder {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+        private final Map<Namespace, Integer> namespaces = new IdentityHashMap<Namespace, Integer>();
+
+        Encoder(OutputStream out) {
+            this.out = out;
+            namespaces.put(Namespace.NO_NAMESPACE, 0);
+            namespaces.put(Namespace.XML_NAMESPACE, 1);
+        }
+
+        void writeHeader(String baseURI) throws IOException {
+            for (byte b : MAGIC) {
+                writeByte(b);
+            }
+            writeByte(VERSION);
+            writeString(baseURI, false);
+        }
+
+        /**
+         * Writes the given nodes and everything below them, followed by an end tag.
+         *
+         * @param top the nodes to write
+         * @throws IOException if the stream cannot be written to
+         */
+        void writeNodes(List<Content> top) throws IOException {
+            List<List<Content>> lists = new ArrayList<List<Content>>();
+            int[] positions = new int[16];
+            lists.add(top);
+            while (!lists.isEmpty()) {
+                int depth = lists.size() - 1;
+                List<Content> list = lists.get(depth);
+                int index = positions[depth];
+                if (index == list.size()) {
+                    lists.remove(depth);
+                    writeByte(END);
+                    continue;
+                }
+                positions[depth] = index + 1;
+
+                Content content = list.get(index);
+                if (content instanceof Element) {
+                    Element element = (Element) content;
+                    writeElement(element);
+                    if (element.getContentsSize() == 0) {
+                        writeByte(END);
+                    } else {
+                        if (depth + 1 == positions.length) {
+                            int[] grown = new int[positions.length * 2];
+                            System.arraycopy(positions, 0, grown, 0, positions.length);
+                            positions = grown;
+                        }
+                        // Reads the content a clone of a frozen element still shares without copying it
+                        lists.add(new ContentView(element));
+                        positions[depth + 1] = 0;
+                    }
+                } else {
+                    writeLeaf(content);
+                }
+            }
+        }
+
+        private void writeElement(Element element) throws IOException {
+            writeByte(ELEMENT);
+            writeString(element.getName(), true);
+            writeNamespace(element.getNamespace());
+
+            List<Namespace> additional = element.getAdditionalNamespaces();
+            writeNumber(additional.size());
+            for (int i = 0; i < additional.size(); i++) {
+                writeNamespace(additional.get(i));
+            }
+
+            if (!element.hasAttributes()) {
+                writeNumber(0);
+                return;
+            }
+            List<Attribute> attributes = element.getAttributes();
+            writeNumber(attributes.size());
+            for (int i = 0; i < attributes.size(); i++) {
+                Attribute attribute = attributes.get(i);
+                writeString(attribute.getName(), true);
+                writeNamespace(attribute.getNamespace());
+                writeByte(attribute.getAttributeType().ordinal());
+                writeString(attribute.getValue(), true);
+            }
+        }
+
+        private void writeLeaf(Content content) throws IOException {
+            // CDATA extends Text, so it has to be checked first
+            if (content instanceof CDATA) {
+                writeByte(CDATA);
+                writeString(((CDATA) content).getText(), false);
+            } else if (content instanceof Text) {
+                writeByte(TEXT);
+                writeString(((Text) content).getText(), false);
+            } else if (content instanceof Comment) {
+                writeByte(COMMENT);
+                writeString(((Comment) content).getText(), false);
+            } else if (content instanceof ProcessingInstruction) {
+                ProcessingInstruction pi = (ProcessingInstruction) content;
+                writeByte(PROCESSING_INSTRUCTION);
+                writeString(pi.getTarget(), true);
+                writeString(pi.getData(), false);
+            } else if (content instanceof EntityRef) {
+                EntityRef entityRef = (EntityRef) content;
+                writeByte(ENTITY_REF);
+                writeString(entityRef.getName(), true);
+                writeString(entityRef.getPublicID(), false);
+                writeString(entityRef.getSystemID(), false);
+            } else if (content instanceof DocType) {
+                DocType docType = (DocType) content;
+                writeByte(DOCTYPE);
+                writeString(docType.getElementName(), true);
+                writeString(docType.getPublicID(), false);
+                writeString(docType.getSystemID(), false);
+                writeString(docType.getInternalSubset(), false);
+            } else {
+                throw new CoffeeDOMException("Cannot write content of type " + content.getClass().getName());
+            }
+        }
+
+        private void writeNamespace(Namespace namespace) throws IOException {
+            Integer number = namespaces.get(namespace);
+            if (number != null) {
+                writeNumber(number);
+                return;
+            }
+            int size = namespaces.size();
+            namespaces.put(namespace, size);
+            writeNumber(size);
+            writeString(namespace.getPrefix(), true);
+            writeString(namespace.getURI(), true);
+        }
+
+        private void writeString(String s, boolean shared) throws IOException {
+            if (s == null) {
+                writeNumber(NULL_STRING);
+                return;
+            }
+            if (shared) {
+                Integer number = strings.get(s);
+                if (number != null) {
+                    writeNumber(FIRST_STRING_REFERENCE + number);
+                    return;
+                }
+                strings.put(s, strings.size());
+            }
+            int length = s.length();
+            writeNumber(LITERAL_STRING);
+            writeNumber(length);
+            for (int i = 0; i < length; i++) {
+                if (position + 3 > buffer.length) {
+                    flushBuffer();
+                }
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x4000) {
+                    buffer[position++] = (byte) (c | 0x80);
+                    buffer[position++] = (byte) (c >>> 7);
+                } else {
+                    buffer[position++] = (byte) (c | 0x80);
+                    buffer[position++] = (byte) ((c >>> 7) | 0x80);
+                    buffer[position++] = (byte) (c >>> 14);
+                }
+            }
+        }
+
+        private void writeNumber(int n) throws IOException {
+            if (position + 5 > buffer.length) {
+                flushBuffer();
+            }
+            while ((n & ~0x7F) != 0) {
+                buffer[position++] = (byte) (n | 0x80);
+                n >>>= 7;
+            }
+            buffer[position++] = (byte) n;
+        }
+
+        private void writeByte(int b) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+    }
+}
@@ -60,6 +60,9 @@ import org.cdmckay.coffeedom.adapters.DOMAdapter;
 import org.w3c.dom.CDATASection;
 import org.w3c.dom.EntityReference;
 
+import java.util.Collections;
+import java.util.List;
+
 
 /**
  * Outputs a CoffeeDOM {@link org.cdmckay.coffeedom.Document Document} as a DOM {@link org.w3c.dom.Document
@@ -268,7 +271,9 @@ public class DOMOutputter {
             }
 
             // Add attributes to the DOM element
-            for (Attribute attribute : element.getAttributes()) {
+            List<Attribute> attributes =
+                    element.hasAttributes() ? element.getAttributes() : Collections.<Attribute>emptyList();
+            for (Attribute attribute : attributes) {
                 domElement.setAttributeNode(output(attribute, domDoc));
                 Namespace ns1 = attribute.getNamespace();
                 if ((ns1 != Namespace.NO_NAMESPACE) && (ns1 != Namespace.XML_NAMESPACE)) {
@@ -295,7 +300,10 @@ public class DOMOutputter {
             }
 
             // Add content to the DOM element
-            for (Content content : element.getContents()) {
+            // Reads the content a clone of a frozen element still shares without copying it
+            List<Content> contents =
+                    element.getContentsSize() > 0 ? new ContentView(element) : Collections.<Content>emptyList();
+            for (Content content : contents) {
 
                 if (content instanceof Element) {
                     Element e = (Element) content;
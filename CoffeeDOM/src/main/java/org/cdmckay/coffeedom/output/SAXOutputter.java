@@ -743,7 +743,10 @@ public class SAXOutputter {
         startElement(element, nsAtts);
 
         // handle content in the element
-        elementContent(element.getContents(), namespaces);
+        if (element.getContentsSize() > 0) {
+            // Reads the content a clone of a frozen element still shares without copying it
+            elementContent(new ContentView(element), namespaces);
+        }
 
         // update locator
         if (locator != null) {
@@ -835,10 +838,11 @@ public class SAXOutputter {
         // Allocate attribute list.
         AttributesImpl atts = (nsAtts != null) ? new AttributesImpl(nsAtts) : new AttributesImpl();
 
-        List<Attribute> attributes = element.getAttributes();
-        for (Attribute attribute : attributes) {
-            atts.addAttribute(attribute.getNamespaceURI(), attribute.getName(), attribute.getQualifiedName(),
-                    getAttributeTypeName(attribute.getAttributeType()), attribute.getValue());
+        if (element.hasAttributes()) {
+            for (Attribute attribute : element.getAttributes()) {
+                atts.addAttribute(attribute.getNamespaceURI(), attribute.getName(), attribute.getQualifiedName(),
+                        getAttributeTypeName(attribute.getAttributeType()), attribute.getValue());
+            }
         }
 
         try {
@@ -58,6 +58,7 @@ import org.cdmckay.coffeedom.*;
 
 import javax.xml.transform.Result;
 import java.io.*;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -397,7 +398,7 @@ public class XMLOutputter
      * @throws IOException if there's any problem writing.
      */
     public void outputElementContent(Element element, Writer out) throws IOException {
-        List<Content> contents = element.getContents();
+        List<Content> contents = new ContentView(element);
         printContentRange(out, contents, 0, contents.size(), 0, createNamespaceStack());
         out.flush();
     }
@@ -811,8 +812,10 @@ public class XMLOutputter
     protected void printElement(Writer out, Element element, int level, NamespaceStack namespaces)
             throws IOException {
 
-        List<Attribute> attributes = element.getAttributes();
-        List<Content> contents = element.getContents();
+        List<Attribute> attributes = element.hasAttributes() ? element.getAttributes() : null;
+        // Reads the content a clone of a frozen element still shares without copying it
+        List<Content> contents =
+                element.getContentsSize() > 0 ? new ContentView(element) : Collections.<Content>emptyList();
 
         // Check for xml:space and adjust format settings
         String space = null;
@@ -57,15 +57,22 @@ package org.cdmckay.coffeedom.xpath;
 
 import org.cdmckay.coffeedom.*;
 import org.cdmckay.coffeedom.xpath.jaxen.CoffeeDOMXPath;
-import org.jaxen.JaxenException;
-import org.jaxen.SimpleNamespaceContext;
-import org.jaxen.SimpleVariableContext;
+import org.jaxen.*;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
- * A non-public concrete XPath implementation for Jaxen.
+ * A non-public concrete XPath implementation for Jaxen. <p> Instances may be shared between threads: the compiled
+ * expression is never modified after construction and each evaluation runs against its own Jaxen context, which holds
+ * the context node used to resolve undeclared prefixes.  Namespaces and variables are kept in copy-on-write maps, so an
+ * evaluation running while {@link #addNamespace(Namespace)} or {@link #setVariable(String, Object)} is called sees
+ * either the old or the new definitions, never a partial update.</p> <p> Expressions that are {@link SimplePath simple
+ * location paths} are selected directly from the tree when the context is an element or a document; Jaxen evaluates
+ * everything else.</p>
  *
  * @author Laurent Bihanic
  */
@@ -73,15 +80,25 @@ class JaxenXPath
         extends XPath {
 
     /**
-     * The compiled XPath object to select nodes.  This attribute can not be made final as it needs to be set upon
-     * object deserialization.
+     * The compiled XPath object to select nodes, possibly shared with other wrappers through the {@link XPathCache}.
+     * This attribute can not be made final as it needs to be set upon object deserialization.
      */
     private transient CoffeeDOMXPath xPath;
 
     /**
-     * The current context for XPath expression evaluation.
+     * The same expression compiled for direct evaluation, or null if it is not a {@link SimplePath}.
      */
-    private Object currentContext;
+    private transient SimplePath simplePath;
+
+    /**
+     * The namespace URIs declared with {@link #addNamespace(Namespace)}, by prefix.  Replaced, never modified.
+     */
+    private volatile Map<String, String> namespaces = Collections.emptyMap();
+
+    /**
+     * The variable values defined with {@link #setVariable(String, Object)}, by name.  Replaced, never modified.
+     */
+    private volatile Map<String, Object> variables = Collections.emptyMap();
 
     /**
      * Creates a new XPath wrapper object, compiling the specified XPath expression.
@@ -90,7 +107,39 @@ class JaxenXPath
      * @throws org.cdmckay.coffeedom.CoffeeDOMException if the XPath expression is invalid.
      */
     public JaxenXPath(String expr) throws CoffeeDOMException {
-        setXPath(expr);
+        xPath = compile(expr);
+        simplePath = SimplePath.compile(expr);
+    }
+
+    /**
+     * Creates a new XPath wrapper object sharing the compiled expression of another one.
+     *
+     * @param compiled the XPath wrapper whose expression to share.
+     */
+    private JaxenXPath(JaxenXPath compiled) {
+        xPath = compiled.xPath;
+        simplePath = compiled.simplePath;
+    }
+
+    /**
+     * Creates a new XPath wrapper object, reusing the compiled form of the expression if the cache holds it.
+     *
+     * @param expr  the XPath expression to wrap.
+     * @param cache the compiled expressions, or <code>null</code> to always compile.
+     * @return a new XPath wrapper object for <code>expr</code>.
+     * @throws org.cdmckay.coffeedom.CoffeeDOMException if the XPath expression is invalid.
+     */
+    static JaxenXPath newInstance(String expr, XPathCache cache) throws CoffeeDOMException {
+        if (cache == null) {
+            return new JaxenXPath(expr);
+        }
+
+        JaxenXPath compiled = cache.get(expr);
+        if (compiled == null) {
+            compiled = new JaxenXPath(expr);
+            cache.put(expr, compiled);
+        }
+        return new JaxenXPath(compiled);
     }
 
     /**
@@ -104,14 +153,14 @@ class JaxenXPath
      */
     @SuppressWarnings("unchecked")
     public List<Object> selectNodes(Object context) throws CoffeeDOMException {
+        List<Object> nodes = selectDirectly(context, false);
+        if (nodes != null) {
+            return nodes;
+        }
         try {
-            currentContext = context;
-
-            return (List<Object>) xPath.selectNodes(context);
+            return (List<Object>) xPath.selectNodes(newContext(context));
         } catch (JaxenException e) {
             throw new CoffeeDOMException("XPath error while evaluating \"" + xPath.toString() + "\": " + e.getMessage(), e);
-        } finally {
-            currentContext = null;
         }
     }
 
@@ -126,14 +175,14 @@ class JaxenXPath
      *                                        failed.
      */
     public Object selectSingleNode(Object context) throws CoffeeDOMException {
+        List<Object> nodes = selectDirectly(context, true);
+        if (nodes != null) {
+            return nodes.isEmpty() ? null : nodes.get(0);
+        }
         try {
-            currentContext = context;
-
-            return xPath.selectSingleNode(context);
+            return xPath.selectSingleNode(newContext(context));
         } catch (JaxenException e) {
             throw new CoffeeDOMException("XPath error while evaluating \"" + xPath.toString() + "\": " + e.getMessage(), e);
-        } finally {
-            currentContext = null;
         }
     }
 
@@ -149,14 +198,10 @@ class JaxenXPath
      */
     public String valueOf(Object context) throws CoffeeDOMException {
         try {
-            currentContext = context;
-
-            return xPath.stringValueOf(context);
+            return xPath.stringValueOf(newContext(context));
         } catch (JaxenException ex1) {
             throw new CoffeeDOMException("XPath error while evaluating \"" + xPath.toString() + "\": " + ex1.getMessage(),
                     ex1);
-        } finally {
-            currentContext = null;
         }
     }
 
@@ -173,13 +218,9 @@ class JaxenXPath
      */
     public Number numberValueOf(Object context) throws CoffeeDOMException {
         try {
-            currentContext = context;
-
-            return xPath.numberValueOf(context);
+            return xPath.numberValueOf(newContext(context));
         } catch (JaxenException e) {
             throw new CoffeeDOMException("XPath error while evaluating \"" + xPath.toString() + "\": " + e.getMessage(), e);
-        } finally {
-            currentContext = null;
         }
     }
 
@@ -191,11 +232,10 @@ class JaxenXPath
      * @throws IllegalArgumentException if <code>name</code> is not a valid XPath variable name or if the value type is
      *                                  not supported by the underlying implementation
      */
-    public void setVariable(String name, Object value) throws IllegalArgumentException {
-        Object o = xPath.getVariableContext();
-        if (o instanceof SimpleVariableContext) {
-            ((SimpleVariableContext) o).setVariableValue(null, name, value);
-        }
+    public synchronized void setVariable(String name, Object value) throws IllegalArgumentException {
+        Map<String, Object> copy = new HashMap<String, Object>(variables);
+        copy.put(name, value);
+        variables = copy;
     }
 
     /**
@@ -205,12 +245,10 @@ class JaxenXPath
      *
      * @param namespace the namespace.
      */
-    public void addNamespace(Namespace namespace) {
-        try {
-            xPath.addNamespace(namespace.getPrefix(), namespace.getURI());
-        } catch (JaxenException ignored) {
-            /* Can't happen here. */
-        }
+    public synchronized void addNamespace(Namespace namespace) {
+        Map<String, String> copy = new HashMap<String, String>(namespaces);
+        copy.put(namespace.getPrefix(), namespace.getURI());
+        namespaces = copy;
     }
 
     /**
@@ -223,20 +261,55 @@ class JaxenXPath
     }
 
     /**
-     * Compiles and sets the XPath expression wrapped by this object.
+     * Compiles an XPath expression.
      *
-     * @param expr the XPath expression to wrap.
+     * @param expr the XPath expression to compile.
+     * @return the compiled expression.
      * @throws org.cdmckay.coffeedom.CoffeeDOMException if the XPath expression is invalid.
      */
-    private void setXPath(String expr) throws CoffeeDOMException {
+    private static CoffeeDOMXPath compile(String expr) throws CoffeeDOMException {
         try {
-            xPath = new CoffeeDOMXPath(expr);
-            xPath.setNamespaceContext(new NSContext());
+            return new CoffeeDOMXPath(expr);
         } catch (Exception ex1) {
             throw new CoffeeDOMException("Invalid XPath expression: \"" + expr + "\"", ex1);
         }
     }
 
+    /**
+     * Evaluates the expression without Jaxen if it is a {@link SimplePath} and the context allows it.
+     *
+     * @param context the node to use as context.
+     * @param first   whether only the first selected node is needed.
+     * @return the selected nodes, or <code>null</code> if Jaxen has to evaluate the expression.
+     */
+    private List<Object> selectDirectly(Object context, boolean first) {
+        if (simplePath == null || !(context instanceof Element || context instanceof Document)) {
+            return null;
+        }
+        String[] uris = simplePath.resolve(new NSContext(namespaces, context));
+        return uris == null ? null : simplePath.select(context, uris, first);
+    }
+
+    /**
+     * Builds the Jaxen context for one evaluation.  Everything the evaluation needs beyond the compiled expression is
+     * reached from here, so concurrent evaluations of this XPath never share mutable state.
+     *
+     * @param node the node (or list of nodes) to use as context.
+     * @return a new Jaxen context for <code>node</code>.
+     */
+    @SuppressWarnings("unchecked")
+    private Context newContext(Object node) {
+        if (node instanceof Context) {
+            return (Context) node;
+        }
+
+        ContextSupport support = new ContextSupport(new NSContext(namespaces, node),
+                XPathFunctionContext.getInstance(), new VarContext(variables), xPath.getNavigator());
+        Context context = new Context(support);
+        context.setNodeSet((node instanceof List) ? (List) node : Collections.singletonList(node));
+        return context;
+    }
+
     public String toString() {
         return (xPath.toString());
     }
@@ -254,11 +327,16 @@ class JaxenXPath
         return xPath.hashCode();
     }
 
-    private class NSContext
-            extends SimpleNamespaceContext {
+    static class NSContext
+            implements NamespaceContext {
+
+        private final Map<String, String> namespaces;
 
-        public NSContext() {
-            super();
+        private final Object context;
+
+        public NSContext(Map<String, String> namespaces, Object context) {
+            this.namespaces = namespaces;
+            this.context = context;
         }
 
         /**
@@ -273,9 +351,9 @@ class JaxenXPath
                 return null;
             }
 
-            String uri = super.translateNamespacePrefixToUri(prefix);
+            String uri = namespaces.get(prefix);
             if (uri == null) {
-                Object ctx = currentContext;
+                Object ctx = context;
                 if (ctx != null) {
                     Element elt = null;
 
@@ -301,5 +379,33 @@ class JaxenXPath
             return uri;
         }
     }
+
+    private static class VarContext
+            implements VariableContext {
+
+        private final Map<String, Object> variables;
+
+        public VarContext(Map<String, Object> variables) {
+            this.variables = variables;
+        }
+
+        /**
+         * <i>[Jaxen VariableContext interface support]</i> Returns the value of a variable defined with {@link
+         * #setVariable(String, Object)}.  Such variables have no namespace.
+         *
+         * @param namespaceURI the variable namespace URI.
+         * @param prefix       the variable namespace prefix.
+         * @param localName    the variable name.
+         * @return the variable value.
+         * @throws UnresolvableException if the variable is not defined.
+         */
+        public Object getVariableValue(String namespaceURI, String prefix, String localName)
+                throws UnresolvableException {
+            if (((namespaceURI == null) || (namespaceURI.length() == 0)) && variables.containsKey(localName)) {
+                return variables.get(localName);
+            }
+            throw new UnresolvableException("Variable " + localName);
+        }
+    }
 }
 
@@ -0,0 +1,543 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom.xpath;
+
+import org.cdmckay.coffeedom.*;
+import org.jaxen.NamespaceContext;
+import org.xml.sax.Attributes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A location path made only of child and descendant steps with element name tests, each optionally followed by
+ * attribute predicates, such as <code>/config/servlet[@name='x']/param</code> or <code>//p:item[@id]</code>. Such
+ * paths are evaluated directly against the CoffeeDOM tree instead of through Jaxen and its navigator.
+ * <p/>
+ * The path is matched in a single walk of the tree in document order. Each element reached carries the set of steps
+ * that may still match its children, as a bit mask: bit <code>k</code> means step <code>k</code> can be tried next. A
+ * descendant step stays in the set below every element it was tried on, and an element matching the last step is a
+ * result. Results therefore come out in document order and without duplicates, as XPath requires, with no sorting.
+ *
+ * @author Cameron McKay
+ */
+final class SimplePath {
+
+    /**
+     * The maximum number of steps, so that the bit for "matched the last step" still fits in an int
+     */
+    private static final int MAX_STEPS = 30;
+
+    /**
+     * Whether the path starts at the document
+     */
+    private final boolean absolute;
+
+    /**
+     * Per step: whether it is a descendant (<code>//</code>) rather than a child step, and its name test
+     */
+    private final boolean[] descendant;
+    private final String[] names;
+
+    /**
+     * Per step: the index of its first predicate; the predicates of step <code>k</code> run up to the first one of
+     * step <code>k + 1</code>
+     */
+    private final int[] firstPredicate;
+
+    /**
+     * Per predicate: the attribute name and the value it must equal, or null if the attribute only has to be present
+     */
+    private final String[] attributeNames;
+    private final String[] attributeValues;
+
+    /**
+     * The prefixes of the step names followed by those of the predicate attribute names, null where a name has none
+     */
+    private final String[] prefixes;
+
+    /**
+     * The namespace URIs to use when no name has a prefix, or null if some name has one
+     */
+    private final String[] unprefixed;
+
+    private SimplePath(boolean absolute, boolean[] descendant, String[] names, int[] firstPredicate,
+                       String[] attributeNames, String[] attributeValues, String[] prefixes) {
+        this.absolute = absolute;
+        this.descendant = descendant;
+        this.names = names;
+        this.firstPredicate = firstPredicate;
+        this.attributeNames = attributeNames;
+        this.attributeValues = attributeValues;
+        this.prefixes = prefixes;
+
+        String[] uris = new String[prefixes.length];
+        for (int i = 0; i < prefixes.length; i++) {
+            if (prefixes[i] != null) {
+                uris = null;
+                break;
+            }
+            uris[i] = "";
+        }
+        this.unprefixed = uris;
+    }
+
+    /**
+     * Compiles an expression if it is a simple location path.
+     *
+     * @param expr the XPath expression.
+     * @return the compiled path, or <code>null</code> if the expression is anything else.
+     */
+    static SimplePath compile(String expr) {
+        return new Parser(expr).parse();
+    }
+
+    /**
+     * Returns the number of steps in this path.
+     *
+     * @return the number of steps.
+     */
+    int getStepCount() {
+        return descendant.length;
+    }
+
+    /**
+     * Returns whether this path starts at the document rather than at the context node.
+     *
+     * @return whether this path is absolute.
+     */
+    boolean isAbsolute() {
+        return absolute;
+    }
+
+    /**
+     * Resolves the prefixes used in this path.
+     *
+     * @param namespaces the namespace context of the evaluation.
+     * @return the namespace URI of each name, as expected by {@link #advance(int, Element, String[])}, or
+     *         <code>null</code> if a prefix is not bound.
+     */
+    String[] resolve(NamespaceContext namespaces) {
+        if (unprefixed != null) {
+            return unprefixed;
+        }
+
+        String[] uris = new String[prefixes.length];
+        for (int i = 0; i < prefixes.length; i++) {
+            if (prefixes[i] == null) {
+                uris[i] = "";
+            } else if ((uris[i] = namespaces.translateNamespacePrefixToUri(prefixes[i])) == null) {
+                return null;
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * Tries the steps that may match the children of an element's parent on the element.
+     *
+     * @param active  the steps that may match the children of the parent, one bit per step.
+     * @param element the element.
+     * @param uris    the resolved namespace URIs.
+     * @return the steps that may match the children of <code>element</code>, with bit {@link #getStepCount()} set if
+     *         <code>element</code> matches the whole path.
+     */
+    int advance(int active, Element element, String[] uris) {
+        int next = 0;
+        for (int k = 0; active != 0; k++, active >>>= 1) {
+            if ((active & 1) != 0) {
+                if (descendant[k]) {
+                    next |= 1 << k;
+                }
+                if (matches(k, element, uris)) {
+                    next |= 1 << (k + 1);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Tries the steps that may match the children of an element's parent on an element read by a SAX parser.
+     *
+     * @param active     the steps that may match the children of the parent, one bit per step.
+     * @param uri        the namespace URI of the element, or an empty string.
+     * @param localName  the name of the element without its prefix.
+     * @param attributes the attributes of the element.
+     * @param uris       the resolved namespace URIs.
+     * @return the steps that may match the children of the element, with bit {@link #getStepCount()} set if the
+     *         element matches the whole path.
+     * @see #advance(int, Element, String[])
+     */
+    int advance(int active, String uri, String localName, Attributes attributes, String[] uris) {
+        int next = 0;
+        for (int k = 0; active != 0; k++, active >>>= 1) {
+            if ((active & 1) != 0) {
+                if (descendant[k]) {
+                    next |= 1 << k;
+                }
+                if (matches(k, uri, localName, attributes, uris)) {
+                    next |= 1 << (k + 1);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Evaluates this path.
+     *
+     * @param context the context node, which must be an {@link Element} or a {@link Document}.
+     * @param uris    the resolved namespace URIs.
+     * @param first   whether to stop at the first result.
+     * @return the selected elements in document order, or <code>null</code> if the path is absolute and the context
+     *         is an element outside any document.
+     */
+    List<Object> select(Object context, String[] uris, boolean first) {
+        Parent start = (Parent) context;
+        if (absolute && context instanceof Element) {
+            start = ((Element) context).getDocument();
+            if (start == null) {
+                return null;
+            }
+        }
+
+        List<Object> results = new ArrayList<Object>();
+        int done = 1 << descendant.length;
+
+        Parent[] parents = new Parent[16];
+        int[] indexes = new int[16];
+        int[] actives = new int[16];
+        int depth = 0;
+        parents[0] = start;
+        actives[0] = 1;
+
+        while (depth >= 0) {
+            Parent parent = parents[depth];
+            int index = indexes[depth];
+            if (index == parent.getContentsSize()) {
+                parents[depth--] = null;
+                continue;
+            }
+            indexes[depth] = index + 1;
+
+            // Matches are handed out, so they are read from the live list: a clone of a frozen element copies its own
+            Content child = parent.getContents().get(index);
+            if (!(child instanceof Element)) {
+                continue;
+            }
+            Element element = (Element) child;
+            int next = advance(actives[depth], element, uris);
+            if ((next & done) != 0) {
+                results.add(element);
+                if (first) {
+                    break;
+                }
+                next &= ~done;
+            }
+            if (next != 0 && element.getContentsSize() != 0) {
+                if (++depth == parents.length) {
+                    Parent[] largerParents = new Parent[depth * 2];
+                    int[] largerIndexes = new int[depth * 2];
+                    int[] largerActives = new int[depth * 2];
+                    System.arraycopy(parents, 0, largerParents, 0, depth);
+                    System.arraycopy(indexes, 0, largerIndexes, 0, depth);
+                    System.arraycopy(actives, 0, largerActives, 0, depth);
+                    parents = largerParents;
+                    indexes = largerIndexes;
+                    actives = largerActives;
+                }
+                parents[depth] = element;
+                indexes[depth] = 0;
+                actives[depth] = next;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns whether an element passes the name test and predicates of a step.
+     */
+    private boolean matches(int step, Element element, String[] uris) {
+        if (!matchesName(step, element.getNamespaceURI(), element.getName(), uris)) {
+            return false;
+        }
+
+        int end = firstPredicate[step + 1];
+        int predicate = firstPredicate[step];
+        if (predicate == end) {
+            return true;
+        }
+        if (!element.hasAttributes()) {
+            return false;
+        }
+        List<Attribute> attributes = element.getAttributes();
+        int offset = names.length;
+        for (; predicate < end; predicate++) {
+            if (!hasAttribute(attributes, attributeNames[predicate], uris[offset + predicate],
+                    attributeValues[predicate])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether an element read by a SAX parser passes the name test and predicates of a step.
+     */
+    private boolean matches(int step, String uri, String localName, Attributes attributes, String[] uris) {
+        if (!matchesName(step, uri, localName, uris)) {
+            return false;
+        }
+
+        int offset = names.length;
+        for (int predicate = firstPredicate[step]; predicate < firstPredicate[step + 1]; predicate++) {
+            String value = attributes.getValue(uris[offset + predicate], attributeNames[predicate]);
+            if (value == null || (attributeValues[predicate] != null && !attributeValues[predicate].equals(value))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether an element name passes the name test of a step.
+     */
+    private boolean matchesName(int step, String uri, String localName, String[] uris) {
+        String name = names[step];
+        if (name != null && !name.equals(localName)) {
+            return false;
+        }
+        return (name == null && prefixes[step] == null) || uris[step].equals(uri);
+    }
+
+    private static boolean hasAttribute(List<Attribute> attributes, String name, String uri, String value) {
+        for (int i = 0, size = attributes.size(); i < size; i++) {
+            Attribute attribute = attributes.get(i);
+            if (attribute.getName().equals(name) && attribute.getNamespaceURI().equals(uri)) {
+                return value == null || value.equals(attribute.getValue());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a simple location path, giving up on anything outside the subset.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private int pos;
+
+        private final List<Boolean> descendant = new ArrayList<Boolean>();
+        private final List<String> names = new ArrayList<String>();
+        private final List<String> prefixes = new ArrayList<String>();
+        private final List<Integer> firstPredicate = new ArrayList<Integer>();
+        private final List<String> attributeNames = new ArrayList<String>();
+        private final List<String> attributePrefixes = new ArrayList<String>();
+        private final List<String> attributeValues = new ArrayList<String>();
+
+        Parser(String text) {
+            this.text = text.trim();
+        }
+
+        SimplePath parse() {
+            boolean absolute = text.startsWith("/");
+            boolean isDescendant = text.startsWith("//");
+            pos = isDescendant ? 2 : (absolute ? 1 : 0);
+
+            while (true) {
+                if (!step(isDescendant)) {
+                    return null;
+                }
+                if (pos == text.length()) {
+                    break;
+                }
+                if (text.charAt(pos) != '/') {
+                    return null;
+                }
+                isDescendant = text.startsWith("//", pos);
+                pos += isDescendant ? 2 : 1;
+            }
+            int steps = names.size();
+            if (steps > MAX_STEPS) {
+                return null;
+            }
+
+            boolean[] descendantSteps = new boolean[steps];
+            int[] firstPredicates = new int[steps + 1];
+            for (int k = 0; k < steps; k++) {
+                descendantSteps[k] = descendant.get(k);
+                firstPredicates[k] = firstPredicate.get(k);
+            }
+            firstPredicates[steps] = attributeNames.size();
+            prefixes.addAll(attributePrefixes);
+
+            return new SimplePath(absolute, descendantSteps, names.toArray(new String[steps]), firstPredicates,
+                    attributeNames.toArray(new String[attributeNames.size()]),
+                    attributeValues.toArray(new String[attributeValues.size()]),
+                    prefixes.toArray(new String[prefixes.size()]));
+        }
+
+        /**
+         * Reads a name test and its predicates.
+         */
+        private boolean step(boolean isDescendant) {
+            String prefix = null;
+            String name;
+            if (pos < text.length() && text.charAt(pos) == '*') {
+                pos++;
+                name = null;
+            } else {
+                name = ncName();
+                if (name == null) {
+                    return false;
+                }
+                if (pos < text.length() && text.charAt(pos) == ':') {
+                    pos++;
+                    prefix = name;
+                    if (pos < text.length() && text.charAt(pos) == '*') {
+                        pos++;
+                        name = null;
+                    } else if ((name = ncName()) == null) {
+                        return false;
+                    }
+                }
+            }
+            descendant.add(isDescendant);
+            names.add(name);
+            prefixes.add(prefix);
+            firstPredicate.add(attributeNames.size());
+
+            while (pos < text.length() && text.charAt(pos) == '[') {
+                pos++;
+                if (!predicate()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Reads <code>@name]</code>, <code>@name='value']</code> or <code>@name="value"]</code>.
+         */
+        private boolean predicate() {
+            skipSpace();
+            if (pos == text.length() || text.charAt(pos) != '@') {
+                return false;
+            }
+            pos++;
+            String prefix = null;
+            String name = ncName();
+            if (name == null) {
+                return false;
+            }
+            if (pos < text.length() && text.charAt(pos) == ':') {
+                pos++;
+                prefix = name;
+                if ((name = ncName()) == null) {
+                    return false;
+                }
+            }
+
+            String value = null;
+            skipSpace();
+            if (pos < text.length() && text.charAt(pos) == '=') {
+                pos++;
+                skipSpace();
+                if (pos == text.length()) {
+                    return false;
+                }
+                char quote = text.charAt(pos);
+                int end = (quote == '\'' || quote == '"') ? text.indexOf(quote, pos + 1) : -1;
+                if (end < 0) {
+                    return false;
+                }
+                value = text.substring(pos + 1, end);
+                pos = end + 1;
+                skipSpace();
+            }
+            if (pos == text.length() || text.charAt(pos) != ']') {
+                return false;
+            }
+            pos++;
+
+            attributeNames.add(name);
+            attributePrefixes.add(prefix);
+            attributeValues.add(value);
+            return true;
+        }
+
+        /**
+         * Reads a name without a colon, returning null if there is none here.
+         */
+        private String ncName() {
+            int start = pos;
+            if (pos == text.length() || text.charAt(pos) == ':' || !Verifier.isXMLNameStartCharacter(text.charAt(pos))) {
+                return null;
+            }
+            pos++;
+            while (pos < text.length() && text.charAt(pos) != ':' && Verifier.isXMLNameCharacter(text.charAt(pos))) {
+                pos++;
+            }
+            return text.substring(start, pos);
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Verifier.isXMLWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -101,7 +101,12 @@ public abstract class XPath
      *
      * @see #newInstance(String)
      */
-    private static Constructor constructor = null;
+    private static volatile Constructor constructor = null;
+
+    /**
+     * The compiled expressions reused by {@link #newInstance(String)}, or null if expressions are always compiled.
+     */
+    private static volatile XPathCache cache = new XPathCache();
 
     /**
      * Creates a new XPath wrapper object, compiling the specified XPath expression.
@@ -123,8 +128,15 @@ public abstract class XPath
                 }
                 setXPathClass(Class.forName(className));
             }
-            // Allocate and return new implementation instance.
-            return (XPath) constructor.newInstance(path);
+            // Allocate and return new implementation instance, bypassing reflection for the default one.
+            Constructor<?> c = constructor;
+            if (c.getDeclaringClass() == JaxenXPath.class) {
+                return JaxenXPath.newInstance(path, cache);
+            }
+            return (XPath) c.newInstance(path);
+        } catch (CoffeeDOMException e) {
+            // Invalid expression, reported by the default implementation.
+            throw e;
         } catch (InvocationTargetException e) {
             // Constructor threw an error on invocation.
             Throwable t = e.getTargetException();
@@ -136,6 +148,26 @@ public abstract class XPath
         }
     }
 
+    /**
+     * Returns the cache of compiled expressions used by {@link #newInstance(String)}, {@link #selectNodes(Object,
+     * String)} and {@link #selectSingleNode(Object, String)}. A cache holding {@link XPathCache#DEFAULT_MAX_SIZE}
+     * expressions is used by default.
+     *
+     * @return the cache in use, or null if caching is disabled
+     */
+    public static XPathCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache of compiled expressions.
+     *
+     * @param cache the cache to use, or null to compile every expression
+     */
+    public static void setCache(XPathCache cache) {
+        XPath.cache = cache;
+    }
+
     /**
      * Sets the concrete XPath subclass to use when allocating XPath instances.
      *
@@ -251,11 +283,11 @@ public abstract class XPath
 
 
     /**
-     * Evaluates an XPath expression and returns the list of selected items. <p> <strong>Note</strong>: This method
-     * should not be used when the same XPath expression needs to be applied several times (on the same or different
-     * contexts) as it requires the expression to be compiled before being evaluated.  In such cases, {@link
-     * #newInstance(String)}  allocating} an XPath wrapper instance and {@link #selectNodes(java.lang.Object)
-     * evaluating} it several times is way more efficient. </p>
+     * Evaluates an XPath expression and returns the list of selected items. <p> <strong>Note</strong>: The compiled
+     * expression is looked up in the {@link #getCache() cache} on each call.  When the same XPath expression needs to
+     * be applied several times (on the same or different contexts), {@link #newInstance(String)}  allocating} an XPath
+     * wrapper instance and {@link #selectNodes(java.lang.Object) evaluating} it several times is still more efficient.
+     * </p>
      *
      * @param context the node to use as context for evaluating the XPath expression.
      * @param path    the XPath expression to evaluate.
@@ -270,10 +302,10 @@ public abstract class XPath
 
     /**
      * Evaluates the wrapped XPath expression and returns the first entry in the list of selected nodes (or atomics).
-     * <p> <strong>Note</strong>: This method should not be used when the same XPath expression needs to be applied
-     * several times (on the same or different contexts) as it requires the expression to be compiled before being
-     * evaluated.  In such cases, {@link #newInstance(String)}  allocating} an XPath wrapper instance and {@link
-     * #selectSingleNode(java.lang.Object) evaluating} it several times is way more efficient. </p>
+     * <p> <strong>Note</strong>: The compiled expression is looked up in the {@link #getCache() cache} on each call.
+     * When the same XPath expression needs to be applied several times (on the same or different contexts), {@link
+     * #newInstance(String)}  allocating} an XPath wrapper instance and {@link #selectSingleNode(java.lang.Object)
+     * evaluating} it several times is still more efficient. </p>
      *
      * @param context the element to use as context for evaluating the XPath expression.
      * @param path    the XPath expression to evaluate.
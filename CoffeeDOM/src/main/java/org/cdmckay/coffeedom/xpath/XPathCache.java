@@ -0,0 +1,265 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom.xpath;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache of compiled XPath expressions. Parsing an expression costs far more than evaluating
+ * it against a small context, so code calling {@link XPath#selectNodes(Object, String)} or {@link
+ * XPath#newInstance(String)} with the same few expressions would otherwise spend most of its time in the parser. Once
+ * an expression has been compiled, later requests for the same text reuse the compiled form.
+ * <p/>
+ * Lookups take no lock. When the cache is full, the expression used least recently is evicted, where uses between two
+ * additions count as simultaneous; finding it looks at every expression, which costs far less than the compilation
+ * that made room necessary. Only the default Jaxen implementation is cached: compiled expressions do not depend on
+ * namespace declarations or variables, which each {@link XPath} returned by {@link XPath#newInstance(String)} keeps
+ * for itself. The cache in use is set through {@link XPath#setCache(XPathCache)}.
+ *
+ * @author Cameron McKay
+ */
+public final class XPathCache {
+
+    /**
+     * The maximum number of expressions held by a cache created with the default constructor
+     */
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    /**
+     * The compiled expressions by expression text
+     */
+    private final ConcurrentHashMap<String, Entry> expressions = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * Advanced by two for each expression added.  An expression is stamped with the clock when it is added and one
+     * past it when it is used, so that it counts as used after the last expression added, and hits only write to an
+     * expression the first time they use it after an addition.
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * The maximum number of expressions in the cache
+     */
+    private final int maxSize;
+
+    /**
+     * Lookup statistics
+     */
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_SIZE} expressions.
+     */
+    public XPathCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache holding at most the given number of expressions.
+     *
+     * @param maxSize maximum number of expressions
+     * @throws IllegalArgumentException if <code>maxSize</code> is negative
+     */
+    public XPathCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the compiled form of an expression, counting the lookup as a hit or a miss.
+     *
+     * @param expr the expression text
+     * @return an XPath compiled from the expression, whose namespaces and variables are never set, or null if it is
+     *         not in the cache
+     */
+    JaxenXPath get(String expr) {
+        Entry entry = expressions.get(expr);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        long used = clock.get() + 1;
+        if (entry.lastUsed < used) {
+            entry.lastUsed = used;
+        }
+        hits.incrementAndGet();
+        return entry.xPath;
+    }
+
+    /**
+     * Records the compiled form of an expression, evicting the least recently used one if the cache is full.
+     *
+     * @param expr  the expression text
+     * @param xPath an XPath compiled from the expression, whose namespaces and variables are never set
+     */
+    void put(String expr, JaxenXPath xPath) {
+        expressions.put(expr, new Entry(xPath, clock.addAndGet(2)));
+        while (expressions.size() > maxSize) {
+            Map.Entry<String, Entry> eldest = null;
+            for (Map.Entry<String, Entry> candidate : expressions.entrySet()) {
+                if (eldest == null || candidate.getValue().lastUsed < eldest.getValue().lastUsed) {
+                    eldest = candidate;
+                }
+            }
+            if (eldest == null) {
+                break;
+            }
+            if (expressions.remove(eldest.getKey(), eldest.getValue())) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes all expressions from the cache and resets its statistics.
+     */
+    public void clear() {
+        expressions.clear();
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    /**
+     * Returns the number of expressions in this cache.
+     *
+     * @return number of expressions
+     */
+    public int size() {
+        return expressions.size();
+    }
+
+    /**
+     * Returns the maximum number of expressions this cache holds.
+     *
+     * @return maximum number of expressions
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of requests answered from this cache.
+     *
+     * @return number of hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of requests that had to compile the expression.
+     *
+     * @return number of misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of expressions dropped to make room for others.
+     *
+     * @return number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the fraction of requests answered from this cache, or 0 if nothing has been requested.
+     *
+     * @return hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * This returns a <code>String</code> representation of this <code>XPathCache</code>, suitable for use in
+     * debugging.
+     *
+     * @return <code>String</code> - information about this instance.
+     */
+    @Override
+    public String toString() {
+        return "[XPathCache: size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount() + ", misses=" +
+                getMissCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    /**
+     * A compiled expression and when it was last used.
+     */
+    private static final class Entry {
+
+        final JaxenXPath xPath;
+
+        /**
+         * The reading of {@link XPathCache#clock} when the expression was added, or one past it when it was used
+         */
+        volatile long lastUsed;
+
+        Entry(JaxenXPath xPath, long lastUsed) {
+            this.xPath = xPath;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
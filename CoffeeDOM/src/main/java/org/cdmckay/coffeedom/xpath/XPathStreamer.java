@@ -0,0 +1,350 @@
+/*--
+
+ Copyright (C) 2000-2007 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+package org.cdmckay.coffeedom.xpath;
+
+import org.cdmckay.coffeedom.*;
+import org.cdmckay.coffeedom.input.SAXHandler;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A SAX handler that selects elements with a few XPath expressions while the document is parsed, without building the
+ * document. Only the elements selected by some expression are built, each with its whole subtree, and handed to the
+ * {@link Handler} given for that expression. Everything else is dropped as soon as it is read, so the memory used
+ * depends on the size of the selected elements rather than on the size of the document.
+ * <p/>
+ * The expressions must be simple location paths: child (<code>/</code>) and descendant (<code>//</code>) steps with
+ * element name tests, optionally followed by attribute predicates such as <code>[@id]</code> or
+ * <code>[@type='x']</code>. They are evaluated with the document as the context node. For example:
+ * <pre>
+ * XPathStreamer streamer = new XPathStreamer();
+ * streamer.addPath("/feed/entry[@type='news']", new XPathStreamer.Handler() {
+ *     public void handle(Element entry) {
+ *         ...
+ *     }
+ * });
+ * new SAXBuilder().build(new InputSource(in), streamer);
+ * </pre>
+ * A selected element is handed over once its end tag has been read, detached from any parent. An element selected
+ * inside another selected element is handed over first, while it is still part of the enclosing element; it must not
+ * be detached. The handler may also be installed directly on any SAX <code>XMLReader</code>, like a {@link
+ * SAXHandler}, and likewise cannot be reused.
+ *
+ * @author Cameron McKay
+ */
+public class XPathStreamer
+        extends SAXHandler {
+
+    /**
+     * Receives the elements selected by an XPath expression.
+     */
+    public interface Handler {
+
+        /**
+         * Called with each selected element, in the order their end tags are read.
+         *
+         * @param element the selected element.
+         * @throws CoffeeDOMException to stop parsing.
+         */
+        void handle(Element element) throws CoffeeDOMException;
+    }
+
+    /**
+     * The maximum number of expressions, so that the expressions matching an element fit in an int
+     */
+    private static final int MAX_PATHS = 32;
+
+    /**
+     * The namespaces declared with {@link #addNamespace(Namespace)}, by prefix
+     */
+    private final Map<String, String> namespaces = new HashMap<String, String>();
+
+    /**
+     * The expressions with their resolved namespace URIs and handlers
+     */
+    private final List<SimplePath> paths = new ArrayList<SimplePath>();
+    private final List<String[]> uris = new ArrayList<String[]>();
+    private final List<Handler> handlers = new ArrayList<Handler>();
+
+    /**
+     * The depth of the element being read, 0 for the document
+     */
+    private int depth;
+
+    /**
+     * For each depth and expression, the steps that may match the children of the open element (see {@link
+     * SimplePath#advance(int, String, String, Attributes, String[])})
+     */
+    private int[] actives = new int[0];
+
+    /**
+     * For each depth, the expressions that selected the open element, one bit per expression
+     */
+    private int[] selected = new int[16];
+
+    /**
+     * The depth of the outermost selected element being built, or -1 if none is
+     */
+    private int buildDepth = -1;
+
+    /**
+     * Prefix mappings reported for the next element, as prefix and URI pairs
+     */
+    private final List<String> prefixMappings = new ArrayList<String>();
+
+    /**
+     * Creates a streamer building elements with the default factory.
+     */
+    public XPathStreamer() {
+        this(null);
+    }
+
+    /**
+     * Creates a streamer building elements with the given factory.
+     *
+     * @param factory <code>CoffeeDOMFactory</code> to be used for constructing objects
+     */
+    public XPathStreamer(CoffeeDOMFactory factory) {
+        super(factory);
+    }
+
+    /**
+     * Declares a namespace prefix for the expressions added after it.
+     *
+     * @param namespace the namespace.
+     */
+    public void addNamespace(Namespace namespace) {
+        namespaces.put(namespace.getPrefix(), namespace.getURI());
+    }
+
+    /**
+     * Declares a namespace prefix for the expressions added after it.
+     *
+     * @param prefix the namespace prefix.
+     * @param uri    the namespace URI.
+     */
+    public void addNamespace(String prefix, String uri) {
+        addNamespace(Namespace.getNamespace(prefix, uri));
+    }
+
+    /**
+     * Adds an expression to select elements with.  Must be called before parsing starts.
+     *
+     * @param path    the XPath expression.
+     * @param handler receives the selected elements.
+     * @throws CoffeeDOMException if the expression is not a simple location path, uses an undeclared prefix, or too
+     *                            many expressions have been added.
+     */
+    public void addPath(String path, Handler handler) throws CoffeeDOMException {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler cannot be null");
+        }
+        if (paths.size() == MAX_PATHS) {
+            throw new CoffeeDOMException("Cannot stream more than " + MAX_PATHS + " XPath expressions");
+        }
+        SimplePath simplePath = SimplePath.compile(path);
+        if (simplePath == null) {
+            throw new CoffeeDOMException("XPath expression cannot be streamed: \"" + path + "\"");
+        }
+        String[] resolved = simplePath.resolve(new JaxenXPath.NSContext(namespaces, null));
+        if (resolved == null) {
+            throw new CoffeeDOMException("XPath expression uses an undeclared prefix: \"" + path + "\"");
+        }
+        paths.add(simplePath);
+        uris.add(resolved);
+        handlers.add(handler);
+    }
+
+    public void startDocument() {
+        super.startDocument();
+
+        int count = paths.size();
+        actives = new int[16 * count];
+        for (int p = 0; p < count; p++) {
+            actives[p] = 1;
+        }
+        depth = 0;
+        buildDepth = -1;
+    }
+
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        prefixMappings.add(prefix);
+        prefixMappings.add(uri);
+    }
+
+    public void startElement(String namespaceURI, String localName, String qName, Attributes attributes)
+            throws SAXException {
+        int count = paths.size();
+        if ((depth + 2) * count > actives.length || depth + 2 > selected.length) {
+            int[] largerActives = new int[actives.length * 2];
+            int[] largerSelected = new int[selected.length * 2];
+            System.arraycopy(actives, 0, largerActives, 0, actives.length);
+            System.arraycopy(selected, 0, largerSelected, 0, selected.length);
+            actives = largerActives;
+            selected = largerSelected;
+        }
+
+        String uri = namespaceURI == null ? "" : namespaceURI;
+        int matches = 0;
+        int parent = depth * count;
+        for (int p = 0; p < count; p++) {
+            int active = actives[parent + p];
+            int next = 0;
+            if (active != 0) {
+                SimplePath path = paths.get(p);
+                int done = 1 << path.getStepCount();
+                next = path.advance(active, uri, localName, attributes, uris.get(p));
+                if ((next & done) != 0) {
+                    matches |= 1 << p;
+                    next &= ~done;
+                }
+            }
+            actives[parent + count + p] = next;
+        }
+        selected[++depth] = matches;
+
+        if (buildDepth < 0 && matches != 0) {
+            buildDepth = depth;
+        }
+        if (buildDepth >= 0) {
+            for (int i = 0; i < prefixMappings.size(); i += 2) {
+                super.startPrefixMapping(prefixMappings.get(i), prefixMappings.get(i + 1));
+            }
+            super.startElement(namespaceURI, localName, qName, attributes);
+        }
+        prefixMappings.clear();
+    }
+
+    public void endElement(String namespaceURI, String localName, String qName) throws SAXException {
+        if (buildDepth >= 0) {
+            Element element = getCurrentElement();
+            super.endElement(namespaceURI, localName, qName);
+            if (depth == buildDepth) {
+                getDocument().detachRootElement();
+                buildDepth = -1;
+            }
+
+            int matches = selected[depth];
+            for (int p = 0; matches != 0; p++, matches >>>= 1) {
+                if ((matches & 1) != 0) {
+                    try {
+                        handlers.get(p).handle(element);
+                    } catch (CoffeeDOMException e) {
+                        throw new SAXException(e);
+                    }
+                }
+            }
+        }
+        depth--;
+    }
+
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (buildDepth >= 0) {
+            super.characters(ch, start, length);
+        }
+    }
+
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        if (buildDepth >= 0) {
+            super.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    public void comment(char[] ch, int start, int length) throws SAXException {
+        if (buildDepth >= 0) {
+            super.comment(ch, start, length);
+        }
+    }
+
+    public void processingInstruction(String target, String data) throws SAXException {
+        if (buildDepth >= 0) {
+            super.processingInstruction(target, data);
+        }
+    }
+
+    public void skippedEntity(String name) throws SAXException {
+        if (buildDepth >= 0) {
+            super.skippedEntity(name);
+        }
+    }
+
+    public void startEntity(String name) throws SAXException {
+        if (buildDepth >= 0) {
+            super.startEntity(name);
+        }
+    }
+
+    public void endEntity(String name) throws SAXException {
+        if (buildDepth >= 0) {
+            super.endEntity(name);
+        }
+    }
+
+    public void startCDATA() throws SAXException {
+        if (buildDepth >= 0) {
+            super.startCDATA();
+        }
+    }
+
+    public void endCDATA() throws SAXException {
+        if (buildDepth >= 0) {
+            super.endCDATA();
+        }
+    }
+}
@@ -48,9 +48,10 @@ import org.jaxen.*;
 import org.jaxen.saxpath.SAXPathException;
 import org.jaxen.util.SingleObjectIterator;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.ListIterator;
 
 /**
  * Interface for navigating around the CoffeeDOM object model. <p/> <p> This class is not intended for direct usage, but is
@@ -145,7 +146,11 @@ public class DocumentNavigator
 
     public Iterator getChildAxisIterator(Object contextNode) {
         if (contextNode instanceof Element) {
-            return ((Element) contextNode).getContents().iterator();
+            Element element = (Element) contextNode;
+            if (element.getContentsSize() == 0) {
+                return JaxenConstants.EMPTY_ITERATOR;
+            }
+            return element.getContents().iterator();
         } else if (contextNode instanceof Document) {
             return ((Document) contextNode).getContents().iterator();
         }
@@ -195,53 +200,115 @@ public class DocumentNavigator
         return JaxenConstants.EMPTY_ITERATOR;
     }
 
+    /**
+     * Reads the element's cached in-scope namespaces instead of walking its ancestors on every call.
+     */
     public Iterator getNamespaceAxisIterator(Object contextNode) {
         if (!(contextNode instanceof Element)) {
             return JaxenConstants.EMPTY_ITERATOR;
         }
 
-        Map<String, XPathNamespace> nsMap = new HashMap<String, XPathNamespace>();
-
         Element element = (Element) contextNode;
-        Element current = element;
-
-        while (current != null) {
+        List<Namespace> scope = element.getNamespacesInScope();
+        List<XPathNamespace> namespaces = new ArrayList<XPathNamespace>(scope.size());
+        for (int i = 0; i < scope.size(); i++) {
+            namespaces.add(new XPathNamespace(element, scope.get(i)));
+        }
+        return namespaces.iterator();
+    }
 
-            Namespace ns = current.getNamespace();
+    /**
+     * Starts at the context node's position in its parent, found from its index hint, instead of scanning the parent
+     * from its first child.  Jaxen sorts sibling nodes into document order with this axis.
+     */
+    public Iterator<?> getFollowingSiblingAxisIterator(Object contextNode) {
+        if (!(contextNode instanceof Content) || ((Content) contextNode).getParent() == null) {
+            return JaxenConstants.EMPTY_ITERATOR;
+        }
 
-            if (ns != Namespace.NO_NAMESPACE) {
-                if (!nsMap.containsKey(ns.getPrefix())) {
-                    nsMap.put(ns.getPrefix(), new XPathNamespace(element, ns));
-                }
-            }
+        Content content = (Content) contextNode;
+        Parent parent = content.getParent();
+        List<Content> siblings = parent.getContents();
+        return siblings.subList(parent.indexOf(content) + 1, siblings.size()).iterator();
+    }
 
-            for (Namespace namespace : current.getAdditionalNamespaces()) {
+    /**
+     * Returns the preceding siblings nearest first, starting at the context node's position in its parent.
+     */
+    public Iterator<?> getPrecedingSiblingAxisIterator(Object contextNode) {
+        if (!(contextNode instanceof Content) || ((Content) contextNode).getParent() == null) {
+            return JaxenConstants.EMPTY_ITERATOR;
+        }
 
-                if (!nsMap.containsKey(namespace.getPrefix())) {
-                    nsMap.put(namespace.getPrefix(), new XPathNamespace(element, namespace));
-                }
+        Content content = (Content) contextNode;
+        Parent parent = content.getParent();
+        final ListIterator<Content> siblings = parent.getContents().listIterator(parent.indexOf(content));
+        return new Iterator<Content>() {
+            public boolean hasNext() {
+                return siblings.hasPrevious();
             }
 
-            for (Attribute attribute : current.getAttributes()) {
-                Namespace attrNS = attribute.getNamespace();
-
-                if (attrNS != Namespace.NO_NAMESPACE) {
-                    if (!nsMap.containsKey(attrNS.getPrefix())) {
-                        nsMap.put(attrNS.getPrefix(), new XPathNamespace(element, attrNS));
-                    }
-                }
+            public Content next() {
+                return siblings.previous();
             }
 
-            if (current.getParent() instanceof Element) {
-                current = (Element) current.getParent();
-            } else {
-                current = null;
+            public void remove() {
+                throw new UnsupportedOperationException();
             }
+        };
+    }
+
+    /**
+     * Compares the positions of two nodes of the same tree in document order, using the document's order keys when
+     * it keeps them.  A namespace node comes after its element and before the element's attributes, which come before
+     * the element's children.
+     *
+     * @param a the first node
+     * @param b the second node
+     * @return a negative number, zero or a positive number as <code>a</code> comes before, is, or comes after
+     *         <code>b</code>
+     * @see Document#setDocumentOrderKeysEnabled(boolean)
+     */
+    public int compareDocumentOrder(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        } else if (a instanceof Document) {
+            return -1;
+        } else if (b instanceof Document) {
+            return 1;
         }
 
-        nsMap.put("xml", new XPathNamespace(element, Namespace.XML_NAMESPACE));
+        Content contentA = owner(a);
+        Content contentB = owner(b);
+        if (contentA != contentB) {
+            return contentA.compareDocumentOrder(contentB);
+        }
+        return rank(a) - rank(b);
+    }
 
-        return nsMap.values().iterator();
+    /**
+     * Returns the node itself, or the element owning an attribute or namespace node.
+     */
+    private static Content owner(Object node) {
+        if (node instanceof Attribute) {
+            return ((Attribute) node).getParent();
+        } else if (node instanceof XPathNamespace) {
+            return ((XPathNamespace) node).getCoffeeDOMElement();
+        }
+        return (Content) node;
+    }
+
+    /**
+     * Orders the nodes that share an owning element: the element, its namespace nodes, then its attributes.
+     */
+    private static int rank(Object node) {
+        if (node instanceof Attribute) {
+            Attribute attribute = (Attribute) node;
+            return 2 + attribute.getParent().getAttributes().indexOf(attribute);
+        } else if (node instanceof XPathNamespace) {
+            return 1;
+        }
+        return 0;
     }
 
     public Iterator getParentAxisIterator(Object contextNode) {
@@ -282,6 +349,9 @@ public class DocumentNavigator
         }
 
         Element element = (Element) contextNode;
+        if (!element.hasAttributes()) {
+            return JaxenConstants.EMPTY_ITERATOR;
+        }
         return element.getAttributes().iterator();
     }
 
@@ -326,6 +396,25 @@ public class DocumentNavigator
         return element.getDocument();
     }
 
+    /**
+     * Looks the ID up in the document's ID index, so the XPath <code>id()</code> function takes constant time.
+     */
+    public Object getElementById(Object contextNode, String elementId) {
+        Document document = null;
+        if (contextNode instanceof Document) {
+            document = (Document) contextNode;
+        } else if (contextNode instanceof Content) {
+            document = ((Content) contextNode).getDocument();
+        } else if (contextNode instanceof Attribute) {
+            Element parent = ((Attribute) contextNode).getParent();
+            document = parent == null ? null : parent.getDocument();
+        } else if (contextNode instanceof XPathNamespace) {
+            Element element = ((XPathNamespace) contextNode).getCoffeeDOMElement();
+            document = element == null ? null : element.getDocument();
+        }
+        return document == null ? null : document.getElementById(elementId);
+    }
+
     public String getElementQName(Object object) {
         Element element = (Element) object;
 
@@ -390,18 +479,8 @@ public class DocumentNavigator
     }
 
     public String getElementStringValue(Object object) {
-        Element element = (Element) object;
-        StringBuilder builder = new StringBuilder();
-
-        for (Content content : element.getContents()) {
-            if (content instanceof Text) {
-                builder.append(((Text) content).getText());
-            } else if (content instanceof Element) {
-                builder.append(getElementStringValue(content));
-            }
-        }
-
-        return builder.toString();
+        // The XPath string value, read without creating the content list of a leaf
+        return ((Element) object).getValue();
     }
 
     public String getProcessingInstructionTarget(Object obj) {
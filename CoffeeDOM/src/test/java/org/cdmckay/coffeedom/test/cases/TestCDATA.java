@@ -61,6 +61,11 @@ import org.cdmckay.coffeedom.CDATA;
 import org.cdmckay.coffeedom.IllegalDataException;
 import org.cdmckay.coffeedom.Text;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 /**
  * Test for {@link CDATA}.
  *
@@ -395,6 +400,101 @@ public final class TestCDATA
         }
     }
 
+    /**
+     * Test building text from many appended fragments, reading it back between appends.
+     */
+    public void test_TCU__append_fragments() throws Exception {
+        final Text text = new Text("start");
+        final StringBuilder expected = new StringBuilder("start");
+        for (int i = 0; i < 1000; i++) {
+            text.append(Integer.toString(i));
+            expected.append(i);
+            if (i % 100 == 0) {
+                assertEquals("incorrect text", expected.toString(), text.getText());
+            }
+        }
+        text.append("");
+        assertEquals("incorrect text", expected.toString(), text.getValue());
+
+        text.append("tail");
+        final Text clone = text.clone();
+        clone.append("!");
+        assertEquals("clone shares fragments", expected + "tail", text.getText());
+        assertEquals("incorrect clone", expected + "tail!", clone.getText());
+
+        text.append("more");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(text);
+        out.close();
+        final Text copy = (Text) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals("incorrect serialized text", expected + "tailmore", copy.getText());
+
+        text.append("x");
+        text.setText("reset");
+        assertEquals("pending fragments survived setText", "reset", text.getText());
+
+        // the end marker may only be completed across fragments
+        final CDATA cdata = new CDATA("a");
+        cdata.append("]");
+        cdata.append("]");
+        try {
+            cdata.append(">b");
+            fail("failed to detect CDATA end marker across fragments");
+        } catch (final IllegalDataException exception) {
+        }
+        try {
+            cdata.append("]>");
+            fail("failed to detect CDATA end marker across fragments");
+        } catch (final IllegalDataException exception) {
+        }
+        cdata.append("a>");
+        assertEquals("incorrect CDATA text", "a]]a>", cdata.getText());
+    }
+
+    /**
+     * Test reading text built from fragments from several threads at once, which must not change the node.
+     */
+    public void test_TCU__read_fragments_concurrently() throws Exception {
+        final Text text = new Text("start");
+        final StringBuilder builder = new StringBuilder("start");
+        for (int i = 0; i < 100; i++) {
+            text.append(Integer.toString(i));
+            builder.append(i);
+        }
+        final String expected = builder.toString();
+        final Throwable[] failures = new Throwable[4];
+        final Thread[] threads = new Thread[failures.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 1000; j++) {
+                            assertEquals("incorrect text", expected, text.getText());
+                        }
+                    } catch (Throwable t) {
+                        failures[index] = t;
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                fail("reading failed: " + failure);
+            }
+        }
+
+        text.append("tail");
+        assertEquals("incorrect text after reads", expected + "tail", text.getText());
+    }
+
     /**
      * Test appending text values to this CDATA.
      */
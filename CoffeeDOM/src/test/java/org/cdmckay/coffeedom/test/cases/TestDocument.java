@@ -11,8 +11,10 @@ package org.cdmckay.coffeedom.test.cases;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.cdmckay.coffeedom.*;
+import org.cdmckay.coffeedom.input.SAXBuilder;
 import org.cdmckay.coffeedom.output.Format;
 import org.cdmckay.coffeedom.output.XMLOutputter;
+import org.cdmckay.coffeedom.xpath.XPath;
 
 import java.io.*;
 import java.util.ArrayList;
@@ -548,4 +550,268 @@ public final class TestDocument extends junit.framework.TestCase {
         assertEquals("missing comment", comment, doc.getContents().get(1));
         assertEquals("missing pi", pi, doc.getContents().get(2));
     }
+
+    /**
+     * Test that the element index follows changes to the document and agrees with a walk of the document.
+     */
+    public void test_TCU__testElementIndex() {
+        Namespace ns = Namespace.getNamespace("x", "http://x");
+        Element root = new Element("root");
+        Element a = new Element("item");
+        Element b = new Element("item", ns);
+        Element c = new Element("group").addContent(new Element("item"));
+        root.addContent(a).addContent(b).addContent(c);
+        Document doc = new Document(root);
+
+        List<Element> unindexed = doc.getElementsByName("item");
+        assertEquals("wrong number of unindexed items", 2, unindexed.size());
+        assertFalse("index should be off", doc.isElementIndexEnabled());
+
+        doc.setElementIndexEnabled(true);
+        assertTrue("index should be on", doc.isElementIndexEnabled());
+        assertEquals("wrong index size", 5, doc.getElementIndexSize());
+        assertEquals("indexed items differ", unindexed, doc.getElementsByName("item"));
+        assertEquals("wrong namespaced items", 1, doc.getElementsByName("item", ns).size());
+
+        // Inserting before the existing items must keep document order
+        Element first = new Element("item");
+        root.addContent(0, first);
+        Element last = new Element("item");
+        c.addContent(last);
+        List<Element> items = doc.getElementsByName("item");
+        assertEquals("wrong number of items", 4, items.size());
+        assertSame("inserted item not first", first, items.get(0));
+        assertSame("appended item not last", last, items.get(3));
+
+        // Renames, detached subtrees and replaced content leave the index
+        b.setNamespace(Namespace.NO_NAMESPACE);
+        assertEquals("renamed item not found", 5, doc.getElementsByName("item").size());
+        assertEquals("renamed item still in old namespace", 0, doc.getElementsByName("item", ns).size());
+        a.setName("other");
+        c.detach();
+        assertEquals("wrong items after detach", 2, doc.getElementsByName("item").size());
+        assertEquals("wrong index size after detach", 4, doc.getElementIndexSize());
+        c.setName("renamed");
+        assertEquals("detached element was indexed", 0, doc.getElementsByName("renamed").size());
+        root.setContents(new ArrayList<Content>());
+        assertEquals("items left after clear", 0, doc.getElementsByName("item").size());
+        assertEquals("wrong index size after clear", 1, doc.getElementIndexSize());
+
+        Document clone = doc.clone();
+        assertTrue("clone should be indexed", clone.isElementIndexEnabled());
+        assertEquals("wrong clone index size", 1, clone.getElementIndexSize());
+
+        doc.setElementIndexEnabled(false);
+        assertEquals("index size should be 0 when off", 0, doc.getElementIndexSize());
+        assertEquals("wrong root lookup", 1, doc.getElementsByName("root").size());
+    }
+
+    /**
+     * Test that the element index only follows the content that is in its document, wherever it was built or moved.
+     */
+    public void test_TCU__testElementIndexFollowsMovedContent() {
+        Element leaf = new Element("leaf");
+        Element root = new Element("root").addContent(new Element("group").addContent(leaf));
+        Document doc = new Document(root);
+        doc.setElementIndexEnabled(true);
+
+        // A list created after the index was turned on
+        leaf.addContent(new Element("item"));
+        assertEquals("item added under a leaf not indexed", 1, doc.getElementsByName("item").size());
+
+        // A subtree moved to another document takes none of the index with it
+        Element group = root.getChild("group");
+        group.detach();
+        Document other = new Document(new Element("other").addContent(group));
+        leaf.addContent(new Element("item"));
+        assertEquals("moved subtree still indexed", 0, doc.getElementsByName("item").size());
+        assertEquals("wrong index size after move", 1, doc.getElementIndexSize());
+
+        // A clone of a frozen subtree is indexed as it is attached and as its shared content is changed
+        Element frozen = new Element("group").addContent(new Element("box").addContent(new Element("item")));
+        new Document(frozen).freeze();
+        Element copy = frozen.clone();
+        root.addContent(copy);
+        assertEquals("cloned items not indexed", 1, doc.getElementsByName("item").size());
+        copy.getChild("box").addContent(new Element("item"));
+        assertEquals("item added to the clone not indexed", 2, doc.getElementsByName("item").size());
+        assertEquals("other document changed", 2, other.getRootElement().getChild("group").getChild("leaf")
+                .getChildren("item").size());
+    }
+
+    /**
+     * Test that getElementById finds IDs declared by a DTD and follows changes to the document.
+     */
+    public void test_TCM__OrgJdomElement_getElementById_String() throws CoffeeDOMException, IOException {
+        String xml = "<!DOCTYPE root [<!ATTLIST item key ID #IMPLIED>]>"
+                + "<root><item key='a'/><group><item key='b'/></group></root>";
+        Document doc = new SAXBuilder().build(new StringReader(xml));
+        Element a = doc.getRootElement().getChild("item");
+        Element group = doc.getRootElement().getChild("group");
+        Element b = group.getChild("item");
+        assertSame("wrong element for a", a, doc.getElementById("a"));
+        assertSame("wrong element for b", b, doc.getElementById("b"));
+        assertNull("found missing id", doc.getElementById("c"));
+        assertSame("id() should use the index", b, XPath.selectSingleNode(doc, "id('b')"));
+
+        a.getAttribute("key").setValue("c");
+        assertNull("old value still indexed", doc.getElementById("a"));
+        assertSame("new value not indexed", a, doc.getElementById("c"));
+
+        group.detach();
+        assertNull("detached element still indexed", doc.getElementById("b"));
+        doc.getRootElement().addContent(group);
+        assertSame("reattached element not indexed", b, doc.getElementById("b"));
+
+        Element d = new Element("item");
+        d.setAttribute(new Attribute("key", "d", Attribute.Type.ID));
+        group.addContent(d);
+        assertSame("added element not indexed", d, doc.getElementById("d"));
+        d.removeAttribute("key");
+        assertNull("removed attribute still indexed", doc.getElementById("d"));
+        a.getAttribute("key").setAttributeType(Attribute.Type.CDATA);
+        assertNull("retyped attribute still indexed", doc.getElementById("c"));
+
+        Document built = new Document(new Element("root"));
+        built.getRootElement().setAttribute(new Attribute("key", "r", Attribute.Type.ID));
+        assertSame("unparsed document not indexed", built.getRootElement(), built.getElementById("r"));
+
+        // IDs given to elements moved to another document follow them there
+        group.detach();
+        built.getRootElement().addContent(group);
+        group.getChild("item").setAttribute(new Attribute("key", "e", Attribute.Type.ID));
+        assertNull("moved element still indexed", doc.getElementById("b"));
+        assertNull("id set after the move indexed in old document", doc.getElementById("e"));
+        assertSame("id set after the move not indexed", b, built.getElementById("e"));
+    }
+
+    /**
+     * Test that document-order comparisons agree with a walk of the document, with and without order keys.
+     */
+    public void test_TCM__int_compareDocumentOrder_OrgJdomContent_OrgJdomContent() {
+        Element root = new Element("root");
+        Element a = new Element("a");
+        Element b = new Element("b");
+        root.addContent(a).addContent(b);
+        a.addContent(new Element("a1")).addContent(new Text("text"));
+        Document doc = new Document(root);
+        doc.addContent(new Comment("trailer"));
+
+        for (int round = 0; round < 2; round++) {
+            doc.setDocumentOrderKeysEnabled(round == 1);
+            // Inserting between contents with keys must keep them ordered
+            a.addContent(1, new Element("between"));
+            b.addContent(new Element("b1"));
+            doc.addContent(0, new ProcessingInstruction("first", ""));
+
+            List<Content> order = new ArrayList<Content>();
+            for (Content content : doc.getDescendants()) {
+                order.add(content);
+            }
+            for (int i = 0; i < order.size(); i++) {
+                for (int j = 0; j < order.size(); j++) {
+                    int expected = i < j ? -1 : (i == j ? 0 : 1);
+                    Content x = order.get(i);
+                    Content y = order.get(j);
+                    assertEquals("wrong document order", expected, Integer.signum(doc.compareDocumentOrder(x, y)));
+                    assertEquals("wrong content order", expected, Integer.signum(x.compareDocumentOrder(y)));
+                }
+            }
+            assertEquals("wrong keys state", round == 1, doc.isDocumentOrderKeysEnabled());
+        }
+
+        try {
+            new Element("detached").compareDocumentOrder(root);
+            fail("compared contents of different trees");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // With keys on, contents moved out of the document are refused rather than compared by stale keys
+        Element moved = (Element) b.getContent(0);
+        new Document(new Element("other").addContent(moved.detach()));
+        try {
+            doc.compareDocumentOrder(a, moved);
+            fail("compared a content of another document");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        b.addContent(moved.detach());
+        assertTrue("reattached content not ordered", doc.compareDocumentOrder(a, moved) < 0);
+    }
+
+    public void test_TCM__OrgJdomDocument_freeze() {
+        Namespace ns = Namespace.getNamespace("p", "http://p");
+        Element root = new Element("root", ns);
+        Element child = new Element("child");
+        child.setAttribute(new Attribute("id", "c1", Attribute.Type.ID));
+        child.setText("text");
+        root.addContent(child);
+        root.addContent(new Element("empty"));
+        Document doc = new Document(root);
+        doc.setElementIndexEnabled(true);
+
+        assertSame("wrong document returned", doc, doc.freeze());
+        assertTrue("document not frozen", doc.isFrozen());
+        assertTrue("element not frozen", child.isFrozen());
+        assertTrue("attribute not frozen", child.getAttribute("id").isFrozen());
+
+        // Reads keep working
+        assertSame("wrong child", child, root.getChild("child"));
+        assertEquals("wrong text", "text", child.getText());
+        assertSame("wrong element by id", child, doc.getElementById("c1"));
+        assertEquals("wrong elements by name", 1, doc.getElementsByName("empty").size());
+        assertTrue("missing inherited namespace", child.getNamespacesInScope().contains(ns));
+        assertTrue("missing xml namespace", child.getNamespacesInScope().contains(Namespace.XML_NAMESPACE));
+        assertSame("siblings without declarations should share their scope", child.getNamespacesInScope(),
+                root.getChild("empty").getNamespacesInScope());
+
+        try {
+            root.addContent(new Element("added"));
+            fail("added content to a frozen element");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            root.getChild("empty").addContent(new Text("added"));
+            fail("added content to a frozen empty element");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            child.setText("changed");
+            fail("changed the text of a frozen element");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            child.getAttribute("id").setValue("c2");
+            fail("changed a frozen attribute");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            child.detach();
+            fail("detached a frozen element");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            doc.setProperty("key", "value");
+            fail("set a property of a frozen document");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals("frozen document changed", 2, root.getContentsSize());
+        assertEquals("frozen text changed", "text", child.getText());
+
+        Document copy = doc.clone();
+        assertFalse("clone is frozen", copy.isFrozen());
+        copy.getRootElement().addContent(new Element("added"));
+        copy.getRootElement().getChild("child").getAttribute("id").setValue("c2");
+        assertNotNull("clone lost its ids", copy.getElementById("c2"));
+
+        Element detached = new Element("detached").addContent(new Element("leaf")).freeze();
+        assertTrue("detached element not frozen", detached.getChild("leaf").isFrozen());
+    }
 }
@@ -64,11 +64,15 @@ package org.cdmckay.coffeedom.test.cases;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.cdmckay.coffeedom.*;
+import org.cdmckay.coffeedom.filter.ElementFilter;
+import org.cdmckay.coffeedom.filter.Filter;
 import org.cdmckay.coffeedom.output.XMLOutputter;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -679,6 +683,34 @@ public final class TestElement extends junit.framework.TestCase {
         assertEquals("incorrect child returned", ((Element) list.get(1)).getAttribute("name").getValue(), "second");
     }
 
+    /**
+     * Test that lookups by name and namespace stay right as one name is used in more namespaces after the first lookup
+     */
+    public void test_TCM__List_getChildren_String_OrgJdomNamespace_mixed() {
+        Namespace a = Namespace.getNamespace("urn:a");
+        Namespace b = Namespace.getNamespace("urn:b");
+        Element element = new Element("el");
+        element.addContent(new Element("child", a));
+        element.addContent(new Element("child", a));
+        assertEquals("wrong children in a", 2, element.getChildren("child", a).size());
+        assertNull("found child in b", element.getChild("child", b));
+
+        // Appended while the index is current, splitting the name by namespace
+        Element inB = new Element("child", b);
+        element.addContent(inB);
+        element.addContent(new Element("child"));
+        element.addContent(new Element("child", a));
+        assertSame("wrong child in b", inB, element.getChild("child", b));
+        assertEquals("wrong children in a", 3, element.getChildren("child", a).size());
+        assertEquals("wrong children in no namespace", 1, element.getChildren("child", Namespace.NO_NAMESPACE).size());
+        assertEquals("wrong children in any namespace", 5, element.getChildren("child", null).size());
+
+        inB.setNamespace(a);
+        assertNull("renamed child still in b", element.getChild("child", b));
+        assertEquals("renamed child not in a", 4, element.getChildren("child", a).size());
+        assertSame("wrong order in a", inB, element.getChildren("child", a).get(2));
+    }
+
     /**
      * Test that getContent returns all the content for the element
      */
@@ -1820,6 +1852,445 @@ public final class TestElement extends junit.framework.TestCase {
         assertTrue("Incorrect data after serialization", sw2.toString().equals(bufWithEmptyNS2));
     }
 
+    /**
+     * Test that named child lookups stay correct as the content list and the children change
+     */
+    public void test_TCU__testNamedChildLookups() {
+        Namespace ns = Namespace.getNamespace("x", "http://foo");
+        Element element = new Element("element");
+        Element first = new Element("child");
+        Element second = new Element("child", ns);
+        Element third = new Element("child");
+        element.addContent(first);
+        element.addContent(new Text("text"));
+        element.addContent(second);
+
+        assertSame("wrong child", first, element.getChild("child"));
+        assertSame("wrong namespaced child", second, element.getChild("child", ns));
+        assertNull("unexpected child", element.getChild("other"));
+
+        // appending keeps the index current
+        element.addContent(third);
+        List<Element> children = element.getChildren("child");
+        assertEquals("wrong number of children", 2, children.size());
+        assertSame("wrong child", third, children.get(1));
+
+        // inserting shifts positions
+        element.addContent(0, new Element("child"));
+        assertNotSame("index not refreshed after insert", first, element.getChild("child"));
+        assertEquals("wrong number of children", 3, element.getChildren("child").size());
+
+        // removing shifts positions
+        element.removeContent(0);
+        assertSame("index not refreshed after remove", first, element.getChild("child"));
+
+        // renaming a child does not modify the list but changes the lookup
+        first.setName("renamed");
+        assertSame("index not refreshed after rename", third, element.getChild("child"));
+        assertSame("index not refreshed after rename", first, element.getChild("renamed"));
+        second.setNamespace(null);
+        assertSame("index not refreshed after namespace change", second, element.getChild("child"));
+        assertNull("index not refreshed after namespace change", element.getChild("child", ns));
+
+        // the named view is live
+        children = element.getChildren("child");
+        children.remove(0);
+        assertEquals("wrong number of children", 1, children.size());
+        assertSame("wrong child", third, children.get(0));
+        children.add(new Element("child"));
+        assertEquals("wrong number of children", 2, element.getChildren("child").size());
+        try {
+            children.get(2);
+            fail("expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test the read-only and live list APIs of an element that never held content or attributes
+     */
+    public void test_TCU__testLeafElement() {
+        Element leaf = new Element("leaf");
+        assertFalse("unexpected attributes", leaf.hasAttributes());
+        assertNull("unexpected attribute", leaf.getAttribute("a"));
+        assertEquals("wrong default", "def", leaf.getAttributeValue("a", "def"));
+        assertFalse("removed an attribute", leaf.removeAttribute("a"));
+        assertEquals("unexpected content", 0, leaf.getContentsSize());
+        assertEquals("unexpected text", "", leaf.getText());
+        assertEquals("unexpected value", "", leaf.getValue());
+        assertNull("unexpected child", leaf.getChild("child"));
+        assertFalse("removed a child", leaf.removeChildren("child"));
+        assertTrue("unexpected content", leaf.removeContents().isEmpty());
+        List<Element> children = leaf.getChildren();
+        assertTrue("unexpected children", children.isEmpty());
+        try {
+            leaf.getContent(0);
+            fail("read content of a leaf");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        Element clone = leaf.clone();
+        assertFalse("unexpected attributes", clone.hasAttributes());
+        assertEquals("unexpected content", 0, clone.getContentsSize());
+
+        // the lists returned before the first write are live
+        List<Attribute> attributes = leaf.getAttributes();
+        List<Content> contents = leaf.getContents();
+        attributes.add(new Attribute("a", "value"));
+        contents.add(new Element("child"));
+        assertTrue("expected attributes", leaf.hasAttributes());
+        assertEquals("wrong attribute value", "value", leaf.getAttributeValue("a"));
+        assertEquals("wrong content size", 1, leaf.getContentsSize());
+        assertNotNull("expected child", leaf.getChild("child"));
+        assertEquals("children not live", 1, children.size());
+        children.add(new Element("second"));
+        assertEquals("wrong content size", 2, leaf.getContentsSize());
+
+        Element other = new Element("other");
+        other.getChildren().add(new Element("child"));
+        assertNotNull("child added through the children of a leaf lost", other.getChild("child"));
+    }
+
+    /**
+     * Test sibling navigation and detaching while the positions of the children move
+     */
+    public void test_TCU__testSiblingsAndDetach() {
+        Element parent = new Element("parent");
+        Element[] children = new Element[10];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = new Element("child" + i);
+            parent.addContent(children[i]);
+        }
+        assertNull("unexpected previous sibling", children[0].getPreviousSibling());
+        assertNull("unexpected next sibling", children[9].getNextSibling());
+        assertNull("unexpected sibling of detached element", new Element("e").getNextSibling());
+
+        Content sibling = children[0];
+        for (int i = 1; i < children.length; i++) {
+            sibling = sibling.getNextSibling();
+            assertSame("wrong next sibling", children[i], sibling);
+            assertSame("wrong previous sibling", children[i - 1], sibling.getPreviousSibling());
+        }
+
+        // insertions and removals move the children after them
+        Text text = new Text("text");
+        parent.addContent(3, text);
+        assertSame("wrong next sibling", text, children[2].getNextSibling());
+        assertSame("wrong next sibling", children[3], text.getNextSibling());
+        assertEquals("wrong index", 7, parent.indexOf(children[6]));
+        children[1].detach();
+        assertSame("wrong previous sibling", children[2], text.getPreviousSibling());
+        assertEquals("wrong index", 6, parent.indexOf(children[6]));
+        assertEquals("wrong index", -1, parent.indexOf(children[1]));
+        assertFalse("removed a detached child", parent.removeContent(children[1]));
+
+        // detach every other child, then the rest from the back
+        for (int i = 0; i < children.length; i += 2) {
+            assertSame("wrong detached child", children[i], children[i].detach());
+            assertNull("parent not cleared", children[i].getParent());
+        }
+        assertEquals("wrong content", 5, parent.getContentsSize());
+        assertSame("wrong next sibling", children[5], children[3].getNextSibling());
+        for (int i = parent.getContentsSize() - 1; i >= 0; i--) {
+            parent.getContent(i).detach();
+        }
+        assertEquals("unexpected content", 0, parent.getContentsSize());
+
+        // a child added to another parent is found there
+        Element other = new Element("other");
+        other.addContent(new Element("first"));
+        other.addContent(children[9]);
+        assertEquals("wrong index", 1, other.indexOf(children[9]));
+        assertEquals("wrong index", -1, parent.indexOf(children[9]));
+    }
+
+    /**
+     * Test walking, removing and pruning descendants
+     */
+    public void test_TCU__testDescendants() {
+        Element root = new Element("root");
+        Element a = new Element("a");
+        Element b = new Element("b");
+        Element c = new Element("c");
+        Element d = new Element("d");
+        root.addContent(a);
+        a.addContent(b);
+        b.addContent(new Text("deep"));
+        a.addContent(new Comment("note"));
+        root.addContent(c);
+        c.addContent(d);
+        root.addContent(new Element("empty"));
+
+        StringBuilder visited = new StringBuilder();
+        for (Content content : root.getDescendants()) {
+            visited.append(content instanceof Element ? ((Element) content).getName() : content.getValue()).append(' ');
+        }
+        assertEquals("wrong order", "a b deep note c d empty ", visited.toString());
+        assertFalse("unexpected descendants", new Element("leaf").getDescendants().iterator().hasNext());
+
+        // whole subtrees below elements named "a" are skipped, but "a" itself is returned
+        visited.setLength(0);
+        Filter notA = new ElementFilter("a").negate();
+        for (Content content : root.getDescendants(notA, new ElementFilter())) {
+            visited.append(((Element) content).getName()).append(' ');
+        }
+        assertEquals("wrong pruned walk", "a c d empty ", visited.toString());
+
+        // removing an element still visits its children and everything after it
+        visited.setLength(0);
+        Iterator<Content> iterator = root.getDescendants(new ElementFilter()).iterator();
+        while (iterator.hasNext()) {
+            Element element = (Element) iterator.next();
+            visited.append(element.getName()).append(' ');
+            if (element == a || element == d) {
+                iterator.remove();
+            }
+        }
+        assertEquals("wrong walk while removing", "a b c d empty ", visited.toString());
+        assertNull("not detached", a.getParent());
+        assertNull("not detached", d.getParent());
+        assertEquals("wrong remaining content", 2, root.getContentsSize());
+        assertEquals("wrong remaining content", 0, c.getContentsSize());
+
+        iterator = root.getDescendants().iterator();
+        iterator.next();
+        root.addContent(new Element("late"));
+        try {
+            iterator.next();
+            fail("modification not detected");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+
+        try {
+            root.getDescendants(null, new ElementFilter());
+            fail("null filter accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that split runs of descendants return every descendant once, in document order
+     */
+    public void test_TCU__testSplitDescendants() {
+        Element top = new Element("top");
+        Document document = new Document(top);
+        document.addContent(new Comment("after"));
+        for (int i = 0; i < 3; i++) {
+            Element child = new Element("child");
+            top.addContent(child);
+            for (int j = 0; j < i * 4; j++) {
+                child.addContent(new Element("grandchild").setText("text"));
+            }
+        }
+        top.addContent(new Text("tail"));
+
+        List<Content> expected = new ArrayList<Content>();
+        for (Content content : document.getDescendants()) {
+            expected.add(content);
+        }
+        for (int count = 1; count <= 40; count++) {
+            List<Iterable<Content>> runs = document.splitDescendants(count);
+            assertTrue("too many runs", runs.size() <= count);
+            List<Content> actual = new ArrayList<Content>();
+            for (Iterable<Content> run : runs) {
+                for (Content content : run) {
+                    actual.add(content);
+                }
+            }
+            assertEquals("wrong descendants for " + count + " runs", expected, actual);
+        }
+        assertEquals("runs not used", 8, document.splitDescendants(8).size());
+
+        // a single element is entered rather than returned as one run
+        List<Iterable<Content>> runs = top.getChild("child").detach().splitDescendants(2);
+        assertEquals("wrong runs", 0, runs.size());
+        runs = new Document(top.detach()).splitDescendants(2);
+        assertEquals("wrong runs", 2, runs.size());
+        assertSame("ancestor not returned first", top, runs.get(0).iterator().next());
+
+        try {
+            top.splitDescendants(0);
+            fail("allowed no runs");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void test_TCU__testCloneFrozen() {
+        Element template = new Element("template");
+        for (int i = 0; i < 3; i++) {
+            Element section = new Element("section");
+            section.setAttribute("n", String.valueOf(i));
+            section.addContent(new Element("title").setText("title " + i));
+            section.addContent(new Element("body").setText("body " + i));
+            template.addContent(section);
+        }
+        String expected = new XMLOutputter().outputString(template);
+        template.freeze();
+
+        Element copy = template.clone();
+        assertFalse("clone is frozen", copy.isFrozen());
+        assertEquals("clone differs", expected, new XMLOutputter().outputString(copy));
+
+        // Changing the clone must leave the template alone, and the clone of a clone must see the change
+        Element copy2 = template.clone();
+        Element body = copy2.getChildren("section").get(1).getChild("body");
+        body.setText("changed");
+        body.getParentElement().setAttribute("n", "x");
+        assertFalse("copied element is frozen", body.isFrozen());
+        assertSame("wrong parent", copy2, body.getParentElement().getParentElement());
+        assertEquals("template changed", expected, new XMLOutputter().outputString(template));
+        assertEquals("clone changed", expected, new XMLOutputter().outputString(template.clone()));
+        Element copy3 = copy2.clone();
+        assertEquals("clone of clone differs", new XMLOutputter().outputString(copy2),
+                new XMLOutputter().outputString(copy3));
+
+        // An untouched clone reads like the original
+        Element copy4 = template.clone();
+        int count = 0;
+        for (Content content : copy4.getDescendants()) {
+            Element top = content.getParentElement();
+            while (top.getParentElement() != null) {
+                top = top.getParentElement();
+            }
+            assertSame("descendant outside the clone", copy4, top);
+            count++;
+        }
+        assertEquals("wrong descendant count", 15, count);
+        assertEquals("wrong value", template.getValue(), copy4.getValue());
+        assertEquals("wrong attribute", "2", copy4.getChildren().get(2).getAttributeValue("n"));
+    }
+
+    public void test_TCU__testCloneFrozenReadsShared() {
+        Element template = new Element("template");
+        for (int i = 0; i < 3; i++) {
+            Element section = new Element("section");
+            section.setAttribute(new Attribute("id", "s" + i, Attribute.Type.ID));
+            section.addContent(new Element("title").setText("title " + i));
+            template.addContent(section);
+        }
+        Document document = new Document(template);
+        String expected = new XMLOutputter().outputString(document);
+        document.freeze();
+
+        // Reading, outputting and serializing an untouched clone copies nothing
+        Document copy = document.clone();
+        Element root = copy.getRootElement();
+        assertEquals("wrong size", 3, root.getContentsSize());
+        assertEquals("wrong value", template.getValue(), root.getValue());
+        assertFalse("wrong attributes", root.hasAttributes());
+        assertNull("missing child found", root.getChild("missing"));
+        assertEquals("wrong output", expected, new XMLOutputter().outputString(copy));
+        assertSame("reads copied the content", template.getContent(0), root.getContent(0));
+        Element other = document.clone().getRootElement();
+        other.setAttribute("changed", "yes");
+        assertSame("changing an attribute copied the content", template.getContent(0), other.getContent(0));
+        assertFalse("template attributes changed", template.hasAttributes());
+
+        // Looking up an ID copies only the path to the element carrying it
+        Element section = copy.getElementById("s1");
+        assertNotNull("ID not found", section);
+        assertSame("element outside the clone", root, section.getParentElement());
+        assertNotSame("element not copied", template.getChildren().get(1), section);
+        assertSame("sibling copied", template.getChildren().get(0).getContent(0),
+                root.getChildren().get(0).getContent(0));
+        section.getChild("title").setText("changed");
+        assertEquals("template changed", expected, new XMLOutputter().outputString(document));
+        assertEquals("wrong text", "changed", copy.getElementById("s1").getChildText("title"));
+    }
+
+    public void test_TCU__testCloneDeep() {
+        // Built from the bottom up, since adding below a deep ancestor chain walks it
+        Element deepest = new Element("leaf").setAttribute("depth", "bottom");
+        Element top = deepest;
+        for (int i = 0; i < 100000; i++) {
+            top = new Element("level").addContent(new Text("t")).addContent(top);
+        }
+
+        Element copy = top.clone();
+        int depth = 0;
+        Element element = copy;
+        while (element.getChild("level") != null) {
+            assertEquals("text not copied", "t", element.getText());
+            assertNotSame("element shared with the original", top, element);
+            element = element.getChild("level");
+            depth++;
+        }
+        assertEquals("wrong depth", 100000 - 1, depth);
+        Element leaf = element.getChild("leaf");
+        assertNotSame("leaf shared with the original", deepest, leaf);
+        assertEquals("attribute not copied", "bottom", leaf.getAttributeValue("depth"));
+        assertSame("attribute parent not set", leaf, leaf.getAttribute("depth").getParent());
+
+        leaf.setAttribute("depth", "changed");
+        assertEquals("original changed", "bottom", deepest.getAttributeValue("depth"));
+    }
+
+    public void test_TCM__getNamespacesInScope_cached() {
+        Namespace a = Namespace.getNamespace("a", "urn:a");
+        Namespace p = Namespace.getNamespace("p", "urn:p");
+        Element root = new Element("root");
+        root.addNamespaceDeclaration(a);
+        Element plain = new Element("plain");
+        Element first = new Element("item", p);
+        Element second = new Element("item", p);
+        root.addContent(plain).addContent(first).addContent(second);
+
+        List<Namespace> scope = first.getNamespacesInScope();
+        assertSame("not cached", scope, first.getNamespacesInScope());
+        assertSame("siblings declaring the same namespaces not shared", scope, second.getNamespacesInScope());
+        assertSame("no declarations, yet not the parent's list", root.getNamespacesInScope(),
+                plain.getNamespacesInScope());
+        assertSame(a, second.getNamespace("a"));
+        assertSame(p, second.getNamespace("p"));
+
+        Namespace b = Namespace.getNamespace("b", "urn:b");
+        root.addNamespaceDeclaration(b);
+        assertSame("declaration on an ancestor not seen", b, second.getNamespace("b"));
+        root.removeNamespaceDeclaration(b);
+        assertNull("removed declaration still seen", second.getNamespace("b"));
+
+        first.setNamespace(Namespace.getNamespace("q", "urn:q"));
+        assertNull("old namespace still in scope", first.getNamespace("p"));
+        assertEquals("urn:q", first.getNamespace("q").getURI());
+
+        plain.setAttribute(new Attribute("x", "1", Namespace.getNamespace("c", "urn:c")));
+        assertEquals("attribute namespace not in scope", "urn:c", plain.getNamespace("c").getURI());
+
+        Element other = new Element("other");
+        other.addNamespaceDeclaration(Namespace.getNamespace("a", "urn:other"));
+        other.addContent(second.detach());
+        assertEquals("moved element kept its old scope", "urn:other", second.getNamespace("a").getURI());
+        assertSame(Namespace.NO_NAMESPACE, second.getNamespace(""));
+    }
+
+    public void test_TCM__getNamespacesInScope_invalidatedPerElement() {
+        Element top = new Element("top");
+        top.addNamespaceDeclaration(Namespace.getNamespace("a", "urn:a"));
+        Element middle = new Element("middle");
+        Element leaf = new Element("leaf");
+        top.addContent(middle.addContent(leaf));
+        List<Namespace> scope = leaf.getNamespacesInScope();
+
+        // Changes in another tree leave the cached list alone
+        Element unrelated = new Element("unrelated");
+        unrelated.addNamespaceDeclaration(Namespace.getNamespace("b", "urn:b"));
+        unrelated.addContent(new Element("child"));
+        assertSame("cache dropped by a change elsewhere", scope, leaf.getNamespacesInScope());
+
+        // A descendant notices a change further up without being told
+        Element other = new Element("other");
+        other.addNamespaceDeclaration(Namespace.getNamespace("a", "urn:other"));
+        other.addContent(middle.detach());
+        assertEquals("moved ancestor not seen", "urn:other", leaf.getNamespace("a").getURI());
+        other.removeNamespaceDeclaration(Namespace.getNamespace("a", "urn:other"));
+        assertNull("removed declaration still seen", leaf.getNamespace("a"));
+    }
+
     // NOTE: This is no longer allowed (generics enforce that is must be Content).
 //    public void test_AddingString() {
 //        Vector v = new Vector();
@@ -452,6 +452,44 @@ public final class TestFilterList
         assertEquals("wrong size", 7, content.size());
     }
 
+    public void test_TCM__Object_get_int_afterModification() {
+        // Positional access on a view that has already cached its positions.
+        List<Element> children = foo.getChildren();
+        List<Element> named = foo.getChildren("baz");
+        assertEquals("wrong element", baz, children.get(1));
+        assertEquals("wrong element", baz, named.get(0));
+
+        // Modify through the view.
+        Element corge = new Element("corge");
+        children.add(1, corge);
+        assertEquals("wrong element", corge, children.get(1));
+        assertEquals("wrong element", baz, children.get(2));
+        assertEquals("wrong element", quux, children.get(3));
+        children.remove(0);
+        assertEquals("wrong element", corge, children.get(0));
+        assertEquals("wrong element", quux, children.get(2));
+        assertEquals("wrong size", 3, children.size());
+
+        // Modify the backing list.
+        foo.addContent(0, new Text("\n"));
+        foo.removeContent(baz);
+        assertEquals("wrong size", 2, children.size());
+        assertEquals("wrong element", quux, children.get(1));
+        assertEquals("wrong size", 0, named.size());
+
+        // Rename a child without modifying the backing list.
+        corge.setName("baz");
+        assertEquals("wrong size", 1, named.size());
+        assertEquals("wrong element", corge, named.get(0));
+
+        // Start a list iterator in the middle of the view.
+        ListIterator<Element> iterator = children.listIterator(1);
+        assertTrue("expected next element", iterator.hasNext());
+        assertEquals("wrong element", quux, iterator.next());
+        assertEquals("wrong element", quux, iterator.previous());
+        assertEquals("wrong element", corge, iterator.previous());
+    }
+
     public void testConcurrentModification() {
         // Get lists.
         List<Element> children = foo.getChildren();
@@ -65,6 +65,9 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.cdmckay.coffeedom.Namespace;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public final class TestNamespace
         extends junit.framework.TestCase {
     /**
@@ -212,4 +215,62 @@ public final class TestNamespace
         assertTrue("Incorrect namespace created", ns2.toString().equals("[Namespace: prefix \"prefx\" is mapped to URI \"http://foo\"]"));
 
     }
+
+    /**
+     * Test that concurrent lookups of the same prefix and URI all return the same instance
+     */
+    public void test_TCU__concurrentGetNamespace() throws InterruptedException {
+        final int threadCount = 8;
+        final Namespace[][] results = new Namespace[threadCount][50];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final Namespace[] result = results[t];
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < result.length; i++) {
+                        String prefix = i % 2 == 0 ? "" : "p" + (i % 5);
+                        result[i] = Namespace.getNamespace(prefix, "http://concurrent/" + (i % 10));
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int t = 1; t < threadCount; t++) {
+            for (int i = 0; i < results[t].length; i++) {
+                assertSame("duplicate namespace instance", results[0][i], results[t][i]);
+            }
+        }
+        assertSame("namespace not interned", results[0][1], Namespace.getNamespace("p1", "http://concurrent/1"));
+        assertNotSame("prefixes share an instance", Namespace.getNamespace("p1", "http://concurrent/1"),
+                Namespace.getNamespace("p2", "http://concurrent/1"));
+    }
+
+    /**
+     * Test that namespaces still in use keep their instance while others with the same URI are collected and pruned
+     */
+    public void test_TCU__collectedNamespacesPruned() {
+        String uri = "http://pruned/";
+        List<Namespace> kept = new ArrayList<Namespace>();
+        for (int i = 0; i < 3000; i++) {
+            Namespace ns = Namespace.getNamespace("p" + i, uri);
+            if (i % 3 == 0) {
+                kept.add(ns);
+            }
+        }
+        for (int round = 0; round < 3; round++) {
+            System.gc();
+            // Storing a new prefix prunes the references to the collected namespaces
+            Namespace.getNamespace("q" + round, uri);
+        }
+        for (int i = 0; i < kept.size(); i++) {
+            assertSame("kept namespace lost", kept.get(i), Namespace.getNamespace("p" + (i * 3), uri));
+        }
+        assertEquals("wrong prefix", "p1", Namespace.getNamespace("p1", uri).getPrefix());
+    }
 }
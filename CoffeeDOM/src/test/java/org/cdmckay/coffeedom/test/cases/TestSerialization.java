@@ -67,6 +67,7 @@ import junit.framework.*;
 
 import org.cdmckay.coffeedom.*;
 import org.cdmckay.coffeedom.filter.ElementFilter;
+import org.cdmckay.coffeedom.output.XMLOutputter;
 
 public final class TestSerialization
         extends junit.framework.TestCase {
@@ -149,4 +150,169 @@ public final class TestSerialization
     public void test_ElementFilterEmpty() {
         outAndBack(new ElementFilter());
     }
+
+    private static Document sampleDocument() {
+        Namespace ns = Namespace.getNamespace("p", "http://p");
+        Element root = new Element("root", ns);
+        root.addNamespaceDeclaration(Namespace.getNamespace("q", "http://q"));
+        for (int i = 0; i < 200; i++) {
+            Element item = new Element("item", ns);
+            item.setAttribute(new Attribute("id", "i" + i, Attribute.Type.ID));
+            item.setAttribute("status", i % 2 == 0 ? "open" : "closed", ns);
+            item.addContent(new Element("title").setText("title " + i));
+            item.addContent(new CDATA("<raw>"));
+            item.addContent(new Comment("note"));
+            root.addContent(item);
+        }
+        Document document = new Document(root, new DocType("root", "public", "system"));
+        document.addContent(0, new ProcessingInstruction("style", "href=\"a.css\""));
+        document.setBaseURI("http://base/");
+        document.setProperty("key", "value");
+        return document;
+    }
+
+    public void test_Document() {
+        Document document = sampleDocument();
+        Document copy = (Document) deserialize(serialize(document));
+        XMLOutputter outputter = new XMLOutputter();
+        assertEquals("document changed", outputter.outputString(document), outputter.outputString(copy));
+        assertEquals("base URI lost", "http://base/", copy.getBaseURI());
+        assertEquals("property lost", "value", copy.getProperty("key"));
+        assertEquals("attribute type lost", Attribute.Type.ID,
+                copy.getRootElement().getChildren().get(3).getAttribute("id").getAttributeType());
+        assertNotNull("ID lost", copy.getElementById("i7"));
+    }
+
+    public void test_AttachedNodes() {
+        Document document = sampleDocument();
+        Element item = document.getRootElement().getChildren().get(5);
+
+        Element element = (Element) deserialize(serialize(item));
+        assertEquals("wrong element", "i5", element.getAttributeValue("id"));
+        assertNotNull("element detached", element.getDocument());
+        assertEquals("wrong position", 5, element.getParentElement().indexOf(element));
+
+        Text text = (Text) deserialize(serialize(item.getChild("title").getContent(0)));
+        assertEquals("wrong text", "title 5", text.getText());
+        assertEquals("wrong text parent", "i5", text.getParentElement().getParentElement().getAttributeValue("id"));
+
+        Attribute attribute = (Attribute) deserialize(serialize(item.getAttribute("id")));
+        assertEquals("wrong attribute", "i5", attribute.getValue());
+        assertSame("wrong attribute parent", attribute, attribute.getParent().getAttribute("id"));
+
+        Comment detached = (Comment) deserialize(serialize(new Comment("alone")));
+        assertEquals("wrong detached comment", "alone", detached.getText());
+        assertNull("detached comment attached", detached.getParent());
+    }
+
+    public void test_NodesOfOneTree() throws Exception {
+        Document document = sampleDocument();
+        Element item = document.getRootElement().getChildren().get(5);
+        int single = serialize(document).size();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(item);
+        out.writeObject(document);
+        out.writeObject(item.getAttribute("id"));
+        out.writeObject(document.getRootElement());
+        out.close();
+        assertTrue("tree written more than once", bytes.size() < single + 500);
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Element itemCopy = (Element) in.readObject();
+        Document documentCopy = (Document) in.readObject();
+        Attribute attributeCopy = (Attribute) in.readObject();
+        Element rootCopy = (Element) in.readObject();
+        assertSame("element read into another document", documentCopy, itemCopy.getDocument());
+        assertSame("attribute read into another tree", itemCopy, attributeCopy.getParent());
+        assertSame("root read into another document", documentCopy.getRootElement(), rootCopy);
+    }
+
+    public void test_TreeChangedBetweenWrites() throws Exception {
+        Document document = sampleDocument();
+        Element root = document.getRootElement();
+        Element item = root.getChildren().get(5);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(document);
+        Element added = new Element("x");
+        root.addContent(0, added);
+        out.writeObject(item);
+        out.writeObject(added);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Document documentCopy = (Document) in.readObject();
+        Element itemCopy = (Element) in.readObject();
+        Element addedCopy = (Element) in.readObject();
+        assertSame("element read as another node", documentCopy.getRootElement().getChildren().get(5), itemCopy);
+        assertEquals("wrong element", "i5", itemCopy.getAttributeValue("id"));
+        assertEquals("added element lost", "x", addedCopy.getName());
+        assertEquals("added element in the wrong place", 0, addedCopy.getParentElement().indexOf(addedCopy));
+        assertEquals("added element read into the old tree", 201, addedCopy.getParentElement().getContentsSize());
+    }
+
+    public void test_DeepElement() {
+        Element top = new Element("leaf").setText("bottom");
+        for (int i = 0; i < 50000; i++) {
+            top = new Element("level").addContent(top);
+        }
+        Element copy = (Element) deserialize(serialize(top));
+        int depth = 0;
+        while (copy.getChild("level") != null) {
+            copy = copy.getChild("level");
+            depth++;
+        }
+        assertEquals("wrong depth", 50000 - 1, depth);
+        assertEquals("text lost", "bottom", copy.getChildText("leaf"));
+    }
+
+    public void test_FlatFormSize() {
+        Document document = sampleDocument();
+        int flat = serialize(document).size();
+
+        // A tree holding a subclass keeps the default form, since only that form can restore the subclass
+        Document subclassed = sampleDocument();
+        subclassed.getRootElement().addContent(new SubclassedElement());
+        Document copy = (Document) deserialize(serialize(subclassed));
+        assertTrue("subclass lost", copy.getRootElement().getChildren().get(200) instanceof SubclassedElement);
+        int standard = serialize(subclassed).size();
+
+        assertTrue("flat form of " + flat + " bytes is not smaller than the default form of " + standard + " bytes",
+                flat * 2 < standard);
+    }
+
+    public void test_SubclassAddedBetweenStreams() throws Exception {
+        Document document = sampleDocument();
+        ObjectOutputStream first = new ObjectOutputStream(new ByteArrayOutputStream());
+        first.writeObject(document);
+
+        // The tree written to the first stream is reused by the second, after it gained a subclass
+        document.getRootElement().addContent(new SubclassedElement());
+        Element item = document.getRootElement().getChildren().get(5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream second = new ObjectOutputStream(bytes);
+        second.writeObject(item);
+        second.writeObject(document);
+        second.close();
+        first.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Element itemCopy = (Element) in.readObject();
+        Document documentCopy = (Document) in.readObject();
+        assertSame("element read into another document", documentCopy, itemCopy.getDocument());
+        assertTrue("subclass lost", documentCopy.getRootElement().getChildren().get(200) instanceof SubclassedElement);
+    }
+
+    private static final class SubclassedElement
+            extends Element {
+
+        private static final long serialVersionUID = 1L;
+
+        SubclassedElement() {
+            super("subclassed");
+        }
+    }
 }
@@ -541,6 +541,55 @@ public final class TestVerifier extends junit.framework.TestCase {
 //
 //	}
 
+    /**
+     * Test the character class lookups on both sides of the ASCII fast path and at the edges of the Appendix B ranges.
+     */
+    public void test_TCU__characterClassBoundaries() {
+        for (char c = 0; c < 0x80; c++) {
+            boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            boolean digit = c >= '0' && c <= '9';
+            assertEquals("letter 0x" + Integer.toHexString(c), letter, Verifier.isXMLLetter(c));
+            assertEquals("digit 0x" + Integer.toHexString(c), digit, Verifier.isXMLDigit(c));
+            assertEquals("name start 0x" + Integer.toHexString(c), letter || c == '_' || c == ':',
+                    Verifier.isXMLNameStartCharacter(c));
+            assertEquals("name char 0x" + Integer.toHexString(c),
+                    letter || digit || c == '_' || c == ':' || c == '-' || c == '.', Verifier.isXMLNameCharacter(c));
+            assertFalse("combining 0x" + Integer.toHexString(c), Verifier.isXMLCombiningChar(c));
+            assertFalse("extender 0x" + Integer.toHexString(c), Verifier.isXMLExtender(c));
+        }
+
+        assertTrue(Verifier.isXMLLetter('\u00C0'));
+        assertFalse(Verifier.isXMLLetter('\u00D7'));
+        assertTrue(Verifier.isXMLLetter('\u4E00'));
+        assertTrue(Verifier.isXMLLetter('\u9FA5'));
+        assertFalse(Verifier.isXMLLetter('\u9FA6'));
+        assertTrue(Verifier.isXMLLetter('\uD7A3'));
+        assertFalse(Verifier.isXMLLetter('\uD7A4'));
+        assertFalse(Verifier.isXMLLetter('\uFFFF'));
+
+        assertTrue(Verifier.isXMLDigit('\u0660'));
+        assertTrue(Verifier.isXMLDigit('\u0F29'));
+        assertFalse(Verifier.isXMLDigit('\u0F2A'));
+        assertTrue(Verifier.isXMLLetterOrDigit('\u0966'));
+
+        assertTrue(Verifier.isXMLCombiningChar('\u0300'));
+        assertTrue(Verifier.isXMLCombiningChar('\u0345'));
+        assertFalse(Verifier.isXMLCombiningChar('\u0346'));
+        assertTrue(Verifier.isXMLCombiningChar('\u309A'));
+        assertFalse(Verifier.isXMLCombiningChar('\u309B'));
+
+        assertTrue(Verifier.isXMLExtender('\u00B7'));
+        assertTrue(Verifier.isXMLExtender('\u30FE'));
+        assertFalse(Verifier.isXMLExtender('\u30FF'));
+
+        assertTrue(Verifier.isXMLNameCharacter('\u0301'));
+        assertTrue(Verifier.isXMLNameCharacter('\u00B7'));
+        assertFalse(Verifier.isXMLNameStartCharacter('\u00B7'));
+        assertFalse(Verifier.isXMLNameCharacter('\u02FF'));
+        assertNull(Verifier.checkElementName("\u00E9l\u00E9ment\u0660"));
+        assertNotNull(Verifier.checkElementName("\u0660element"));
+    }
+
     /**
      * Test for a valid Attribute name.  A valid Attribute name is
      * an xml name (xml start character + xml name characters) with
@@ -811,6 +860,63 @@ public final class TestVerifier extends junit.framework.TestCase {
 
     }
 
+    /**
+     * Test that legal names are remembered per use and that illegal names are never cached.
+     */
+    public void test_TCU__nameCache() {
+        NameCache previous = Verifier.getNameCache();
+        NameCache cache = new NameCache(2, true);
+        Verifier.setNameCache(cache);
+        try {
+            assertNull(Verifier.checkElementName("item"));
+            assertNull(Verifier.checkElementName("item"));
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+
+            // an element name is not known to be a legal attribute name or prefix
+            assertNull(Verifier.checkAttributeName("item"));
+            assertNull(Verifier.checkNamespacePrefix("item"));
+            assertEquals(1, cache.size());
+            assertEquals(1, cache.getHitCount());
+
+            // illegal names are reported every time
+            assertNotNull(Verifier.checkAttributeName("xmlns"));
+            assertNotNull(Verifier.checkAttributeName("xmlns"));
+            assertNotNull(Verifier.checkElementName("a:b"));
+            assertNotNull(Verifier.checkNamespacePrefix("xmlfoo"));
+            assertEquals(1, cache.size());
+
+            // the cache stops growing when full
+            assertNull(Verifier.checkElementName("second"));
+            assertNull(Verifier.checkElementName("third"));
+            assertEquals(2, cache.size());
+            assertNull(Verifier.checkElementName("third"));
+            assertEquals(10, cache.getMissCount());
+            assertEquals(1.0 / 11, cache.getHitRate(), 0.001);
+
+            cache.clear();
+            assertEquals(0, cache.size());
+            assertEquals(0.0, cache.getHitRate(), 0.0);
+
+            Verifier.setNameCache(null);
+            assertNull(Verifier.checkElementName("item"));
+            assertNotNull(Verifier.checkElementName("1item"));
+            assertEquals(0, cache.size());
+
+            // statistics are only kept when asked for
+            NameCache quiet = new NameCache(2);
+            Verifier.setNameCache(quiet);
+            assertNull(Verifier.checkElementName("item"));
+            assertNull(Verifier.checkElementName("item"));
+            assertFalse(quiet.isRecordingStatistics());
+            assertEquals(0, quiet.getHitCount());
+            assertEquals(0, quiet.getMissCount());
+            assertEquals(1, quiet.size());
+        } finally {
+            Verifier.setNameCache(previous);
+        }
+    }
+
     public void test_Namespace_Attribute_collision() {
         try {
             Namespace ns1 = Namespace.getNamespace("aaa", "http://acme.com/aaa");
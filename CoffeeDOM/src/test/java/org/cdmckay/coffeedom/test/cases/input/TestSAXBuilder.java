@@ -66,12 +66,18 @@ package org.cdmckay.coffeedom.test.cases.input;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.cdmckay.coffeedom.Document;
+import org.cdmckay.coffeedom.Element;
 import org.cdmckay.coffeedom.EntityRef;
+import org.cdmckay.coffeedom.Namespace;
 import org.cdmckay.coffeedom.CoffeeDOMException;
+import org.cdmckay.coffeedom.DefaultCoffeeDOMFactory;
 import org.cdmckay.coffeedom.input.SAXBuilder;
+import org.cdmckay.coffeedom.input.SymbolTable;
+import org.cdmckay.coffeedom.output.XMLOutputter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.List;
 
 
@@ -117,6 +123,8 @@ public final class TestSAXBuilder
         suite.addTest(new TestSAXBuilder("test_TCU__DTDComments"));
         suite.addTest(new TestSAXBuilder("test_TCM__void_setExpandEntities_boolean"));
         suite.addTest(new TestSAXBuilder("test_TCU__InternalAndExternalEntities"));
+        suite.addTest(new TestSAXBuilder("test_TCM__void_setSymbolTable_SymbolTable"));
+        suite.addTest(new TestSAXBuilder("test_TCM__void_setTrustParser_boolean"));
         //suite.addTest(new TestSAXBuilder("test_TCU__InternalSubset"));
 
         return suite;
@@ -393,4 +401,73 @@ public final class TestSAXBuilder
                 , "<!NOTATION n2 SYSTEM \"http://www.w3.org/\">\n  <!ENTITY anotation SYSTEM \"http://www.foo.org/image.gif\" NDATA n1>\n", subset2);
 
     }
+
+    /**
+     * Test that names are shared within a build, and across builds using the same symbol table
+     */
+    public void test_TCM__void_setSymbolTable_SymbolTable() throws CoffeeDOMException, IOException {
+        String xml = "<x:root xmlns:x='http://x'><x:item x:id='1' id='2'/><x:item x:id='3' id='4'/></x:root>";
+
+        SAXBuilder builder = new SAXBuilder();
+        assertNull("unexpected shared table", builder.getSymbolTable());
+        Document doc = builder.build(new StringReader(xml));
+        List<Element> items = doc.getRootElement().getChildren();
+        assertSame("element names not shared", items.get(0).getName(), items.get(1).getName());
+        assertSame("attribute names not shared", items.get(0).getAttributes().get(0).getName(),
+                items.get(1).getAttributes().get(0).getName());
+        assertSame("attribute names not shared", items.get(0).getAttributes().get(1).getName(),
+                items.get(1).getAttributes().get(1).getName());
+        assertEquals("wrong prefix", "x", items.get(0).getNamespacePrefix());
+
+        SymbolTable symbols = new SymbolTable();
+        builder.setSymbolTable(symbols);
+        Element first = builder.build(new StringReader(xml)).getRootElement();
+        Element second = builder.build(new StringReader(xml)).getRootElement();
+        assertSame("element names not shared across builds", first.getName(), second.getName());
+        // root, item, id and the prefix x
+        assertEquals("wrong number of symbols", 4, symbols.size());
+
+        SymbolTable full = new SymbolTable(0);
+        builder.setSymbolTable(full);
+        doc = builder.build(new StringReader(xml));
+        assertEquals("wrong name", "item", doc.getRootElement().getChildren().get(0).getName());
+        assertEquals("full table grew", 0, full.size());
+    }
+
+    /**
+     * Test that a trusted build produces the same tree as a checked one
+     */
+    public void test_TCM__void_setTrustParser_boolean() throws CoffeeDOMException, IOException {
+        String xml = "<?pi data?><root xmlns='http://a' xmlns:b='http://b'><!--c--><b:item b:id='1' id='2'>text" +
+                "<![CDATA[<cdata>]]></b:item><item/></root>";
+
+        SAXBuilder builder = new SAXBuilder();
+        assertFalse("parser trusted by default", builder.getTrustParser());
+        Document checked = builder.build(new StringReader(xml));
+
+        builder.setTrustParser(true);
+        assertTrue("parser not trusted", builder.getTrustParser());
+        Document trusted = builder.build(new StringReader(xml));
+
+        XMLOutputter outputter = new XMLOutputter();
+        assertEquals("trees differ", outputter.outputString(checked), outputter.outputString(trusted));
+
+        Element root = trusted.getRootElement();
+        Element item = root.getChild("item", root.getNamespace("b"));
+        assertNotNull("missing child", item);
+        assertSame("wrong parent", root, item.getParent());
+        assertEquals("wrong attribute", "1", item.getAttributeValue("id", item.getNamespace()));
+        assertEquals("wrong namespace declarations", 1, root.getAdditionalNamespaces().size());
+        assertNotNull("missing unprefixed child", root.getChild("item", root.getNamespace()));
+
+        // a custom factory is used as it is
+        DefaultCoffeeDOMFactory factory = new DefaultCoffeeDOMFactory() {
+            @Override
+            public Element element(String name, Namespace namespace) {
+                return super.element(name.toUpperCase(), namespace);
+            }
+        };
+        builder.setFactory(factory);
+        assertEquals("custom factory not used", "ROOT", builder.build(new StringReader(xml)).getRootElement().getName());
+    }
 }
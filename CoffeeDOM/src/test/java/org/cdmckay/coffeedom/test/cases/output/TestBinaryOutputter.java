@@ -0,0 +1,117 @@
+package org.cdmckay.coffeedom.test.cases.output;
+
+/**
+ * Round trips documents through the binary format.
+ *
+ * @author Cameron McKay
+ * @version 0.1
+ */
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.cdmckay.coffeedom.*;
+import org.cdmckay.coffeedom.input.BinaryBuilder;
+import org.cdmckay.coffeedom.input.SAXBuilder;
+import org.cdmckay.coffeedom.output.BinaryOutputter;
+import org.cdmckay.coffeedom.output.XMLOutputter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+public final class TestBinaryOutputter extends junit.framework.TestCase {
+    /**
+     * Construct a new instance.
+     */
+    public TestBinaryOutputter(String name) {
+        super(name);
+    }
+
+    /**
+     * The main method runs all the tests in the text ui
+     */
+    public static void main(String args[]) {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    /**
+     * The suite method runs all the tests
+     */
+    public static Test suite() {
+        TestSuite suite = new TestSuite(TestBinaryOutputter.class);
+        return suite;
+    }
+
+    private static byte[] write(Document document) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryOutputter().output(document, out);
+        return out.toByteArray();
+    }
+
+    public void test_RoundTrip() throws CoffeeDOMException, IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<!DOCTYPE root [<!ATTLIST item id ID #IMPLIED>]>\n"
+                + "<?style href=\"a.css\"?>\n"
+                + "<root xmlns=\"http://default\" xmlns:p=\"http://p\">"
+                + "<!-- comment --><p:item id=\"i1\" p:kind=\"x\">text é中𝄞</p:item>"
+                + "<item id=\"i2\" p:kind=\"x\"><![CDATA[<raw>]]></item>"
+                + "<empty xmlns=\"\"/></root>\n"
+                + "<!-- trailer -->";
+        Document document = new SAXBuilder().build(new StringReader(xml));
+        document.setBaseURI("http://base/");
+        String expected = new XMLOutputter().outputString(document);
+
+        byte[] bytes = write(document);
+        for (int trusted = 0; trusted < 2; trusted++) {
+            BinaryBuilder builder = new BinaryBuilder();
+            builder.setTrustInput(trusted == 1);
+            Document copy = builder.build(bytes);
+            assertEquals("document changed", expected, new XMLOutputter().outputString(copy));
+            assertEquals("base URI lost", "http://base/", copy.getBaseURI());
+            assertNotNull("ID type lost", copy.getElementById("i2"));
+            assertEquals("not written again the same way", bytes.length, write(copy).length);
+        }
+    }
+
+    public void test_Element() throws CoffeeDOMException, IOException {
+        // Deep enough to overflow a recursive writer or reader
+        Element top = new Element("leaf").setText("bottom");
+        for (int i = 0; i < 20000; i++) {
+            top = new Element("level").addContent(top);
+        }
+        Element root = new Element("root").addContent(top);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryOutputter().output(top, out);
+        Document copy = new BinaryBuilder().build(out.toByteArray());
+
+        Element element = copy.getRootElement();
+        int depth = 0;
+        while (element.getChild("level") != null) {
+            element = element.getChild("level");
+            depth++;
+        }
+        assertEquals("wrong depth", 20000 - 1, depth);
+        assertEquals("text lost", "bottom", element.getChildText("leaf"));
+        assertSame("element moved", root, top.getParent());
+    }
+
+    public void test_Malformed() throws CoffeeDOMException, IOException {
+        try {
+            new BinaryBuilder().build("<root/>".getBytes("UTF-8"));
+            fail("read XML text as a binary document");
+        } catch (CoffeeDOMException e) {
+            // expected
+        }
+
+        byte[] bytes = write(new Document(new Element("root")));
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        try {
+            new BinaryBuilder().build(truncated);
+            fail("read a truncated document");
+        } catch (CoffeeDOMException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.cdmckay.coffeedom.test.cases.xpath;
+
+/**
+ * Tests compiled XPath expressions.
+ *
+ * @author Cameron McKay
+ * @version 0.1
+ */
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.cdmckay.coffeedom.*;
+import org.cdmckay.coffeedom.input.SAXBuilder;
+import org.cdmckay.coffeedom.xpath.XPath;
+import org.cdmckay.coffeedom.xpath.XPathCache;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class TestXPath extends junit.framework.TestCase {
+    /**
+     * Construct a new instance.
+     */
+    public TestXPath(String name) {
+        super(name);
+    }
+
+    /**
+     * The main method runs all the tests in the text ui
+     */
+    public static void main(String args[]) {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    /**
+     * The suite method runs all the tests
+     */
+    public static Test suite() {
+        TestSuite suite = new TestSuite(TestXPath.class);
+        return suite;
+    }
+
+    public void test_SharedAcrossThreads() throws Exception {
+        // The same prefix is bound to a different URI under each context element
+        String xml = "<root>"
+                + "<a xmlns:p=\"urn:a\"><p:item n=\"1\"/><p:item n=\"2\"/><item/></a>"
+                + "<b xmlns:p=\"urn:b\"><p:item n=\"1\"/><p:item n=\"2\"/><p:item n=\"3\"/></b>"
+                + "</root>";
+        Document document = new SAXBuilder().build(new StringReader(xml));
+        final Element[] contexts = {
+                document.getRootElement().getChild("a"), document.getRootElement().getChild("b")
+        };
+        final int[] counts = {2, 3};
+
+        final XPath items = XPath.newInstance("p:item[@n <= $max]");
+        items.setVariable("max", 3.0);
+        final XPath count = XPath.newInstance("count(p:item)");
+
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 2000 && failure.get() == null; i++) {
+                            int which = (i + offset) % 2;
+                            Element context = contexts[which];
+
+                            List<Object> nodes = items.selectNodes(context);
+                            assertEquals("wrong number of nodes", counts[which], nodes.size());
+                            for (Object node : nodes) {
+                                assertSame("selected outside the context", context, ((Element) node).getParent());
+                            }
+                            assertEquals("wrong count", counts[which], count.numberValueOf(context).intValue());
+                            assertSame("wrong first node", nodes.get(0), items.selectSingleNode(context));
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        done.await();
+
+        if (failure.get() != null) {
+            AssertionError error = new AssertionError("concurrent evaluation failed: " + failure.get());
+            error.initCause(failure.get());
+            throw error;
+        }
+    }
+
+    public void test_DeclarationsAfterCompile() throws CoffeeDOMException {
+        Element root = new Element("root").addContent(new Element("item", "urn:x"));
+        XPath path = XPath.newInstance("x:item");
+        try {
+            path.selectSingleNode(root);
+            fail("resolved an undeclared prefix");
+        } catch (CoffeeDOMException e) {
+            // expected
+        }
+
+        path.addNamespace("x", "urn:x");
+        assertSame("declared prefix not used", root.getChild("item", Namespace.getNamespace("urn:x")),
+                path.selectSingleNode(root));
+
+        XPath variable = XPath.newInstance("$v");
+        variable.setVariable("v", "one");
+        assertEquals("one", variable.valueOf(root));
+        variable.setVariable("v", "two");
+        assertEquals("two", variable.valueOf(root));
+
+        try {
+            XPath.newInstance("item[");
+            fail("compiled an invalid expression");
+        } catch (CoffeeDOMException e) {
+            assertTrue("invalid expression not reported", e.getMessage().indexOf("item[") >= 0);
+        }
+    }
+
+    public void test_Cache() throws CoffeeDOMException {
+        XPathCache saved = XPath.getCache();
+        try {
+            XPathCache cache = new XPathCache(2);
+            XPath.setCache(cache);
+            Element root = new Element("root").addContent(new Element("a")).addContent(new Element("b"));
+
+            assertSame(root.getChild("a"), XPath.selectSingleNode(root, "a"));
+            assertSame(root.getChild("a"), XPath.selectSingleNode(root, "a"));
+            assertEquals(1, XPath.selectNodes(root, "b").size());
+            assertEquals("hits", 1, cache.getHitCount());
+            assertEquals("misses", 2, cache.getMissCount());
+            assertEquals("evictions", 0, cache.getEvictionCount());
+
+            // "a" was used last, so "b" goes
+            XPath.selectSingleNode(root, "a");
+            XPath.selectNodes(root, "*");
+            assertEquals("evictions", 1, cache.getEvictionCount());
+            assertEquals(2, cache.size());
+            XPath.selectSingleNode(root, "a");
+            assertEquals("hits", 3, cache.getHitCount());
+            XPath.selectNodes(root, "b");
+            assertEquals("misses", 4, cache.getMissCount());
+
+            // Instances sharing a compiled expression keep their own declarations
+            XPath first = XPath.newInstance("$v");
+            XPath second = XPath.newInstance("$v");
+            assertNotSame(first, second);
+            first.setVariable("v", "first");
+            second.setVariable("v", "second");
+            assertEquals("first", first.valueOf(root));
+            assertEquals("second", second.valueOf(root));
+
+            try {
+                XPath.newInstance("a[");
+                fail("compiled an invalid expression");
+            } catch (CoffeeDOMException e) {
+                // expected
+            }
+            assertEquals("invalid expression cached", 2, cache.size());
+
+            cache.clear();
+            assertEquals(0, cache.size());
+            assertEquals(0, cache.getMissCount());
+
+            XPath.setCache(null);
+            assertSame(root.getChild("b"), XPath.selectSingleNode(root, "b"));
+            assertEquals("disabled cache used", 0, cache.getMissCount());
+        } finally {
+            XPath.setCache(saved);
+        }
+    }
+
+    public void test_SimplePaths() throws Exception {
+        String xml = "<config xmlns:p=\"urn:p\">"
+                + "<servlet name=\"x\"><param>1</param><servlet name=\"x\"><param>2</param></servlet></servlet>"
+                + "<servlet name=\"y\" p:kind=\"k\"><param>3</param><!-- c --><p:param>4</p:param></servlet>"
+                + "<p:servlet name=\"x\"><param>5</param></p:servlet>"
+                + "<other xmlns=\"urn:default\"><servlet name=\"x\"/></other>"
+                + "</config>";
+        Document document = new SAXBuilder().build(new StringReader(xml));
+        Element servlet = document.getRootElement().getChild("servlet");
+        String[] paths = {
+                "/config/servlet[@name='x']/param", "//servlet[@name='x']/param", "//servlet//param",
+                "//servlet/servlet", "servlet", "servlet/param", "*", "//*", "*/*[@name]",
+                "//servlet[ @name = \"y\" ][@p:kind='k']/p:param", "//p:*", "p:servlet/param",
+                "//servlet[@name='z']", "//servlet[@kind]", "/config//servlet//param", "/config"
+        };
+        Object[] contexts = {document, document.getRootElement(), servlet};
+
+        for (String path : paths) {
+            for (Object context : contexts) {
+                // Parentheses take the expression outside the directly evaluated subset
+                List<?> expected = XPath.selectNodes(context, "(" + path + ")");
+                assertEquals(path, expected, XPath.selectNodes(context, path));
+                assertSame(path, expected.isEmpty() ? null : expected.get(0),
+                        XPath.selectSingleNode(context, path));
+            }
+        }
+
+        // Unbound prefixes, detached contexts and other node types are still left to Jaxen
+        try {
+            XPath.selectNodes(document, "//q:param");
+            fail("resolved an unbound prefix");
+        } catch (CoffeeDOMException e) {
+            // expected
+        }
+        Element detached = new Element("config").addContent(new Element("servlet"));
+        assertEquals(XPath.selectNodes(detached, "(/config)"), XPath.selectNodes(detached, "/config"));
+        assertTrue(XPath.selectNodes(new Text("text"), "*").isEmpty());
+    }
+
+    public void test_NamespaceAxis() throws Exception {
+        String xml = "<root xmlns=\"urn:d\" xmlns:a=\"urn:a\">"
+                + "<a:item xmlns:b=\"urn:b\"><leaf xmlns=\"\" xmlns:a=\"urn:a2\"/></a:item></root>";
+        Document document = new SAXBuilder().build(new StringReader(xml));
+        Element leaf = (Element) XPath.selectSingleNode(document, "//leaf");
+
+        // xml, a (redeclared) and b are in scope; the default namespace was undeclared
+        assertEquals(3, XPath.newInstance("count(namespace::*)").numberValueOf(leaf).intValue());
+        assertEquals("urn:a2", XPath.newInstance("string(namespace::a)").valueOf(leaf));
+        assertEquals("urn:b", XPath.newInstance("string(namespace::b)").valueOf(leaf));
+        assertEquals(4, XPath.newInstance("count(namespace::*)").numberValueOf(leaf.getParentElement()).intValue());
+    }
+}
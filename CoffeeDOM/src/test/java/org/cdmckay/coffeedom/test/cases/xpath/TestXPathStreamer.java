@@ -0,0 +1,170 @@
+package org.cdmckay.coffeedom.test.cases.xpath;
+
+/**
+ * Tests selecting elements while a document is parsed.
+ *
+ * @author Cameron McKay
+ * @version 0.1
+ */
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.cdmckay.coffeedom.*;
+import org.cdmckay.coffeedom.input.SAXBuilder;
+import org.cdmckay.coffeedom.output.XMLOutputter;
+import org.cdmckay.coffeedom.xpath.XPath;
+import org.cdmckay.coffeedom.xpath.XPathStreamer;
+import org.xml.sax.InputSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class TestXPathStreamer extends junit.framework.TestCase {
+    /**
+     * Construct a new instance.
+     */
+    public TestXPathStreamer(String name) {
+        super(name);
+    }
+
+    /**
+     * The main method runs all the tests in the text ui
+     */
+    public static void main(String args[]) {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    /**
+     * The suite method runs all the tests
+     */
+    public static Test suite() {
+        TestSuite suite = new TestSuite(TestXPathStreamer.class);
+        return suite;
+    }
+
+    /**
+     * Collects the output of the elements it is handed.
+     */
+    private static class Collector implements XPathStreamer.Handler {
+        final List<String> outputs = new ArrayList<String>();
+
+        public void handle(Element element) {
+            outputs.add(new XMLOutputter().outputString(element));
+        }
+    }
+
+    /**
+     * Lists the output of the selected elements in the order their end tags appear.
+     */
+    private static void endTagOrder(Element element, List<Object> selected, List<String> outputs) {
+        for (Element child : element.getChildren()) {
+            endTagOrder(child, selected, outputs);
+        }
+        for (Object node : selected) {
+            if (node == element) {
+                outputs.add(new XMLOutputter().outputString(element));
+            }
+        }
+    }
+
+    public void test_SameAsSelectNodes() throws CoffeeDOMException, IOException {
+        String xml = "<feed xmlns:p=\"urn:p\">"
+                + "<entry type=\"news\" p:id=\"1\">one <b>bold</b><!-- c --><![CDATA[<raw>]]><?pi data?></entry>"
+                + "<entry type=\"ad\"><entry type=\"news\">nested</entry></entry>"
+                + "<p:entry type=\"news\"><p:title>prefixed</p:title></p:entry>"
+                + "<group><entry type=\"news\" p:id=\"2\"><title>deep</title></entry></group>"
+                + "</feed>";
+        Document document = new SAXBuilder().build(new StringReader(xml));
+        String[] paths = {
+                "/feed/entry", "//entry[@type='news']", "//entry", "feed/*", "//p:*", "//entry[@p:id]/title",
+                "/feed/group/entry[@type=\"news\"][@p:id='2']", "//missing"
+        };
+
+        XPathStreamer streamer = new XPathStreamer();
+        streamer.addNamespace("p", "urn:p");
+        Collector[] collectors = new Collector[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            collectors[i] = new Collector();
+            streamer.addPath(paths[i], collectors[i]);
+        }
+        new SAXBuilder().build(new InputSource(new StringReader(xml)), streamer);
+        assertFalse("document built", streamer.getDocument().hasRootElement());
+
+        for (int i = 0; i < paths.length; i++) {
+            XPath xPath = XPath.newInstance(paths[i]);
+            xPath.addNamespace("p", "urn:p");
+            List<String> expected = new ArrayList<String>();
+            endTagOrder(document.getRootElement(), xPath.selectNodes(document), expected);
+            assertEquals(paths[i], expected, collectors[i].outputs);
+        }
+    }
+
+    public void test_LargeStream() throws CoffeeDOMException, IOException {
+        final int entries = 100000;
+        // Generates <feed><entry n="0"><v>0</v></entry>...</feed> without ever holding it all
+        Reader feed = new Reader() {
+            private int next = -1;
+            private String chunk = "<feed>";
+            private int pos;
+
+            public int read(char[] buffer, int offset, int length) {
+                if (pos == chunk.length()) {
+                    if (next == entries) {
+                        return -1;
+                    }
+                    next++;
+                    chunk = next == entries ? "</feed>"
+                            : "<entry n=\"" + next + "\"><v>" + next + "</v><pad>" + "xxxxxxxx" + "</pad></entry>";
+                    pos = 0;
+                }
+                int count = Math.min(length, chunk.length() - pos);
+                chunk.getChars(pos, pos + count, buffer, offset);
+                pos += count;
+                return count;
+            }
+
+            public void close() {
+            }
+        };
+
+        final int[] seen = new int[2];
+        XPathStreamer streamer = new XPathStreamer();
+        streamer.addPath("/feed/entry[@n='4242']/v", new XPathStreamer.Handler() {
+            public void handle(Element element) {
+                assertEquals("4242", element.getText());
+                seen[0]++;
+            }
+        });
+        streamer.addPath("//entry", new XPathStreamer.Handler() {
+            public void handle(Element element) {
+                assertNull("still attached", element.getParent());
+                assertEquals(String.valueOf(seen[1]++), element.getAttributeValue("n"));
+            }
+        });
+        new SAXBuilder().build(new InputSource(feed), streamer);
+
+        assertEquals(1, seen[0]);
+        assertEquals(entries, seen[1]);
+        assertFalse("document built", streamer.getDocument().hasRootElement());
+    }
+
+    public void test_Unsupported() throws CoffeeDOMException {
+        XPathStreamer.Handler ignore = new XPathStreamer.Handler() {
+            public void handle(Element element) {
+            }
+        };
+        XPathStreamer streamer = new XPathStreamer();
+        String[] paths = {"//entry[1]", "../entry", "count(//entry)", "entry/text()", "//q:entry"};
+        for (String path : paths) {
+            try {
+                streamer.addPath(path, ignore);
+                fail("accepted " + path);
+            } catch (CoffeeDOMException e) {
+                // expected
+            }
+        }
+    }
+}